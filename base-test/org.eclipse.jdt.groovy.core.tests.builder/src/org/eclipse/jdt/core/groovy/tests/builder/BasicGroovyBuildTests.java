@@ -16,9 +16,13 @@
 package org.eclipse.jdt.core.groovy.tests.builder;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.TreeSet;
 
 import junit.framework.Test;
 
@@ -33,6 +37,8 @@ import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.codehaus.groovy.ast.stmt.ReturnStatement;
 import org.codehaus.groovy.vmplugin.VMPluginFactory;
+import org.codehaus.jdt.groovy.integration.internal.MultiplexingIndexingParser;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNode;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
@@ -41,15 +47,24 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.TypeNameRequestor;
 import org.eclipse.jdt.core.tests.builder.BuilderTests;
+import org.eclipse.jdt.core.tests.builder.EfficiencyCompilerRequestor;
 import org.eclipse.jdt.core.tests.builder.Problem;
 import org.eclipse.jdt.core.tests.util.GroovyUtils;
 import org.eclipse.jdt.core.tests.util.Util;
 import org.eclipse.jdt.core.util.CompilerUtils;
 import org.eclipse.jdt.groovy.search.VariableScope;
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.Compiler;
 import org.eclipse.jdt.internal.core.builder.AbstractImageBuilder;
 import org.osgi.framework.Version;
 
@@ -2491,6 +2506,188 @@ public final class BasicGroovyBuildTests extends BuilderTests {
         }
     }
 
+    public void testLargeProjectsIncremental() throws Exception {
+        IPath projectPath = env.addProject("Project");
+        env.addExternalJars(projectPath, Util.getJavaClassLibs());
+        env.addGroovyJars(projectPath);
+        fullBuild(projectPath);
+
+        env.removePackageFragmentRoot(projectPath, "");
+
+        IPath root = env.addPackageFragmentRoot(projectPath, "src");
+        env.setOutputFolder(projectPath, "bin");
+
+        int max = AbstractImageBuilder.MAX_AT_ONCE;
+        try {
+            AbstractImageBuilder.MAX_AT_ONCE = 4;
+
+            env.addGroovyClass(root, "p1", "Base", "package p1\n"
+                    + "class Base {\n"
+                    + "  int value() { 1 }\n" + "}\n");
+            String[] names = new String[12];
+            for (int i = 0; i < 4; i++) {
+                names[i] = "p1.GUser" + i;
+                env.addGroovyClass(root, "p1", "GUser" + i, "package p1\n"
+                        + "class GUser" + i + " {\n"
+                        + "  int value() { new Base().value() + " + i + " }\n" + "}\n");
+            }
+            for (int i = 4; i < 12; i++) {
+                names[i] = "p1.JUser" + i;
+                env.addClass(root, "p1", "JUser" + i, "package p1;\n"
+                        + "public class JUser" + i + " {\n"
+                        + "  public static void main(String[] args) {\n"
+                        + "    System.out.print(new Base().value() + new GUser" + (i % 4) + "().value());\n"
+                        + "  }\n" + "}\n");
+            }
+            incrementalBuild(projectPath);
+            expectingNoProblems();
+            executeClass(projectPath, "p1.JUser5", "3", "");
+
+            // a structural change recompiles every user, in groups of at most 4
+            RoundRecorder recorder = new RoundRecorder();
+            debugRequestor = recorder;
+            Compiler.DebugRequestor = recorder;
+            env.addGroovyClass(root, "p1", "Base", "package p1\n"
+                    + "class Base {\n"
+                    + "  int value() { 10 }\n"
+                    + "  String name() { 'base' }\n" + "}\n");
+            incrementalBuild(projectPath);
+            expectingNoProblems();
+            String[] compiled = new String[names.length + 1];
+            System.arraycopy(names, 0, compiled, 0, names.length);
+            compiled[names.length] = "p1.Base";
+            expectingCompiledClasses(compiled);
+            executeClass(projectPath, "p1.JUser5", "21", "");
+            executeClass(projectPath, "p1.JUser11", "23", "");
+
+            // Base is compiled on its own, then its 12 users in 3 groups
+            List<Set<String>> rounds = recorder.rounds;
+            assertEquals(rounds.toString(), 4, rounds.size());
+            assertEquals("[p1.Base]", rounds.get(0).toString());
+            for (Set<String> round : rounds) {
+                assertTrue(rounds.toString(), round.size() <= 4);
+            }
+            // each Java user is compiled with or after the Groovy user it references
+            for (int i = 4; i < 12; i++) {
+                assertTrue(rounds.toString(), roundOf(rounds, "p1.GUser" + (i % 4)) <= roundOf(rounds, "p1.JUser" + i));
+            }
+        } finally {
+            AbstractImageBuilder.MAX_AT_ONCE = max;
+        }
+    }
+
+    // a Java unit reaches a Groovy unit through another Java unit
+    public void testLargeProjectsIncrementalThroughJava() throws Exception {
+        IPath projectPath = env.addProject("Project");
+        env.addExternalJars(projectPath, Util.getJavaClassLibs());
+        env.addGroovyJars(projectPath);
+        fullBuild(projectPath);
+
+        env.removePackageFragmentRoot(projectPath, "");
+
+        IPath root = env.addPackageFragmentRoot(projectPath, "src");
+        env.setOutputFolder(projectPath, "bin");
+
+        int max = AbstractImageBuilder.MAX_AT_ONCE;
+        try {
+            AbstractImageBuilder.MAX_AT_ONCE = 2;
+
+            env.addGroovyClass(root, "p1", "Base", "package p1\n"
+                    + "class Base {\n"
+                    + "  int value() { 1 }\n" + "}\n");
+            env.addGroovyClass(root, "p1", "G", "package p1\n"
+                    + "class G {\n"
+                    + "  int value() { new Base().value() + 1 }\n" + "}\n");
+            env.addClass(root, "p1", "B", "package p1;\n"
+                    + "public class B {\n"
+                    + "  public int value() { return new Base().value() + new G().value(); }\n" + "}\n");
+            String[] names = new String[9];
+            names[0] = "p1.G";
+            names[1] = "p1.B";
+            names[2] = "p1.Base";
+            for (int i = 3; i < 9; i++) {
+                names[i] = "p1.A" + i;
+                env.addClass(root, "p1", "A" + i, "package p1;\n"
+                        + "public class A" + i + " {\n"
+                        + "  public static void main(String[] args) {\n"
+                        + "    System.out.print(new Base().value() + new B().value() + " + i + ");\n"
+                        + "  }\n" + "}\n");
+            }
+            incrementalBuild(projectPath);
+            expectingNoProblems();
+            executeClass(projectPath, "p1.A3", "7", "");
+
+            RoundRecorder recorder = new RoundRecorder();
+            debugRequestor = recorder;
+            Compiler.DebugRequestor = recorder;
+            env.addGroovyClass(root, "p1", "Base", "package p1\n"
+                    + "class Base {\n"
+                    + "  int value() { 10 }\n"
+                    + "  String name() { 'base' }\n" + "}\n");
+            incrementalBuild(projectPath);
+            expectingNoProblems();
+            expectingCompiledClasses(names);
+            executeClass(projectPath, "p1.A3", "34", "");
+
+            // each A is compiled with or after B, and B with or after G, so
+            // compiling an A never faults in G from a later group through B
+            List<Set<String>> rounds = recorder.rounds;
+            assertEquals("[p1.Base]", rounds.get(0).toString());
+            assertTrue(rounds.toString(), rounds.size() > 2);
+            for (Set<String> round : rounds) {
+                assertTrue(rounds.toString(), round.size() <= 2);
+            }
+            assertTrue(rounds.toString(), roundOf(rounds, "p1.G") <= roundOf(rounds, "p1.B"));
+            for (int i = 3; i < 9; i++) {
+                assertTrue(rounds.toString(), roundOf(rounds, "p1.B") <= roundOf(rounds, "p1.A" + i));
+            }
+        } finally {
+            AbstractImageBuilder.MAX_AT_ONCE = max;
+        }
+    }
+
+    private static int roundOf(List<Set<String>> rounds, String className) {
+        for (int i = 0, n = rounds.size(); i < n; i++) {
+            if (rounds.get(i).contains(className)) {
+                return i;
+            }
+        }
+        fail(className + " was not compiled in any of " + rounds);
+        return -1;
+    }
+
+    /**
+     * Records the classes compiled by each run of the compiler.
+     */
+    private static class RoundRecorder extends EfficiencyCompilerRequestor {
+        final List<Set<String>> rounds = new ArrayList<Set<String>>();
+        private Set<String> round = new TreeSet<String>();
+
+        @Override
+        public void acceptDebugResult(CompilationResult result) {
+            super.acceptDebugResult(result);
+            for (ClassFile classFile : result.getClassFiles()) {
+                round.add(new String(classFile.fileName()).replace('/', '.'));
+            }
+        }
+
+        @Override
+        public void reset() {
+            // the compiler resets once it has compiled a group of units
+            if (!round.isEmpty()) {
+                rounds.add(round);
+                round = new TreeSet<String>();
+            }
+        }
+
+        @Override
+        public void clearResult() {
+            super.clearResult();
+            rounds.clear();
+            round = new TreeSet<String>();
+        }
+    }
+
     public void testIncrementalCompilationTheBasics() throws Exception {
         IPath projectPath = env.addProject("Project");
         env.addExternalJars(projectPath, Util.getJavaClassLibs());
@@ -3267,6 +3464,113 @@ public final class BasicGroovyBuildTests extends BuilderTests {
         JavaCore.setOptions(options);
     }
 
+    public void testTaskMarkersForSeveralTags() throws Exception {
+        Hashtable<String, String> options = JavaCore.getOptions();
+        Hashtable<String, String> newOptions = JavaCore.getOptions();
+        newOptions.put(JavaCore.COMPILER_TASK_TAGS, "TODO,FIXME,XXX");
+
+        JavaCore.setOptions(newOptions);
+
+        IPath projectPath = env.addProject("Project");
+        env.addExternalJars(projectPath, Util.getJavaClassLibs());
+        env.addGroovyJars(projectPath);
+
+        // remove old package fragment root so that names don't collide
+        env.removePackageFragmentRoot(projectPath, "");
+
+        IPath root = env.addPackageFragmentRoot(projectPath, "src");
+        env.setOutputFolder(projectPath, "bin");
+
+        IPath pathToA = env.addGroovyClass(root, "p", "A",
+                "package p; \n" +
+                        "class C {\n" +
+                        "//FIXME first\n" + // 'F' is 24 '\n' is 35
+                        "//XXX second TODO third\n" + // 'X' is 38 'T' is 49 '\n' is 59
+                        "}");
+
+        fullBuild(projectPath);
+
+        expectingOnlySpecificProblemsFor(pathToA, new Problem[] {
+                new Problem("A", toTask("FIXME", "first"), pathToA, 24, 35, -1, IMarker.SEVERITY_ERROR),
+                new Problem("A", toTask("XXX", "second"), pathToA, 38, 48, -1, IMarker.SEVERITY_ERROR),
+                new Problem("A", toTask("TODO", "third"), pathToA, 49, 59, -1, IMarker.SEVERITY_ERROR)
+        });
+
+        JavaCore.setOptions(options);
+    }
+
+    // one tag is a prefix of another
+    public void testTaskMarkersForOverlappingTags() throws Exception {
+        Hashtable<String, String> options = JavaCore.getOptions();
+        Hashtable<String, String> newOptions = JavaCore.getOptions();
+        newOptions.put(JavaCore.COMPILER_TASK_TAGS, "TODO,TODOX");
+
+        JavaCore.setOptions(newOptions);
+
+        IPath projectPath = env.addProject("Project");
+        env.addExternalJars(projectPath, Util.getJavaClassLibs());
+        env.addGroovyJars(projectPath);
+
+        // remove old package fragment root so that names don't collide
+        env.removePackageFragmentRoot(projectPath, "");
+
+        IPath root = env.addPackageFragmentRoot(projectPath, "src");
+        env.setOutputFolder(projectPath, "bin");
+
+        IPath pathToA = env.addGroovyClass(root, "p", "A",
+                "package p; \n" +
+                        "class C {\n" +
+                        "//TODOX later\n" + // 'T' is 24 '\n' is 35
+                        "//TODO now TODOX then\n" + // 'T' is 38 'T' is 47 '\n' is 57
+                        "}");
+
+        fullBuild(projectPath);
+
+        expectingOnlySpecificProblemsFor(pathToA, new Problem[] {
+                new Problem("A", toTask("TODOX", "later"), pathToA, 24, 35, -1, IMarker.SEVERITY_ERROR),
+                new Problem("A", toTask("TODO", "now"), pathToA, 38, 46, -1, IMarker.SEVERITY_ERROR),
+                new Problem("A", toTask("TODOX", "then"), pathToA, 47, 57, -1, IMarker.SEVERITY_ERROR)
+        });
+
+        JavaCore.setOptions(options);
+    }
+
+    public void testTaskMarkersForSeveralTagsCaseInsensitive() throws Exception {
+        Hashtable<String, String> options = JavaCore.getOptions();
+        Hashtable<String, String> newOptions = JavaCore.getOptions();
+        newOptions.put(JavaCore.COMPILER_TASK_TAGS, "todo,fixme");
+        newOptions.put(JavaCore.COMPILER_TASK_CASE_SENSITIVE, JavaCore.DISABLED);
+
+        JavaCore.setOptions(newOptions);
+
+        IPath projectPath = env.addProject("Project");
+        env.addExternalJars(projectPath, Util.getJavaClassLibs());
+        env.addGroovyJars(projectPath);
+
+        // remove old package fragment root so that names don't collide
+        env.removePackageFragmentRoot(projectPath, "");
+
+        IPath root = env.addPackageFragmentRoot(projectPath, "src");
+        env.setOutputFolder(projectPath, "bin");
+
+        IPath pathToA = env.addGroovyClass(root, "p", "A",
+                "package p; \n" +
+                        "class C {\n" +
+                        "//TODO upper\n" + // 'T' is 24 '\n' is 34
+                        "//FixMe mixed\n" + // 'F' is 37 '\n' is 48
+                        "//fixmeup\n" + // not a task
+                        "}");
+
+        fullBuild(projectPath);
+
+        expectingOnlySpecificProblemsFor(pathToA, new Problem[] {
+                new Problem("A", toTask("todo", "upper"), pathToA, 24, 34, -1, IMarker.SEVERITY_ERROR),
+                new Problem("A", toTask("fixme", "mixed"), pathToA, 37, 48, -1, IMarker.SEVERITY_ERROR)
+        });
+
+        JavaCore.setOptions(options);
+    }
+
     public void testCopyGroovyResourceNonGroovyProject_GRECLIPSE653()
             throws Exception {
         IPath projectPath = env.addProject("Project");
@@ -3709,6 +4013,158 @@ public final class BasicGroovyBuildTests extends BuilderTests {
         expectingNoProblems();
     }
 
+    public void testTraitsKeepLoadersOfOtherProjects() throws Exception {
+        if (GroovyUtils.GROOVY_LEVEL < 23) {
+            return;
+        }
+        IPath otherPath = env.addProject("Other");
+        env.addExternalJars(otherPath, Util.getJavaClassLibs());
+        env.addGroovyJars(otherPath);
+        env.removePackageFragmentRoot(otherPath, "");
+        IPath otherRoot = env.addPackageFragmentRoot(otherPath, "src");
+        env.setOutputFolder(otherPath, "bin");
+
+        env.addGroovyClass(otherRoot, "o", "Other",
+                "package o\n" +
+                "class Other {}\n");
+
+        IPath projectPath = env.addProject("Project");
+        env.addExternalJars(projectPath, Util.getJavaClassLibs());
+        env.addGroovyJars(projectPath);
+        env.removePackageFragmentRoot(projectPath, "");
+        IPath root = env.addPackageFragmentRoot(projectPath, "src");
+        env.setOutputFolder(projectPath, "bin");
+
+        env.addGroovyClass(root, "p", "MyTrait",
+                "package p\n" +
+                "trait MyTrait {\n" +
+                "}\n");
+
+        fullBuild(otherPath);
+        expectingNoProblems();
+        fullBuild(projectPath);
+        expectingNoProblems();
+
+        // compiling the trait discards the loaders that can see its helper classes, but not the one of the other project
+        env.addGroovyClass(root, "p", "MyTrait",
+                "package p\n" +
+                "trait MyTrait {\n" +
+                "    def m() { 'm' }\n" +
+                "}\n");
+        incrementalBuild(projectPath);
+        expectingCompiledClasses("p.MyTrait", "p.MyTrait$Trait$Helper");
+        expectingNoProblems();
+
+        int loaders = GroovyParser.getLoaderCreationCount();
+        env.addGroovyClass(otherRoot, "o", "Other",
+                "package o\n" +
+                "class Other { def x }\n");
+        incrementalBuild(otherPath);
+        expectingCompiledClasses("o.Other");
+        expectingNoProblems();
+        assertEquals(loaders, GroovyParser.getLoaderCreationCount());
+    }
+
+    public void testIndexingManyGroovyFiles() throws Exception {
+        IPath projectPath = env.addProject("Project");
+        env.addExternalJars(projectPath, Util.getJavaClassLibs());
+        env.addGroovyJars(projectPath);
+        env.removePackageFragmentRoot(projectPath, "");
+        IPath root = env.addPackageFragmentRoot(projectPath, "src");
+        env.setOutputFolder(projectPath, "bin");
+
+        // more sources than the parsing threads take at once, so that some wait for their turn
+        int count = 100;
+        int pipelined = MultiplexingIndexingParser.getPipelinedParseCount();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < count; i += 1) {
+            env.addGroovyClass(root, "p" + (i % 5), "Type" + i,
+                    "package p" + (i % 5) + "\n" +
+                    "class Type" + i + " {\n" +
+                    "    String name = 'type" + i + "'\n" +
+                    "    def next(int n) { n + " + i + " }\n" +
+                    "}\n");
+            expected.add("p" + (i % 5) + ".Type" + i);
+        }
+        fullBuild(projectPath);
+        expectingNoProblems();
+
+        final List<String> found = new ArrayList<String>();
+        new SearchEngine().searchAllTypeNames(
+                null, 0,
+                "Type".toCharArray(),
+                SearchPattern.R_CASE_SENSITIVE | SearchPattern.R_PREFIX_MATCH,
+                IJavaSearchConstants.CLASS,
+                SearchEngine.createJavaSearchScope(new IJavaElement[] {env.getJavaProject(projectPath)}),
+                new TypeNameRequestor() {
+                    @Override
+                    public void acceptType(int modifiers, char[] packageName, char[] simpleTypeName, char[][] enclosingTypeNames, String path) {
+                        found.add(new String(packageName) + '.' + new String(simpleTypeName));
+                    }
+                },
+                IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
+                null);
+        Collections.sort(expected);
+        Collections.sort(found);
+        assertEquals(expected, found);
+
+        // some of the sources were indexed from declarations the pipeline parsed ahead of their jobs
+        assertTrue(MultiplexingIndexingParser.getPipelinedParseCount() > pipelined);
+    }
+
+    public void testTraitsDiscardLoadersOfSourceFolderOutputs() throws Exception {
+        if (GroovyUtils.GROOVY_LEVEL < 23) {
+            return;
+        }
+        IPath projectPath = env.addProject("Project");
+        env.addExternalJars(projectPath, Util.getJavaClassLibs());
+        env.addGroovyJars(projectPath);
+        env.removePackageFragmentRoot(projectPath, "");
+        IPath root = env.addPackageFragmentRoot(projectPath, "src", null, "classes");
+        env.setOutputFolder(projectPath, "bin");
+
+        env.addGroovyClass(root, "p", "MyTrait",
+                "package p\n" +
+                "trait MyTrait {\n" +
+                "}\n");
+
+        IPath dependentPath = env.addProject("Dependent");
+        env.addExternalJars(dependentPath, Util.getJavaClassLibs());
+        env.addGroovyJars(dependentPath);
+        env.removePackageFragmentRoot(dependentPath, "");
+        IPath dependentRoot = env.addPackageFragmentRoot(dependentPath, "src");
+        env.setOutputFolder(dependentPath, "bin");
+        env.addRequiredProject(dependentPath, projectPath);
+
+        env.addGroovyClass(dependentRoot, "q", "Dependent",
+                "package q\n" +
+                "class Dependent implements p.MyTrait {}\n");
+
+        fullBuild(projectPath);
+        expectingNoProblems();
+        fullBuild(dependentPath);
+        expectingNoProblems();
+
+        // the trait's helper classes go to the source folder's output, which the dependent project's loader can see
+        env.addGroovyClass(root, "p", "MyTrait",
+                "package p\n" +
+                "trait MyTrait {\n" +
+                "    def m() { 'm' }\n" +
+                "}\n");
+        incrementalBuild(projectPath);
+        expectingCompiledClasses("p.MyTrait", "p.MyTrait$Trait$Helper");
+        expectingNoProblems();
+
+        int loaders = GroovyParser.getLoaderCreationCount();
+        env.addGroovyClass(dependentRoot, "q", "Dependent",
+                "package q\n" +
+                "class Dependent implements p.MyTrait { def x }\n");
+        incrementalBuild(dependentPath);
+        expectingCompiledClasses("q.Dependent");
+        expectingNoProblems();
+        assertEquals(loaders + 1, GroovyParser.getLoaderCreationCount());
+    }
+
     public void testGRE1773() throws Exception {
         IPath projectPath = env.addProject("Project");
         env.addExternalJars(projectPath, Util.getJavaClassLibs());
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.locations;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.antlr.CharArraySourceBuffer;
+import org.codehaus.groovy.antlr.LineColumn;
+import org.codehaus.groovy.antlr.LocationSupport;
+import org.codehaus.groovy.antlr.SourceBuffer;
+
+/**
+ * Checks that {@link CharArraySourceBuffer} locates lines and columns and
+ * returns snippets exactly like {@link SourceBuffer} does.
+ */
+public class SourceBufferTests extends TestCase {
+
+    private static final String[] TEXTS = {
+        "",
+        "x",
+        "a\nbc\n",
+        "a\nbc\nd",
+        "a\r\nbc\r\nd",
+        "a\r\nbc\r\n",
+        "a\rbc\rd\r",
+        "\n\n",
+        "\r\n\r\n",
+        "\r\r\n\n",
+        "ab\r\ncd\nef\rgh",
+        "class A {\r\n  def x = 1\r\n}\r\n",
+    };
+
+    public void testLocations() {
+        for (String text : TEXTS) {
+            assertSameLocations(text, text.length());
+        }
+    }
+
+    public void testPartialLexing() {
+        for (String text : TEXTS) {
+            for (int count = 0; count < text.length(); count += 1) {
+                assertSameLocations(text, count);
+            }
+        }
+    }
+
+    public void testRowColumn() {
+        String text = "a\r\nbc\rd\ne";
+        LocationSupport locations = fill(new CharArraySourceBuffer(text.toCharArray()), text, text.length()).getLocationSupport();
+        assertEquals("[1, 1]", Arrays.toString(locations.getRowCol(0)));
+        assertEquals("[1, 3]", Arrays.toString(locations.getRowCol(2)));
+        assertEquals("[2, 1]", Arrays.toString(locations.getRowCol(3)));
+        assertEquals("[2, 3]", Arrays.toString(locations.getRowCol(5)));
+        assertEquals("[3, 1]", Arrays.toString(locations.getRowCol(6)));
+        assertEquals("[4, 1]", Arrays.toString(locations.getRowCol(8)));
+        assertEquals(4, locations.getEndLine());
+        assertEquals(9, locations.getEnd());
+        try {
+            locations.getRowCol(9);
+            fail("Expected offset past the end to be rejected");
+        } catch (RuntimeException expected) {
+        }
+    }
+
+    public void testSnippets() {
+        for (String text : TEXTS) {
+            SourceBuffer expected = fill(new SourceBuffer(), text, text.length());
+            SourceBuffer actual = fill(new CharArraySourceBuffer(text.toCharArray()), text, text.length());
+            for (int startLine = 0; startLine <= 5; startLine += 1) {
+                for (int startColumn = 0; startColumn <= 12; startColumn += 1) {
+                    for (int endLine = startLine; endLine <= 5; endLine += 1) {
+                        for (int endColumn = 0; endColumn <= 12; endColumn += 1) {
+                            LineColumn start = new LineColumn(startLine, startColumn), end = new LineColumn(endLine, endColumn);
+                            String snippet;
+                            try {
+                                snippet = expected.getSnippet(start, end);
+                            } catch (StringIndexOutOfBoundsException e) {
+                                continue; // end before start, which SourceBuffer rejects before Groovy 2.4
+                            }
+                            assertEquals(escape(text) + " " + start + " " + end, snippet, actual.getSnippet(start, end));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public void testSnippetAcrossCRLF() {
+        String text = "a\r\nbc\r\nd";
+        SourceBuffer buffer = fill(new SourceBuffer(), text, text.length());
+        assertEquals("a\r\nbc\r\nd", buffer.getSnippet(new LineColumn(1, 1), new LineColumn(3, 2)));
+        assertEquals("bc", buffer.getSnippet(new LineColumn(2, 1), new LineColumn(2, 3)));
+        assertEquals("c\r\nd", buffer.getSnippet(new LineColumn(2, 2), new LineColumn(3, 2)));
+    }
+
+    public void testCanWrap() {
+        assertTrue(CharArraySourceBuffer.canWrap("def s = '\\n'".toCharArray()));
+        assertFalse(CharArraySourceBuffer.canWrap("def s = '\\u0041'".toCharArray()));
+        assertFalse(CharArraySourceBuffer.canWrap(null));
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static void assertSameLocations(String text, int count) {
+        String message = escape(text) + " after " + count + " chars";
+        LocationSupport expected = fill(new SourceBuffer(), text, count).getLocationSupport();
+        LocationSupport actual = fill(new CharArraySourceBuffer(text.toCharArray()), text, count).getLocationSupport();
+
+        assertEquals(message, expected.getEnd(), actual.getEnd());
+        assertEquals(message, expected.getEndLine(), actual.getEndLine());
+        assertEquals(message, expected.getEndColumn(), actual.getEndColumn());
+        for (int offset = 0; offset < expected.getEnd(); offset += 1) {
+            int[] rowCol = expected.getRowCol(offset);
+            assertEquals(message + " at " + offset, Arrays.toString(rowCol), Arrays.toString(actual.getRowCol(offset)));
+            assertEquals(message + " at " + offset, offset, actual.findOffset(rowCol[0], rowCol[1]));
+        }
+        for (int row = 0; row <= expected.getEndLine() + 1; row += 1) {
+            assertEquals(message + " at row " + row, expected.findOffset(row, 1), actual.findOffset(row, 1));
+        }
+    }
+
+    private static SourceBuffer fill(SourceBuffer buffer, String text, int count) {
+        for (int i = 0; i < count; i += 1) {
+            buffer.write(text.charAt(i));
+        }
+        buffer.write(-1);
+        return buffer;
+    }
+
+    private static String escape(String text) {
+        return "'" + text.replace("\r", "\\r").replace("\n", "\\n") + "'";
+    }
+}
@@ -23,8 +23,10 @@ import java.util.Set;
 
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.codehaus.jdt.groovy.model.ModuleNodeCache;
 import org.codehaus.jdt.groovy.model.ModuleNodeMapper;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.IAnnotatable;
@@ -183,7 +185,8 @@ public final class GroovyCompilationUnitTests extends AbstractGroovyTypeRootTest
         GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
         ModuleNode node1 = unit1.getModuleNode();
         ModuleNode node2 = unit1.getModuleNode();
-        assertFalse("Multiple calls to getModuleNode should return the different objects if unit is not a working copy", node1 == node2);
+        assertTrue("Multiple calls to getModuleNode should return the same object if unit is not a working copy and nothing has changed underneath", node1 == node2);
+        assertFalse("Closed unit should not remain a working copy", unit1.isWorkingCopy());
     }
 
     public void testGetModuleNode9() throws Exception {
@@ -208,6 +211,51 @@ public final class GroovyCompilationUnitTests extends AbstractGroovyTypeRootTest
         assertTrue("Multiple calls to getModuleNode should return the same object after a call to reconcile with no force problem detection", node1 == node2);
     }
 
+    public void testGetModuleNode11() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        unit1.becomeWorkingCopy(null);
+        long hits = ModuleNodeMapper.getHitCount();
+        ModuleNode node1 = unit1.getModuleNode();
+        ModuleNode node2 = unit1.getModuleNode();
+        unit1.discardWorkingCopy();
+        assertTrue("Multiple calls to getModuleNode should return the same object if nothing has changed underneath", node1 == node2);
+        assertTrue("Multiple calls to getModuleNode should be counted as cache hits", ModuleNodeMapper.getHitCount() >= hits + 2);
+    }
+
+    public void testGetModuleNode12() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        IPath root = groovyFile.getProject().getFolder("src").getFullPath();
+        IPath otherPath = env.addGroovyClass(root, "p1", "Other", "package p1
+class Other {}
+");
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        ModuleNode node1 = unit1.getModuleNode();
+
+        GroovyCompilationUnit unit2 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(ResourcesPlugin.getWorkspace().getRoot().getFile(otherPath));
+        unit2.becomeWorkingCopy(null);
+        unit2.discardWorkingCopy();
+        env.addFile(groovyFile.getProject().getFullPath(), "notes.txt", "notes");
+        assertTrue("Working copies of other units and non-Java resources should not invalidate the module node of a closed unit", node1 == unit1.getModuleNode());
+
+        env.addGroovyClass(root, "p1", "Other", "package p1
+class Other { def x }
+");
+        assertFalse("A change to the sources of the project should invalidate the module node of a closed unit", node1 == unit1.getModuleNode());
+    }
+
+    public void testGetModuleNode13() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        ModuleNode node1 = unit1.getModuleNode();
+        int size = ModuleNodeCache.getInstance().size();
+
+        unit1.becomeWorkingCopy(null);
+        unit1.discardWorkingCopy();
+        assertEquals("Closing the working copy of a unit should evict its module node", size - 1, ModuleNodeCache.getInstance().size());
+        assertFalse(node1 == unit1.getModuleNode());
+    }
+
     public void testGetNewModuleNode() throws Exception {
         IFile groovyFile = createSimpleGroovyProject();
         GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
@@ -34,6 +34,7 @@ public class AllSearchTests {
         suite.addTestSuite(GenericsMappingTest.class);
         suite.addTestSuite(Groovy20InferencingTests.class);
         suite.addTestSuite(Groovy21InferencingTests.class);
+        suite.addTestSuite(InferenceResultsTests.class);
         suite.addTestSuite(InferencingTests.class);
         suite.addTestSuite(JDTPropertyNodeInferencingTests.class);
         suite.addTestSuite(LocalVariableReferenceSearchTests.class);
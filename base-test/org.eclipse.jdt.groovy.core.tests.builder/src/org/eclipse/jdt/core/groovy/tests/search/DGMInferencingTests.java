@@ -15,6 +15,7 @@
  */
 package org.eclipse.jdt.core.groovy.tests.search;
 
+import org.codehaus.groovy.ast.MethodNode;
 import org.eclipse.jdt.core.tests.util.GroovyUtils;
 
 public final class DGMInferencingTests extends AbstractInferencingTest {
@@ -475,6 +476,94 @@ public final class DGMInferencingTests extends AbstractInferencingTest {
         assertType(contents, start, end, "java.lang.Number");
     }
 
+    // overloads are ranked like MetaClassHelper ranks them at runtime
+
+    private void assertSelfParameter(String contents, String expectedType) {
+        String str = "pick";
+        int start = contents.lastIndexOf(str);
+        int end = start + str.length();
+        MethodNode method = assertDeclaration(contents, start, end, "Cat", "pick", DeclarationKind.METHOD);
+        assertEquals(expectedType, method.getParameters()[0].getType().getName());
+    }
+
+    public void testDGMOverloads1() throws Exception {
+        // an interface of a super class wins over the super class
+        String contents = "interface I {}\n" +
+            "class A {}\n" +
+            "class B extends A implements I {}\n" +
+            "class C extends B {}\n" +
+            "class Cat {\n" +
+            "  static String pick(B self) { null }\n" +
+            "  static Number pick(I self) { null }\n" +
+            "}\n" +
+            "use (Cat) { new C().pick() }\n";
+        assertSelfParameter(contents, "I");
+    }
+
+    public void testDGMOverloads2() throws Exception {
+        // the closest interface wins
+        String contents = "class Cat {\n" +
+            "  static String pick(Iterable self) { null }\n" +
+            "  static String pick(Collection self) { null }\n" +
+            "  static Number pick(List self) { null }\n" +
+            "}\n" +
+            "use (Cat) { new ArrayList().pick() }\n";
+        assertSelfParameter(contents, "java.util.List");
+    }
+
+    public void testDGMOverloads3() throws Exception {
+        // an interface wins over a super class
+        String contents = "class Cat {\n" +
+            "  static String pick(Number self) { null }\n" +
+            "  static Number pick(Serializable self) { null }\n" +
+            "}\n" +
+            "Integer i = 1\n" +
+            "use (Cat) { i.pick() }\n";
+        assertSelfParameter(contents, "java.io.Serializable");
+    }
+
+    public void testDGMOverloads4() throws Exception {
+        // a boxed self type prefers an interface to unboxing
+        String contents = "class Cat {\n" +
+            "  static String pick(int self) { null }\n" +
+            "  static Number pick(Comparable self) { null }\n" +
+            "}\n" +
+            "Integer i = 1\n" +
+            "use (Cat) { i.pick() }\n";
+        assertSelfParameter(contents, "java.lang.Comparable");
+    }
+
+    public void testDGMOverloads5() throws Exception {
+        // unboxing wins over a super class of the boxed type
+        String contents = "class Cat {\n" +
+            "  static String pick(String self, Object arg) { null }\n" +
+            "  static String pick(String self, Number arg) { null }\n" +
+            "  static Number pick(String self, int arg) { null }\n" +
+            "}\n" +
+            "Integer i = 1\n" +
+            "use (Cat) { 'x'.pick(i) }\n";
+        String str = "pick";
+        int start = contents.lastIndexOf(str);
+        int end = start + str.length();
+        MethodNode method = assertDeclaration(contents, start, end, "Cat", "pick", DeclarationKind.METHOD);
+        assertEquals("int", method.getParameters()[1].getType().getName());
+    }
+
+    public void testDGMOverloads6() throws Exception {
+        // an array prefers an array parameter to Object
+        String contents = "class Cat {\n" +
+            "  static String pick(Object self) { null }\n" +
+            "  static Number pick(Object[] self) { null }\n" +
+            "}\n" +
+            "String[] arr = ['x']\n" +
+            "use (Cat) { arr.pick() }\n";
+        String str = "pick";
+        int start = contents.lastIndexOf(str);
+        int end = start + str.length();
+        MethodNode method = assertDeclaration(contents, start, end, "Cat", "pick", DeclarationKind.METHOD);
+        assertTrue(method.getParameters()[0].getType().isArray());
+    }
+
     public void testDGMDeclaring1() throws Exception {
         // With groovy 2.0, there are some new DGM classes.  Need to ensure that we are using those classes as the declaring type, but only for 2.0 or later.
         String contents = "\"\".eachLine";
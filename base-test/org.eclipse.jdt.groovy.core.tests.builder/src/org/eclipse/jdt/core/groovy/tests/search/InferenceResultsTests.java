@@ -0,0 +1,176 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Test;
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.InferenceResults;
+import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+
+/**
+ * Tests that inference results replayed from the store are the ones a visit of the unit reports.
+ */
+public class InferenceResultsTests extends AbstractGroovySearchTest {
+
+    public static Test suite() {
+        return buildTestSuite(InferenceResultsTests.class);
+    }
+
+    public InferenceResultsTests(String name) {
+        super(name);
+    }
+
+    private static final String CONTENTS =
+        "class Shadows {\n" +
+        "  String x = 'field'\n" +
+        "  def first(Integer x) {\n" +
+        "    x.intValue()\n" +
+        "  }\n" +
+        "  def second() {\n" +
+        "    [1, 2].each { Long x -> x.longValue() }\n" +
+        "    for (BigDecimal x : []) { x.scale() }\n" +
+        "    try { } catch (IOException x) { x.message }\n" +
+        "    x.length()\n" +
+        "  }\n" +
+        "  def third() {\n" +
+        "    def x = []\n" +
+        "    x.size()\n" +
+        "  }\n" +
+        "}\n";
+
+    /**
+     * Records what a requestor sees and stops or skips as told.
+     */
+    private static class RecordingRequestor implements ITypeRequestor {
+        final List<String> accepted = new ArrayList<String>();
+        private final String memberToCancel;
+        private final int stopAfter;
+
+        RecordingRequestor(String memberToCancel, int stopAfter) {
+            this.memberToCancel = memberToCancel;
+            this.stopAfter = stopAfter;
+        }
+
+        public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+            accepted.add(node.getClass().getSimpleName() + " " + node.getText() + " @" + node.getStart() + "-" + node.getEnd() +
+                " : " + (result.type == null ? null : result.type.getName()) +
+                " declared by " + (result.declaringType == null ? null : result.declaringType.getName()) +
+                " in " + enclosingElement.getElementName());
+            if (accepted.size() == stopAfter) {
+                return VisitStatus.STOP_VISIT;
+            }
+            if (enclosingElement.getElementName().equals(memberToCancel)) {
+                return VisitStatus.CANCEL_MEMBER;
+            }
+            return VisitStatus.CONTINUE;
+        }
+    }
+
+    private GroovyCompilationUnit unit;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        unit = createUnit("Shadows", CONTENTS);
+        unit.becomeWorkingCopy(null);
+        InferenceResults.clearAll();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        unit.discardWorkingCopy();
+        super.tearDown();
+    }
+
+    private List<String> visit(RecordingRequestor requestor) {
+        TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+        visitor.visitCompilationUnit(requestor);
+        return requestor.accepted;
+    }
+
+    private List<String> replay(RecordingRequestor requestor) {
+        TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+        visitor.visitCompilationUnitFromStore(requestor);
+        return requestor.accepted;
+    }
+
+    public void testReplayMatchesVisit() {
+        List<String> expected = visit(new RecordingRequestor(null, -1));
+        assertTrue(expected.size() > 0);
+
+        long hits = InferenceResults.getHitCount();
+        assertEquals(expected, replay(new RecordingRequestor(null, -1))); // records the results
+        assertEquals(expected, replay(new RecordingRequestor(null, -1))); // replays them
+        assertEquals(hits + 1, InferenceResults.getHitCount());
+    }
+
+    public void testShadowedNames() {
+        List<String> expected = visit(new RecordingRequestor(null, -1));
+        replay(new RecordingRequestor(null, -1));
+        List<String> replayed = replay(new RecordingRequestor(null, -1));
+        assertEquals(expected, replayed);
+
+        // each x keeps the type of the declaration it refers to
+        Set<String> types = new HashSet<String>();
+        for (String result : replayed) {
+            if (result.startsWith("VariableExpression x @")) {
+                types.add(result.substring(result.indexOf(" : ") + 3, result.indexOf(" declared by ")));
+            }
+        }
+        for (String type : new String[] {"java.lang.Integer", "java.lang.Long", "java.math.BigDecimal", "java.io.IOException", "java.lang.String", "java.util.List"}) {
+            assertTrue("Expected a reference to x of type " + type + " in " + replayed, types.contains(type));
+        }
+    }
+
+    public void testCancelMember() {
+        List<String> expected = visit(new RecordingRequestor("second", -1));
+        replay(new RecordingRequestor(null, -1));
+        List<String> replayed = replay(new RecordingRequestor("second", -1));
+        assertEquals(expected, replayed);
+        assertTrue(replayed.toString().contains(" in third"));
+    }
+
+    public void testStopVisit() {
+        List<String> all = visit(new RecordingRequestor(null, -1));
+        for (int stopAfter : new int[] {1, all.size() / 2, all.size()}) {
+            List<String> expected = visit(new RecordingRequestor(null, stopAfter));
+            assertEquals(stopAfter, expected.size());
+            assertEquals(expected, replay(new RecordingRequestor(null, stopAfter)));
+        }
+    }
+
+    public void testCancelBranchIsNotReplayed() {
+        replay(new RecordingRequestor(null, -1));
+        try {
+            factory.createVisitor(unit).visitCompilationUnitFromStore(new ITypeRequestor() {
+                public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+                    return VisitStatus.CANCEL_BRANCH;
+                }
+            });
+            fail("Branches cannot be cancelled when results are replayed");
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
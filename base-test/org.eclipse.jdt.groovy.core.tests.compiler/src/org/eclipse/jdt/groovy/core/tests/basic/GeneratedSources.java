@@ -0,0 +1,51 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.core.tests.basic;
+
+/**
+ * Generates Groovy sources of a class, a nested class and an interface each,
+ * spread over ten packages, for tests that parse many files.
+ */
+final class GeneratedSources {
+
+    private GeneratedSources() {
+    }
+
+    static String[] generate(int count) {
+        String[] sources = new String[count];
+        for (int i = 0; i < count; i += 1) {
+            sources[i] =
+                "package p" + (i % 10) + "\n" +
+                "import java.util.concurrent.atomic.AtomicInteger\n" +
+                "class Type" + i + " {\n" +
+                "  private final AtomicInteger counter = new AtomicInteger()\n" +
+                "  String name = 'type" + i + "'\n" +
+                "  List<String> values = ['a', 'b', 'c'].collect { it * " + i + " }\n" +
+                "  int next() { counter.incrementAndGet() }\n" +
+                "  def describe(Map<String, Object> args) {\n" +
+                "    args.collect { k, v -> \"$k=$v\" }.join(', ') + \" ($name)\"\n" +
+                "  }\n" +
+                "  static class Nested" + i + " {\n" +
+                "    def fold(int... xs) { xs.inject(0) { a, b -> a + b } }\n" +
+                "  }\n" +
+                "}\n" +
+                "interface Api" + i + " {\n" +
+                "  String call(String arg)\n" +
+                "}\n";
+        }
+        return sources;
+    }
+}
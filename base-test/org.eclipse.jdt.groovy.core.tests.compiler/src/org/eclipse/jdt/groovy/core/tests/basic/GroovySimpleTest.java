@@ -16,12 +16,17 @@
 package org.eclipse.jdt.groovy.core.tests.basic;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import junit.framework.Test;
 
+import org.codehaus.groovy.ast.ClassHelper;
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.ImportNode;
 import org.codehaus.groovy.ast.MethodNode;
@@ -35,6 +40,7 @@ import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNode;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
 import org.eclipse.jdt.core.tests.util.GroovyUtils;
 import org.eclipse.jdt.core.util.ClassFileBytesDisassembler;
+import org.eclipse.jdt.internal.compiler.ClassFile;
 import org.eclipse.jdt.internal.compiler.ast.ASTNode;
 import org.eclipse.jdt.internal.compiler.ast.FieldDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.ImportReference;
@@ -2278,6 +2284,203 @@ public final class GroovySimpleTest extends AbstractGroovyRegressionTest {
         "");
     }
 
+    public void testResolverLookupCache() {
+        try {
+            JDTResolver.recordInstances = true;
+            runConformTest(new String[] {
+                "p/X.groovy",
+                "package p;\n" +
+                "import java.util.concurrent.*\n" +
+                "import java.util.regex.*\n" +
+                "class X {\n" +
+                "  Matcher one\n" +
+                "  Matcher two\n" +
+                "  Pattern three\n" +
+                "  Pattern four\n" +
+                "  public static void main(String[]argv) {\n"+
+                "    print \"success\"\n"+
+                "  }\n"+
+                "}\n",
+            },
+            "success");
+
+            int avoided = 0;
+            for (JDTResolver resolver : JDTResolver.instances) {
+                avoided += resolver.getLookupsAvoided();
+            }
+            assertTrue("Repeated candidate names should be answered from the lookup cache", avoided > 0);
+        } finally {
+            JDTResolver.instances.clear();
+            JDTResolver.recordInstances = false;
+        }
+    }
+
+    public void testLazyMemberMaterialization() {
+        try {
+            JDTResolver.recordInstances = true;
+            runConformTest(new String[] {
+                "p/X.groovy",
+                "package p;\n" +
+                "import java.util.regex.*\n" +
+                "class X {\n" +
+                "  Matcher one\n" +
+                "  public static void main(String[]argv) {\n"+
+                "    print \"success\"\n"+
+                "  }\n"+
+                "}\n",
+            },
+            "success");
+
+            JDTClassNode classnode = JDTResolver.getCachedNode("java.util.regex.Matcher");
+            assertNotNull(classnode);
+            // methods converted by name must not be converted again when all methods are requested
+            int groups = classnode.getDeclaredMethods("group").size();
+            assertTrue(groups > 0);
+            int count = 0;
+            for (MethodNode method : classnode.getMethods()) {
+                if (method.getName().equals("group")) count += 1;
+            }
+            assertEquals(groups, count);
+            assertEquals(groups, classnode.getDeclaredMethods("group").size());
+            assertTrue(classnode.getMethods().size() > groups);
+        } finally {
+            JDTResolver.instances.clear();
+            JDTResolver.recordInstances = false;
+        }
+    }
+
+    public void testLazyMemberMaterializationOfBridgeMethods() {
+        try {
+            JDTResolver.recordInstances = true;
+            runConformTest(new String[] {
+                "p/X.groovy",
+                "package p;\n" +
+                "@groovy.transform.CompileStatic\n" +
+                "class X {\n" +
+                "  public static void main(String[]argv) {\n"+
+                "    print new Impl().get()\n"+
+                "  }\n"+
+                "}\n",
+
+                "p/Base.java",
+                "package p;\n" +
+                "public abstract class Base<T> {\n" +
+                "  public abstract T get();\n" +
+                "}\n",
+
+                "p/Impl.java",
+                "package p;\n" +
+                "public class Impl extends Base<String> {\n" +
+                "  public String get() { return \"success\"; }\n" +
+                "}\n",
+            },
+            "success");
+
+            JDTClassNode classnode = JDTResolver.getCachedNode("p.Impl");
+            assertNotNull(classnode);
+            // the bridge method 'Object get()' is converted along with 'String get()', though the name was looked up alone
+            List<MethodNode> methods = classnode.getDeclaredMethods("get");
+            assertEquals(2, methods.size());
+            Set<String> returnTypes = new HashSet<String>();
+            for (MethodNode method : methods) {
+                returnTypes.add(method.getReturnType().getName());
+            }
+            assertEquals(new HashSet<String>(Arrays.asList("java.lang.Object", "java.lang.String")), returnTypes);
+            int count = 0;
+            for (MethodNode method : classnode.getMethods()) {
+                if (method.getName().equals("get")) count += 1;
+            }
+            assertEquals(2, count);
+        } finally {
+            JDTResolver.instances.clear();
+            JDTResolver.recordInstances = false;
+        }
+    }
+
+    public void testClassFilesOfEachSource() {
+        runConformTest(new String[] {
+            "p/A.groovy",
+            "package p\n" +
+            "class A {\n" +
+            "  static class Inner {}\n" +
+            "  def run() { [1, 2].collect { it * 2 } }\n" +
+            "  static void main(String[] args) { print \"${new A().run()}${new A2().c()}${new B().c()}\" }\n" +
+            "}\n" +
+            "class A2 {\n" +
+            "  def c = { -> 'a2' }\n" +
+            "}\n" +
+            "interface A3 {}\n",
+
+            "p/B.groovy",
+            "package p\n" +
+            "class B {\n" +
+            "  static class Inner {}\n" +
+            "  def c = { -> 'b' }\n" +
+            "}\n",
+        },
+        "[2, 4]a2b");
+
+        // both sources are compiled by one Groovy compilation unit; each gets its own classes and no other
+        assertEquals("p/A\np/A$Inner\np/A$_run_closure1\np/A2\np/A2$_closure1\np/A3\n", classFilesOf("A.groovy"));
+        assertEquals("p/B\np/B$Inner\np/B$_closure1\n", classFilesOf("B.groovy"));
+    }
+
+    private static String classFilesOf(String filename) {
+        Set<String> names = new TreeSet<String>();
+        for (ClassFile classFile : getCUDeclFor(filename).compilationResult.getClassFiles()) {
+            names.add(String.valueOf(classFile.fileName()));
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String name : names) {
+            sb.append(name).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public void testLazyMemberMaterializationThroughProxy() {
+        try {
+            JDTResolver.recordInstances = true;
+            runConformTest(new String[] {
+                "p/J.java",
+                "package p;\n" +
+                "public class J {\n" +
+                "  public int count;\n" +
+                "  public J() {}\n" +
+                "  public J(int count) { this.count = count; }\n" +
+                "  public int size() { return count; }\n" +
+                "}\n",
+                "p/X.groovy",
+                "package p;\n" +
+                "class X {\n" +
+                "  J j\n" +
+                "  public static void main(String[]argv) {\n"+
+                "    print \"success\"\n"+
+                "  }\n"+
+                "}\n",
+            },
+            "success");
+
+            JDTClassNode classnode = JDTResolver.getCachedNode("p.J");
+            assertNotNull(classnode);
+            // proxies read the members of the node they redirect to
+            ClassNode proxy = ClassHelper.makeWithoutCaching("p.J");
+            proxy.setRedirect(classnode);
+            assertEquals(2, proxy.getDeclaredConstructors().size());
+            assertNotNull(proxy.getDeclaredField("count"));
+            assertNotNull(proxy.getField("count"));
+            assertNull(proxy.getDeclaredField("missing"));
+            assertEquals(1, proxy.getDeclaredMethods("size").size());
+            assertEquals(1, proxy.getFields().size());
+
+            assertSame(classnode.getDeclaredField("count"), proxy.getDeclaredField("count"));
+            assertEquals(classnode.getDeclaredConstructors(), proxy.getDeclaredConstructors());
+            assertEquals(classnode.getMethods(), proxy.getMethods());
+        } finally {
+            JDTResolver.instances.clear();
+            JDTResolver.recordInstances = false;
+        }
+    }
+
     public void testEnums2() {
         try {
             JDTResolver.recordInstances = true;
@@ -4383,6 +4586,116 @@ public final class GroovySimpleTest extends AbstractGroovyRegressionTest {
                 }, "done", null, true, null, options, null);
     }
 
+    public void testExtraImports_typeAlias() throws Exception {
+        Map<String, String> options = getCompilerOptions();
+        options.put(CompilerOptions.OPTIONG_GroovyExtraImports, "com.foo.*;.groovy=com.foo.Type as Alias");
+        options.put(CompilerOptions.OPTIONG_GroovyProjectName, "Test");
+
+        runConformTest(new String[] {
+            "com/bar/Runner.groovy",
+            "package com.bar\n" +
+            "class Runner {\n" +
+            "  public static void main(String[] argv) {\n" +
+            "    Alias.m()\n" +
+            "    TypeB.m()\n" +
+            "    print 'done'\n" +
+            "  }\n" +
+            "}\n",
+
+            "com/foo/Type.groovy",
+            "package com.foo\n" +
+            "class Type {\n" +
+            "  public static void m() {}\n" +
+            "}\n",
+
+            "com/foo/TypeB.groovy",
+            "package com.foo\n" +
+            "class TypeB {\n" +
+            "  public static void m() {}\n" +
+            "}\n",
+        }, "done", null, true, null, options, null);
+    }
+
+    public void testExtraImports_shadowsDefaultImport() throws Exception {
+        Map<String, String> options = getCompilerOptions();
+        options.put(CompilerOptions.OPTIONG_GroovyExtraImports, "com.foo.*");
+        options.put(CompilerOptions.OPTIONG_GroovyProjectName, "Test");
+
+        // java.util.List is a default import too; the extra import wins
+        runConformTest(new String[] {
+            "com/bar/Runner.groovy",
+            "package com.bar\n" +
+            "class Runner {\n" +
+            "  public static void main(String[] argv) {\n" +
+            "    print List.m()\n" +
+            "  }\n" +
+            "}\n",
+
+            "com/foo/List.groovy",
+            "package com.foo\n" +
+            "class List {\n" +
+            "  public static String m() { 'foo' }\n" +
+            "}\n",
+        }, "foo", null, true, null, options, null);
+    }
+
+    public void testExtraImports_declarationOrder() throws Exception {
+        Map<String, String> options = getCompilerOptions();
+        options.put(CompilerOptions.OPTIONG_GroovyExtraImports, "com.foo.*,com.baz.Type");
+        options.put(CompilerOptions.OPTIONG_GroovyProjectName, "Test");
+
+        runConformTest(new String[] {
+            "com/bar/Runner.groovy",
+            "package com.bar\n" +
+            "class Runner {\n" +
+            "  public static void main(String[] argv) {\n" +
+            "    print Type.m()\n" +
+            "  }\n" +
+            "}\n",
+
+            "com/foo/Type.groovy",
+            "package com.foo\n" +
+            "class Type {\n" +
+            "  public static String m() { 'foo' }\n" +
+            "}\n",
+
+            "com/baz/Type.groovy",
+            "package com.baz\n" +
+            "class Type {\n" +
+            "  public static String m() { 'baz' }\n" +
+            "}\n",
+        }, "foo", null, true, null, options, null);
+    }
+
+    public void testExtraImports_declarationOrder2() throws Exception {
+        Map<String, String> options = getCompilerOptions();
+        options.put(CompilerOptions.OPTIONG_GroovyExtraImports, "com.baz.Type as Alias;.groovy=com.foo.*,com.baz.Type");
+        options.put(CompilerOptions.OPTIONG_GroovyProjectName, "Test");
+
+        // the single-type import comes first in the spec, and is found by simple name as well as by alias
+        runConformTest(new String[] {
+            "com/bar/Runner.groovy",
+            "package com.bar\n" +
+            "class Runner {\n" +
+            "  public static void main(String[] argv) {\n" +
+            "    print Type.m() + Alias.m()\n" +
+            "  }\n" +
+            "}\n",
+
+            "com/foo/Type.groovy",
+            "package com.foo\n" +
+            "class Type {\n" +
+            "  public static String m() { 'foo' }\n" +
+            "}\n",
+
+            "com/baz/Type.groovy",
+            "package com.baz\n" +
+            "class Type {\n" +
+            "  public static String m() { 'baz' }\n" +
+            "}\n",
+        }, "bazbaz", null, true, null, options, null);
+    }
+
     public void testExtraImports_noneMatchingSuffix() throws Exception {
         Map<String, String> options = getCompilerOptions();
         options.put(CompilerOptions.OPTIONG_GroovyExtraImports,
@@ -5337,6 +5650,77 @@ public final class GroovySimpleTest extends AbstractGroovyRegressionTest {
             "}"});
     }
 
+    public void testCommonSuperClassOfJavaTypes() {
+        if (GroovyUtils.GROOVY_LEVEL < 21) {
+            return;
+        }
+        // frames are computed only for Java 7 bytecode (or with indy)
+        String targetBytecode = System.getProperty("groovy.target.bytecode");
+        System.setProperty("groovy.target.bytecode", "1.7");
+        JDTResolver.recordInstances = true;
+        JDTResolver.instances = null;
+        try {
+            // frames are computed for the branches with types that exist only as sources until this compile completes
+            runConformTest(new String[] {
+                "Main.groovy",
+                "@groovy.transform.CompileStatic\n" +
+                "class Main {\n" +
+                "	static Shape pick(boolean flag) {\n" +
+                "		Shape shape = flag ? new Square() : new Circle()\n" +
+                "		shape\n" +
+                "	}\n" +
+                "	static void main(String[] args) {\n" +
+                "		print pick(true).name() + pick(false).name()\n" +
+                "	}\n" +
+                "}\n",
+
+                "Shape.java",
+                "public abstract class Shape {\n" +
+                "	static { System.setProperty(\"Shape.initialized\", \"true\"); System.out.print(\"loaded \"); }\n" +
+                "	public abstract String name();\n" +
+                "}\n",
+
+                "Square.java",
+                "public class Square extends Shape {\n" +
+                "	public String name() { return \"square\"; }\n" +
+                "}\n",
+
+                "Circle.java",
+                "public class Circle extends Shape {\n" +
+                "	public String name() { return \"circle\"; }\n" +
+                "}\n"
+            }, "loaded squarecircle");
+
+            // Main runs in its own VM, so Shape has not been initialized in this one
+            assertNull(System.getProperty("Shape.initialized"));
+
+            Map<String, Boolean> lookups = null;
+            for (JDTResolver resolver : JDTResolver.instances) {
+                if (resolver.getClassGenerationLookups().containsKey("Square")) {
+                    lookups = resolver.getClassGenerationLookups();
+                    // the class nodes of the common super class lookup come from the resolver's cache
+                    assertNotNull(JDTResolver.getCachedNode(resolver, "Square"));
+                    assertNotNull(JDTResolver.getCachedNode(resolver, "Circle"));
+                }
+            }
+            assertNotNull("no frames were computed for Main", lookups);
+            // none of the user types was left to the class loader
+            for (String name : new String[] {"Main", "Shape", "Square", "Circle"}) {
+                assertFalse(lookups.toString(), Boolean.FALSE.equals(lookups.get(name)));
+            }
+            assertEquals(lookups.toString(), Boolean.TRUE, lookups.get("Square"));
+            assertEquals(lookups.toString(), Boolean.TRUE, lookups.get("Circle"));
+        } finally {
+            JDTResolver.recordInstances = false;
+            JDTResolver.instances = null;
+            if (targetBytecode == null) {
+                System.clearProperty("groovy.target.bytecode");
+            } else {
+                System.setProperty("groovy.target.bytecode", targetBytecode);
+            }
+        }
+    }
+
 //	public void testSts3930() {
 //		runConformTest(new String[] {
 //				"GroovyDemo.groovy",
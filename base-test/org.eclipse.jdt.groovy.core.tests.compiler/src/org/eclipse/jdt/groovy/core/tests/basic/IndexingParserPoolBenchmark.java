@@ -0,0 +1,69 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.core.tests.basic;
+
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+
+/**
+ * Compares the files indexed per second with a new parser for each file and
+ * with the pooled parsers of a project.  It is not part of any test suite,
+ * since timings depend on the machine; run it as a Java application on the
+ * test classpath.
+ * <p>
+ * Argument: the number of sources (300 by default).
+ */
+public final class IndexingParserPoolBenchmark {
+
+    private static final String PROJECT = "IndexingParserPoolBenchmark";
+    private static final int ROUNDS = 5;
+
+    private IndexingParserPoolBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int count = (args.length > 0 ? Integer.parseInt(args[0]) : 300);
+        String[] sources = GeneratedSources.generate(count);
+        try {
+            // warm up the parsers before taking any measurements
+            for (int i = 0; i < ROUNDS; i += 1) {
+                IndexingParserPoolTests.index(sources, null);
+                IndexingParserPoolTests.index(sources, PROJECT);
+            }
+
+            long fresh = bestTime(sources, null);
+            long pooled = bestTime(sources, PROJECT);
+            System.out.println("Indexed " + count + " sources at " + filesPerSecond(count, fresh) +
+                " files/s with a parser per file and " + filesPerSecond(count, pooled) +
+                " files/s with pooled parsers (best of " + ROUNDS + ")");
+        } finally {
+            GroovyParser.tidyCache(PROJECT);
+        }
+    }
+
+    private static long bestTime(String[] sources, String projectName) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i += 1) {
+            long start = System.nanoTime();
+            IndexingParserPoolTests.index(sources, projectName);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static long filesPerSecond(int count, long nanos) {
+        return count * 1000000000L / Math.max(1, nanos);
+    }
+}
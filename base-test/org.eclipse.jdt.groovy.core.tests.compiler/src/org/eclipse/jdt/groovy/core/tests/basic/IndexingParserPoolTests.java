@@ -0,0 +1,180 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.core.tests.basic;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.jdt.groovy.integration.internal.MultiplexingIndexingParser;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.core.tests.compiler.parser.TestSourceElementRequestor;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+
+/**
+ * Checks that indexing sources with the pooled parsers of a project reports
+ * the same elements as indexing each source with a parser of its own, and
+ * that a pooled parser keeps nothing of the sources it parsed before.
+ */
+public class IndexingParserPoolTests extends TestCase {
+
+    private static final String PROJECT = "IndexingParserPoolTests";
+
+    @Override
+    protected void tearDown() throws Exception {
+        GroovyParser.tidyCache(PROJECT);
+        super.tearDown();
+    }
+
+    public void testSameIndexEntries() {
+        String[] sources = GeneratedSources.generate(20);
+        sources[7] = "class Broken {\n  def x = \n}\n";
+        sources[13] = "class AlsoBroken { void m( }\n";
+
+        // without a project name, every source gets a new parser
+        String fresh = index(sources, null);
+        String pooled = index(sources, PROJECT);
+        assertTrue(fresh, fresh.contains("enterType(Type19)"));
+        assertEquals(fresh, pooled);
+    }
+
+    public void testParsersAreReused() {
+        int before = GroovyParser.getIndexingParserCreationCount();
+        index(GeneratedSources.generate(20), PROJECT);
+        assertEquals(1, GroovyParser.getIndexingParserCreationCount() - before);
+
+        GroovyParser.tidyCache(PROJECT);
+        index(GeneratedSources.generate(20), PROJECT);
+        assertEquals(2, GroovyParser.getIndexingParserCreationCount() - before);
+    }
+
+    public void testCompilationUnitIsReset() {
+        CompilerOptions options = options(PROJECT);
+        ProblemReporter problemReporter = new ProblemReporter(
+            DefaultErrorHandlingPolicies.proceedWithAllProblems(), options, new DefaultProblemFactory());
+
+        GroovyParser parser = GroovyParser.acquireIndexingParser(options, problemReporter);
+        GroovyCompilationUnitDeclaration first = dietParse(parser, "First.groovy", "package a\nclass First {}\n");
+        assertFalse(first.compilationResult.hasErrors());
+        assertNotNull(first.getCompilationUnit().getAST().getClass("a.First"));
+        GroovyParser.releaseIndexingParser(parser);
+
+        parser = GroovyParser.acquireIndexingParser(options, problemReporter);
+        GroovyCompilationUnitDeclaration broken = dietParse(parser, "Broken.groovy", "class Broken { void m( }\n");
+        assertSame(first.getCompilationUnit(), broken.getCompilationUnit());
+        assertTrue(broken.compilationResult.hasErrors());
+        GroovyParser.releaseIndexingParser(parser);
+
+        parser = GroovyParser.acquireIndexingParser(options, problemReporter);
+        GroovyCompilationUnitDeclaration last = dietParse(parser, "Last.groovy", "package b\nclass Last {}\n");
+        GroovyParser.releaseIndexingParser(parser);
+
+        CompilationUnit unit = last.getCompilationUnit();
+        assertSame(first.getCompilationUnit(), unit);
+        assertFalse(last.compilationResult.hasErrors());
+        assertFalse(unit.getErrorCollector().hasErrors());
+
+        // only the last source and its class are left
+        Iterator<?> sources = unit.iterator();
+        assertSame(last.getSourceUnit(), sources.next());
+        assertFalse(sources.hasNext());
+        assertEquals(1, unit.getAST().getModules().size());
+        assertEquals(1, unit.getAST().getClasses().size());
+        assertNotNull(unit.getAST().getClass("b.Last"));
+        assertNull(unit.getAST().getClass("a.First"));
+        assertEquals(1, last.types.length);
+        assertEquals("Last", String.valueOf(last.types[0].name));
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static CompilerOptions options(String projectName) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> settings = new CompilerOptions().getMap();
+        settings.put(CompilerOptions.OPTION_Compliance, CompilerOptions.VERSION_1_5);
+        settings.put(CompilerOptions.OPTION_Source, CompilerOptions.VERSION_1_5);
+        CompilerOptions options = new CompilerOptions(settings);
+        options.groovyProjectName = projectName;
+        return options;
+    }
+
+    static String index(String[] sources, String projectName) {
+        RecordingRequestor requestor = new RecordingRequestor();
+        MultiplexingIndexingParser parser = new MultiplexingIndexingParser(
+            requestor, new DefaultProblemFactory(), options(projectName), true, true, false);
+        for (int i = 0; i < sources.length; i += 1) {
+            parser.parseCompilationUnit(newSource("Source" + i + ".groovy", sources[i]), true, null);
+        }
+        return requestor.toString();
+    }
+
+    private static GroovyCompilationUnitDeclaration dietParse(GroovyParser parser, String fileName, String contents) {
+        org.eclipse.jdt.internal.compiler.batch.CompilationUnit source = newSource(fileName, contents);
+        CompilationResult result = new CompilationResult(source, 0, 0, parser.getCompilerOptions().maxProblemsPerUnit);
+        return (GroovyCompilationUnitDeclaration) parser.dietParse(source, result);
+    }
+
+    private static org.eclipse.jdt.internal.compiler.batch.CompilationUnit newSource(String fileName, String contents) {
+        return new org.eclipse.jdt.internal.compiler.batch.CompilationUnit(contents.toCharArray(), fileName, null);
+    }
+
+    private static class RecordingRequestor extends TestSourceElementRequestor {
+        private final StringBuilder record = new StringBuilder();
+
+        @Override
+        public void enterType(TypeInfo typeInfo) {
+            record.append("enterType(").append(typeInfo.name).append(")\n");
+        }
+
+        @Override
+        public void enterField(FieldInfo fieldInfo) {
+            record.append("enterField(").append(fieldInfo.name).append(':').append(fieldInfo.declarationStart).append(")\n");
+        }
+
+        @Override
+        public void enterMethod(MethodInfo methodInfo) {
+            record.append("enterMethod(").append(methodInfo.name).append(':').append(methodInfo.declarationStart).append(")\n");
+        }
+
+        @Override
+        public void acceptTypeReference(char[] typeName, int sourcePosition) {
+            record.append("typeReference(").append(typeName).append(':').append(sourcePosition).append(")\n");
+        }
+
+        @Override
+        public void acceptMethodReference(char[] methodName, int argCount, int sourcePosition) {
+            record.append("methodReference(").append(methodName).append(':').append(sourcePosition).append(")\n");
+        }
+
+        @Override
+        public void acceptProblem(CategorizedProblem problem) {
+            record.append("problem(").append(problem.getMessage()).append(")\n");
+        }
+
+        @Override
+        public String toString() {
+            return record.toString();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.core.tests.basic;
+
+/**
+ * Compares the time taken to parse generated sources one at a time and on
+ * several threads.  It is not part of any test suite, since timings depend on
+ * the machine; run it as a Java application on the test classpath.
+ * <p>
+ * Arguments: the number of sources (300 by default) and the number of threads
+ * (one per processor by default).
+ */
+public final class ParallelParsingBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private ParallelParsingBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int count = (args.length > 0 ? Integer.parseInt(args[0]) : 300);
+        int threads = (args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors());
+        String[] sources = GeneratedSources.generate(count);
+
+        // warm up the parser before taking any measurements
+        for (int i = 0; i < ROUNDS; i += 1) {
+            ParallelParsingTests.compile(sources, 0);
+            ParallelParsingTests.compile(sources, threads);
+        }
+
+        long serial = bestTime(sources, 0);
+        long parallel = bestTime(sources, threads);
+        System.out.println("Parsed " + count + " sources in " + serial / 1000000 + "ms on 1 thread and " +
+            parallel / 1000000 + "ms on " + threads + " threads (best of " + ROUNDS + ")");
+    }
+
+    private static long bestTime(String[] sources, int threads) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i += 1) {
+            long start = System.nanoTime();
+            ParallelParsingTests.compile(sources, threads);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
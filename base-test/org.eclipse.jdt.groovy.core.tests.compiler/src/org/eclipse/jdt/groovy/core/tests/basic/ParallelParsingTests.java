@@ -0,0 +1,158 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.core.tests.basic;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.messages.Message;
+
+/**
+ * Checks that parsing the sources of a compilation unit on several threads
+ * produces the same modules and errors as parsing them one at a time.
+ */
+public class ParallelParsingTests extends TestCase {
+
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    public void testSameModules() {
+        String[] sources = GeneratedSources.generate(50);
+        List<String> serial = describe(compile(sources, 0));
+        assertEquals(150, serial.size());
+        assertEquals(serial, describe(compile(sources, THREADS)));
+    }
+
+    public void testSyntaxError() {
+        String[] sources = GeneratedSources.generate(20);
+        sources[7] = "class Broken {\n  def x = \n}\n";
+        sources[13] = "class AlsoBroken { void m( }\n";
+
+        List<String> serial = errors(compile(sources, 0));
+        assertTrue(serial.toString(), serial.toString().contains("Source7.groovy"));
+        assertTrue(serial.toString(), serial.toString().contains("Source13.groovy"));
+        assertEquals(serial, errors(compile(sources, THREADS)));
+    }
+
+    public void testConcurrentUnits() throws Exception {
+        final String[] sources = GeneratedSources.generate(30);
+        List<String> expected = describe(compile(sources, 0));
+
+        // more units than the shared pool has threads, so some parse on their own thread
+        ExecutorService callers = Executors.newFixedThreadPool(THREADS * 2);
+        try {
+            List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+            for (int i = 0; i < THREADS * 2; i += 1) {
+                results.add(callers.submit(new Callable<List<String>>() {
+                    public List<String> call() {
+                        return describe(compile(sources, THREADS));
+                    }
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+
+    static CompilationUnit compile(String[] sources, int threads) {
+        CompilationUnit unit = new CompilationUnit();
+        unit.setParsingThreads(threads);
+        for (int i = 0; i < sources.length; i += 1) {
+            unit.addSource("Source" + i + ".groovy", sources[i]);
+        }
+        try {
+            unit.compile(Phases.CONVERSION);
+        } catch (CompilationFailedException e) {
+            // the errors are checked by the caller
+        }
+        return unit;
+    }
+
+    /**
+     * Describes every class, field and method of the unit's modules, with
+     * their positions and the text of the method bodies.
+     */
+    private static List<String> describe(CompilationUnit unit) {
+        assertFalse(errors(unit).toString(), unit.getErrorCollector().hasErrors());
+        List<String> description = new ArrayList<String>();
+        for (ModuleNode module : unit.getAST().getModules()) {
+            for (ClassNode node : module.getClasses()) {
+                StringBuilder sb = new StringBuilder();
+                sb.append(module.getContext().getName()).append(':').append(node.getName()).append(position(node.getLineNumber(), node.getColumnNumber()));
+                sb.append(" extends ").append(node.getUnresolvedSuperClass(false).getName());
+                for (FieldNode field : node.getFields()) {
+                    sb.append("\n  ").append(field.getType().getName()).append(' ').append(field.getName()).append(position(field.getLineNumber(), field.getColumnNumber()));
+                    if (field.getInitialExpression() != null) {
+                        sb.append(" = ").append(field.getInitialExpression().getText());
+                    }
+                }
+                for (MethodNode method : node.getMethods()) {
+                    sb.append("\n  ").append(method.getReturnType().getName()).append(' ').append(method.getName()).append('(');
+                    for (Parameter parameter : method.getParameters()) {
+                        sb.append(parameter.getType().getName()).append(' ').append(parameter.getName()).append(',');
+                    }
+                    sb.append(')').append(position(method.getLineNumber(), method.getColumnNumber()));
+                    if (method.getCode() != null) {
+                        sb.append(' ').append(method.getCode().getText());
+                    }
+                }
+                description.add(sb.toString());
+            }
+        }
+        return description;
+    }
+
+    private static String position(int line, int column) {
+        return "@" + line + ":" + column;
+    }
+
+    /**
+     * Returns the unit's error messages, sorted since parsers report them as they finish.
+     */
+    private static List<String> errors(CompilationUnit unit) {
+        List<String> messages = new ArrayList<String>();
+        if (unit.getErrorCollector().hasErrors()) {
+            for (Object error : unit.getErrorCollector().getErrors()) {
+                StringWriter text = new StringWriter();
+                ((Message) error).write(new PrintWriter(text));
+                messages.add(text.toString());
+            }
+            Collections.sort(messages);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.core.tests.basic;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.codehaus.jdt.groovy.integration.internal.BinaryGroovySupplementalIndexer;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+
+/**
+ * Compares the bytes allocated per class by the string-based scan of the
+ * supplemental indexer and by the scan in place, for some of Groovy's own
+ * classes.  It is not part of any test suite, since the figures depend on the
+ * JVM; run it as a Java application on the test classpath.  The JVM must
+ * count the bytes allocated by each thread, as HotSpot does.
+ */
+public final class SupplementalIndexerBenchmark {
+
+    private static final int ROUNDS = 20;
+
+    private SupplementalIndexerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<byte[]> classes = SupplementalIndexerTests.readClasses();
+        BinaryGroovySupplementalIndexer indexer = new BinaryGroovySupplementalIndexer();
+        ClassFileReader[] readers = new ClassFileReader[classes.size()];
+        for (int i = 0; i < readers.length; i += 1) {
+            readers[i] = new ClassFileReader(classes.get(i), null);
+        }
+
+        // warm up both scans before taking any measurements
+        for (int n = 0; n < ROUNDS; n += 1) {
+            for (int i = 0; i < readers.length; i += 1) {
+                SupplementalIndexerTests.extractStringBased(readers[i]);
+                indexer.extractNamedReferences(classes.get(i), readers[i]);
+            }
+        }
+
+        long before = allocatedBytes();
+        if (before < 0) {
+            System.out.println("This JVM does not count the bytes allocated by a thread");
+            return;
+        }
+        for (int i = 0; i < readers.length; i += 1) {
+            SupplementalIndexerTests.extractStringBased(readers[i]);
+        }
+        long after = allocatedBytes();
+        for (int i = 0; i < readers.length; i += 1) {
+            indexer.extractNamedReferences(classes.get(i), readers[i]);
+        }
+        long last = allocatedBytes();
+
+        System.out.println("Scanned " + readers.length + " classes, allocating " +
+            (after - before) / readers.length + " bytes per class with the string-based scan and " +
+            (last - after) / readers.length + " bytes per class with the scan in place");
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far, or -1 if the
+     * JVM does not tell.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        try {
+            // look the method up on the exported interface, not the internal implementation class
+            Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+            return (Long) method.invoke(threads, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
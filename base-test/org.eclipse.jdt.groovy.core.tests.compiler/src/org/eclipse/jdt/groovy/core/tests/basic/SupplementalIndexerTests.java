@@ -0,0 +1,272 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.core.tests.basic;
+
+import groovyjarjarasm.asm.AnnotationVisitor;
+import groovyjarjarasm.asm.ClassWriter;
+import groovyjarjarasm.asm.MethodVisitor;
+import groovyjarjarasm.asm.Opcodes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.codehaus.jdt.groovy.integration.internal.BinaryGroovySupplementalIndexer;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+
+/**
+ * Checks the references that the supplemental indexer finds in class files,
+ * against those of the string-based scan it replaced for Groovy's own classes
+ * and against hand-built class files.
+ */
+public class SupplementalIndexerTests extends TestCase {
+
+    private static final String[] CLASSES = {
+        "groovy.grape.GrapeIvy",
+        "groovy.lang.Closure",
+        "groovy.lang.GroovyShell",
+        "groovy.lang.MetaClassImpl",
+        "groovy.util.ConfigSlurper",
+        "groovy.util.GroovyScriptEngine",
+        "org.codehaus.groovy.ast.ClassNode",
+        "org.codehaus.groovy.runtime.DefaultGroovyMethods",
+        "org.codehaus.groovy.runtime.InvokerHelper",
+    };
+
+    public void testSameReferences() throws Exception {
+        List<byte[]> classes = readClasses();
+        assertFalse(classes.isEmpty());
+        for (byte[] contents : classes) {
+            ClassFileReader reader = new ClassFileReader(contents, null);
+            List<char[]> expected = new ArrayList<char[]>();
+            for (char[] ref : extractStringBased(reader)) {
+                // the scan in place leaves out the empty pieces of leading or doubled dots
+                if (ref.length > 0) {
+                    expected.add(ref);
+                }
+            }
+            assertEquals(toString(expected), toString(new BinaryGroovySupplementalIndexer().extractNamedReferences(contents, reader)));
+        }
+    }
+
+    public void testStringConstants() throws Exception {
+        byte[] contents = classFile(null, "a.b.c", "..x", "not-an-id", "$y", "some_name");
+        assertEquals("Code\na\nb\nc\nrun\nsome_name\nx\n", sortedReferences(contents));
+    }
+
+    public void testAnnotationStringValues() throws Exception {
+        byte[] contents = classFile("dispatched.name");
+        // element values refer to Utf8 entries directly, so there is no string constant
+        assertFalse(hasTag(contents, ClassFileConstants.StringTag));
+        assertEquals("Code\nRuntimeVisibleAnnotations\ndispatched\nname\nrun\nvalue\n", sortedReferences(contents));
+    }
+
+    public void testNoDynamicNames() throws Exception {
+        byte[] contents = classFile(null);
+        assertEquals("", sortedReferences(contents));
+    }
+
+    public void testStaticReferencesOfSkippedClass() throws Exception {
+        // without string constants, the members a class uses are named by member ref entries
+        byte[] contents = staticCallClassFile();
+        assertFalse(hasTag(contents, ClassFileConstants.StringTag));
+        assertEquals("", sortedReferences(contents));
+        // which the binary indexer turns into method and field references
+        assertEquals("count\nhelper\n", memberReferences(contents));
+
+        // the same names loaded as strings are used for dynamic dispatch, so the class is scanned
+        contents = classFile(null, "helper", "count");
+        assertEquals("", memberReferences(contents));
+        assertEquals("Code\ncount\nhelper\nrun\n", sortedReferences(contents));
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * Builds class p.Sample with a static method run() that loads the given
+     * strings and, if a value is given, an annotation with that value.
+     */
+    private static byte[] classFile(String annotationValue, String... strings) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, "p/Sample", null, "java/lang/Object", null);
+        if (annotationValue != null) {
+            AnnotationVisitor annotation = writer.visitAnnotation("Lp/Names;", true);
+            annotation.visit("value", annotationValue);
+            annotation.visitEnd();
+        }
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+        method.visitCode();
+        for (String string : strings) {
+            method.visitLdcInsn(string);
+            method.visitInsn(Opcodes.POP);
+        }
+        method.visitInsn(Opcodes.RETURN);
+        method.visitMaxs(1, 0);
+        method.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Builds class p.Sample with a static method run() that calls p.Other.helper()
+     * and reads p.Other.count, with no string constants.
+     */
+    private static byte[] staticCallClassFile() {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, "p/Sample", null, "java/lang/Object", null);
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+        method.visitCode();
+        method.visitMethodInsn(Opcodes.INVOKESTATIC, "p/Other", "helper", "()V");
+        method.visitFieldInsn(Opcodes.GETSTATIC, "p/Other", "count", "I");
+        method.visitInsn(Opcodes.POP);
+        method.visitInsn(Opcodes.RETURN);
+        method.visitMaxs(1, 0);
+        method.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Returns the sorted names of the field and method ref entries, which the
+     * binary indexer records whether or not the supplemental indexer runs.
+     */
+    private static String memberReferences(byte[] contents) throws Exception {
+        ClassFileReader reader = new ClassFileReader(contents, null);
+        int[] offsets = reader.getConstantPoolOffsets();
+        List<String> names = new ArrayList<String>();
+        for (int i = 1; i < offsets.length; i += 1) {
+            if (offsets[i] > 0) {
+                int tag = reader.u1At(offsets[i]);
+                if (tag == ClassFileConstants.FieldRefTag || tag == ClassFileConstants.MethodRefTag || tag == ClassFileConstants.InterfaceMethodRefTag) {
+                    int nameAndType = offsets[reader.u2At(offsets[i] + 3)];
+                    names.add(String.valueOf(extractStringConstant(offsets, reader, reader.u2At(nameAndType + 1))));
+                }
+            }
+        }
+        String[] sorted = names.toArray(new String[names.size()]);
+        Arrays.sort(sorted);
+        StringBuilder sb = new StringBuilder();
+        for (String name : sorted) {
+            sb.append(name).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String sortedReferences(byte[] contents) throws Exception {
+        List<char[]> refs = new BinaryGroovySupplementalIndexer().extractNamedReferences(contents, new ClassFileReader(contents, null));
+        String[] names = new String[refs.size()];
+        for (int i = 0; i < names.length; i += 1) {
+            names[i] = String.valueOf(refs.get(i));
+        }
+        Arrays.sort(names);
+        StringBuilder sb = new StringBuilder();
+        for (String name : names) {
+            sb.append(name).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static boolean hasTag(byte[] contents, int tag) throws Exception {
+        ClassFileReader reader = new ClassFileReader(contents, null);
+        int[] offsets = reader.getConstantPoolOffsets();
+        for (int i = 1; i < offsets.length; i += 1) {
+            if (offsets[i] > 0 && reader.u1At(offsets[i]) == tag) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static List<byte[]> readClasses() throws Exception {
+        ClassLoader loader = groovy.lang.GroovyObject.class.getClassLoader();
+        List<byte[]> classes = new ArrayList<byte[]>();
+        for (String name : CLASSES) {
+            InputStream in = loader.getResourceAsStream(name.replace('.', '/') + ".class");
+            if (in != null) {
+                try {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[8192];
+                    for (int n; (n = in.read(buffer)) != -1;) {
+                        out.write(buffer, 0, n);
+                    }
+                    classes.add(out.toByteArray());
+                } finally {
+                    in.close();
+                }
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * The indexer's scan before it worked in place, as it was: decode every
+     * Utf8 entry and split the ones made of identifier chars and dots.
+     */
+    static List<char[]> extractStringBased(ClassFileReader reader) {
+        int[] constantPoolOffsets = reader.getConstantPoolOffsets();
+        int constantPoolCount = constantPoolOffsets.length;
+        List<char[]> refs = new ArrayList<char[]>();
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = reader.u1At(constantPoolOffsets[i]);
+            switch (tag) {
+                case ClassFileConstants.Utf8Tag:
+                    char[] strConst = extractStringConstant(constantPoolOffsets, reader, i);
+                    if (isValidId(strConst)) {
+                        char[][] splits = CharOperation.splitOn('.', strConst);
+                        for (char[] split : splits) {
+                            refs.add(split);
+                        }
+                    }
+            }
+        }
+        return refs;
+    }
+
+    private static boolean isValidId(char[] strConst) {
+        if (strConst == null || strConst.length == 0) {
+            return false;
+        }
+        if (!(Character.isJavaIdentifierStart(strConst[0]) || strConst[0] == '.') || strConst[0] == '$') {
+            return false;
+        }
+        for (int i = 1; i < strConst.length; i++) {
+            if (!(Character.isJavaIdentifierPart(strConst[i]) || strConst[i] == '.') || strConst[i] == '$') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char[] extractStringConstant(int[] constantPoolOffsets, ClassFileReader reader, int index) {
+        int strlen = reader.u2At(constantPoolOffsets[index] + 1); // / +1 for the tag type
+        int strstart = constantPoolOffsets[index] + 3; // +1 for the tag type and +2 for the strlen
+        return reader.utf8At(strstart, strlen);
+    }
+
+    private static String toString(List<char[]> refs) {
+        StringBuilder sb = new StringBuilder();
+        for (char[] ref : refs) {
+            sb.append(ref).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -571,11 +571,18 @@ public class ClassNode extends AnnotatedNode implements Opcodes {
     }
 
     public List<ConstructorNode> getDeclaredConstructors() {
-        if (!redirect().lazyInitDone) redirect().lazyClassInit();
-        final ClassNode r = redirect();
-        if (r.constructors == null)
-            r.constructors = new ArrayList<ConstructorNode> ();
-        return r.constructors;
+        // GRECLIPSE edit -- let the redirect (like JDTClassNode) provide its own members
+        //if (!redirect().lazyInitDone) redirect().lazyClassInit();
+        //final ClassNode r = redirect();
+        //if (r.constructors == null)
+        //    r.constructors = new ArrayList<ConstructorNode> ();
+        //return r.constructors;
+        if (redirect != null) return redirect().getDeclaredConstructors();
+        lazyClassInit();
+        if (constructors == null)
+            constructors = new ArrayList<ConstructorNode> ();
+        return constructors;
+        // GRECLIPSE end
     }
 
     public ModuleNode getModule() {
@@ -823,11 +830,16 @@ public class ClassNode extends AnnotatedNode implements Opcodes {
      * @return the method matching the given name and parameters or null
      */
     public FieldNode getDeclaredField(String name) {
-        if (!redirect().lazyInitDone) redirect().lazyClassInit();
-        ClassNode r = redirect ();
-        if (r.fieldIndex == null)
-            r.fieldIndex = new HashMap<String,FieldNode> ();
-        return r.fieldIndex.get(name);
+        // GRECLIPSE edit -- let the redirect (like JDTClassNode) provide its own members
+        //if (!redirect().lazyInitDone) redirect().lazyClassInit();
+        //ClassNode r = redirect ();
+        //if (r.fieldIndex == null)
+        //    r.fieldIndex = new HashMap<String,FieldNode> ();
+        //return r.fieldIndex.get(name);
+        if (redirect != null) return redirect().getDeclaredField(name);
+        lazyClassInit();
+        return fieldIndex == null ? null : fieldIndex.get(name);
+        // GRECLIPSE end
     }
 
     /**
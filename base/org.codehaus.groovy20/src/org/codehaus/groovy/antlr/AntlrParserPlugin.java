@@ -189,12 +189,25 @@ public class AntlrParserPlugin extends ASTHelper implements ParserPlugin, Groovy
 
 
     public /*final*/ Reduction parseCST(final SourceUnit sourceUnit, Reader reader) throws CompilationFailedException {
-        final SourceBuffer sourceBuffer = new SourceBuffer();
+        // GRECLIPSE edit
+        //final SourceBuffer sourceBuffer = new SourceBuffer();
+        final SourceBuffer sourceBuffer = createSourceBuffer(sourceUnit);
+        // GRECLIPSE end
         transformCSTIntoAST(sourceUnit, reader, sourceBuffer);
         processAST();
         return outputAST(sourceUnit,sourceBuffer);
     }
 
+    // GRECLIPSE add
+    protected SourceBuffer createSourceBuffer(SourceUnit sourceUnit) {
+        char[] contents = sourceUnit.getContents();
+        if (CharArraySourceBuffer.canWrap(contents)) {
+            return new CharArraySourceBuffer(contents);
+        }
+        return new SourceBuffer();
+    }
+    // GRECLIPSE end
+
     protected void transformCSTIntoAST(SourceUnit sourceUnit, Reader reader, SourceBuffer sourceBuffer) throws CompilationFailedException {
         ast = null;
 
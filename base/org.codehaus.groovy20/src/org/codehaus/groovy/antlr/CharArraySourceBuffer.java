@@ -0,0 +1,145 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.antlr;
+
+/**
+ * A {@link SourceBuffer} over the characters of a source that are already in
+ * memory.  Rather than copying characters as the lexer reads them, it keeps
+ * a table of line start offsets that is computed once and handed to
+ * {@link LocationSupport} as is.
+ * <p>
+ * Offsets in the table are offsets into the characters, so this buffer can
+ * only be used for sources without unicode escapes (see {@link #canWrap}).
+ */
+public class CharArraySourceBuffer extends SourceBuffer {
+
+    private final char[] contents;
+
+    /** Start offset of each line, followed by the length of the contents. */
+    private final int[] lineStarts;
+
+    /** Number of characters read by the lexer so far. */
+    private int count;
+
+    public CharArraySourceBuffer(char[] contents) {
+        this.contents = contents;
+        this.lineStarts = computeLineStarts(contents);
+    }
+
+    /**
+     * Tells whether the given characters can be wrapped, that is they contain
+     * no unicode escapes, which the lexer would see as a single character.
+     */
+    public static boolean canWrap(char[] contents) {
+        if (contents == null) {
+            return false;
+        }
+        for (int i = 0, n = contents.length - 1; i < n; i += 1) {
+            if (contents[i] == '\\' && contents[i + 1] == 'u') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getSnippet(LineColumn start, LineColumn end) {
+        // preconditions
+        if (start == null || end == null) { return null; } // no text to return
+        if (start.equals(end)) { return null; } // no text to return
+        if (count == 0) { return null; } // buffer hasn't been filled yet
+
+        int lineCount = lineStarts.length - 1;
+        int startLine = Math.min(Math.max(start.getLine(), 1), lineCount);
+        int endLine = Math.min(Math.max(end.getLine(), 1), lineCount);
+        int startColumn = Math.max(start.getColumn(), 1);
+        int endColumn = Math.max(end.getColumn(), 1);
+
+        StringBuilder snippet = new StringBuilder();
+        for (int i = startLine - 1; i < endLine; i += 1) {
+            int from = lineStarts[i], to = lineStarts[i + 1], length = to - from;
+            if (startLine == endLine) {
+                if (startColumn > length) { startColumn = Math.max(length, 1); }
+                if (endColumn > length) { endColumn = length + 1; }
+                if (endColumn < startColumn) { endColumn = startColumn; }
+                to = from + endColumn - 1;
+                from += startColumn - 1;
+            } else {
+                if (i == startLine - 1 && startColumn - 1 < length) {
+                    from += startColumn - 1;
+                }
+                if (i == endLine - 1 && endColumn - 1 < length) {
+                    to = from + endColumn - 1;
+                }
+            }
+            snippet.append(contents, from, to - from);
+        }
+        return snippet.toString();
+    }
+
+    @Override
+    public void write(int c) {
+        if (c != -1) {
+            count += 1;
+        }
+    }
+
+    @Override
+    public LocationSupport getLocationSupport() {
+        if (count == contents.length) {
+            return new LocationSupport(lineStarts);
+        }
+        // the lexer stopped early; only locate the characters it has read
+        int lines = 1;
+        while (lines < lineStarts.length - 1 && lineStarts[lines] <= count) {
+            lines += 1;
+        }
+        boolean partialCRLF = (count > 0 && count < contents.length && contents[count - 1] == '\r' && contents[count] == '\n');
+        int[] lineEndings = new int[lines + (partialCRLF ? 2 : 1)];
+        System.arraycopy(lineStarts, 0, lineEndings, 0, lines);
+        if (partialCRLF) {
+            lineEndings[lines++] = count;
+        }
+        lineEndings[lines] = count;
+        return new LocationSupport(lineEndings);
+    }
+
+    @Override
+    public void setUnescaper(UnicodeEscapingReader unicodeEscapingReader) {
+        // offsets are never adjusted for unicode escapes
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static int[] computeLineStarts(char[] contents) {
+        int n = 1;
+        for (int i = 0; i < contents.length; i += 1) {
+            char c = contents[i];
+            if (c == '\n' || (c == '\r' && (i + 1 == contents.length || contents[i + 1] != '\n'))) {
+                n += 1;
+            }
+        }
+        int[] lineStarts = new int[n + 1];
+        for (int i = 0, j = 1; i < contents.length; i += 1) {
+            char c = contents[i];
+            if (c == '\n' || (c == '\r' && (i + 1 == contents.length || contents[i + 1] != '\n'))) {
+                lineStarts[j++] = i + 1;
+            }
+        }
+        lineStarts[n] = contents.length;
+        return lineStarts;
+    }
+}
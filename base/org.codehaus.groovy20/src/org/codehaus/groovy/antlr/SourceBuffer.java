@@ -138,9 +138,11 @@ public class SourceBuffer {
 	            lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount());
         	} else {
         		// \r\n was found
-        		// back out previous line and add a \n to the line
+        		// back out the line started at \r and add the \n to the line it ended
         		current = new StringBuilder();
+        		lines.remove(lines.size()-1);
         		lines.get(lines.size()-1).append('\n');
+        		lines.add(current);
         		lineEndings.remove(lineEndings.size()-1);
         		lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount());
         	}
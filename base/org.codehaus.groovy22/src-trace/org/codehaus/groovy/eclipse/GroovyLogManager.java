@@ -17,8 +17,8 @@ package org.codehaus.groovy.eclipse;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages the current {@link IGroovyLogger} instance.
@@ -34,14 +34,15 @@ public class GroovyLogManager {
     private GroovyLogManager() {
         // uninstantiable
         defaultLogger = new DefaultGroovyLogger();
-        timers = new HashMap<String, Long>();
+        timers = new ConcurrentHashMap<String, Long>();
     }
     
-    private IGroovyLogger[] loggers = null;
+    private volatile IGroovyLogger[] loggers = null;
     
     // only use default logger if no others are registered
     private IGroovyLogger defaultLogger;
     
+    // events may be timed on several threads at once
     private Map<String, Long> timers;
 
     private boolean useDefaultLogger;
@@ -114,7 +115,7 @@ public class GroovyLogManager {
     }
     
     public void logEnd(String event, TraceCategory category, String message) {
-        Long then = timers.get(event);
+        Long then = timers.remove(event);
         if (then != null) {
             if (hasLoggers()) {
                 long now = System.currentTimeMillis();
@@ -125,7 +126,6 @@ public class GroovyLogManager {
                     log(category,"Event complete: "+elapsed + "ms: " + event);
                 }
             }
-            timers.remove(event);
         }
     }
 
@@ -138,6 +138,7 @@ public class GroovyLogManager {
             return;
         }
         
+        IGroovyLogger[] loggers = this.loggers; // may be replaced by another thread
         if (loggers != null) {
             for (IGroovyLogger logger : loggers) {
                 if (logger.isCategoryEnabled(category)) {
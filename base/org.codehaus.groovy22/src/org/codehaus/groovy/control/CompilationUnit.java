@@ -41,6 +41,14 @@ import java.io.InputStream;
 import java.net.URL;
 import java.security.CodeSource;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The CompilationUnit collects all compilation data as it is generated by the compiler system.
@@ -71,6 +79,9 @@ public class CompilationUnit extends ProcessingUnit {
 
     protected CompileUnit ast;        // The overall AST for this CompilationUnit.
     protected List<GroovyClass> generatedClasses;  // The classes generated during classgen.
+    // GRECLIPSE add
+    private final Map<SourceUnit, List<GroovyClass>> generatedClassesBySource = new HashMap<SourceUnit, List<GroovyClass>>();
+    // GRECLIPSE end
 
     protected Verifier verifier;   // For use by verify().
 
@@ -170,11 +181,14 @@ public class CompilationUnit extends ProcessingUnit {
             phaseOperations[i] = new LinkedList();
             newPhaseOperations[i] = new LinkedList();
         }
-        addPhaseOperation(new SourceUnitOperation() {
+        // GRECLIPSE edit -- the parse operation is a field so that it can be recognized
+        /*addPhaseOperation(new SourceUnitOperation() {
             public void call(SourceUnit source) throws CompilationFailedException {
                 source.parse();
             }
-        }, Phases.PARSING);
+        }, Phases.PARSING);*/
+        addPhaseOperation(parse, Phases.PARSING);
+        // GRECLIPSE end
         addPhaseOperation(convert, Phases.CONVERSION);
         addPhaseOperation(new PrimaryClassNodeOperation() {
             public void call(SourceUnit source, GeneratorContext context,
@@ -326,6 +340,17 @@ public class CompilationUnit extends ProcessingUnit {
         return generatedClasses;
     }
 
+    // GRECLIPSE add
+    /**
+     * Get the GroovyClasses generated by compile() for the given source, in
+     * the order they were generated.
+     */
+    public List<GroovyClass> getClasses(SourceUnit source) {
+        List<GroovyClass> classes = generatedClassesBySource.get(source);
+        return classes != null ? classes : Collections.<GroovyClass>emptyList();
+    }
+    // GRECLIPSE end
+
     /**
      * Convenience routine to get the first ClassNode, for
      * when you are sure there is only one.
@@ -657,6 +682,30 @@ public class CompilationUnit extends ProcessingUnit {
         }
     };
 
+    // GRECLIPSE add
+    /**
+     * Runs parse() on a single SourceUnit.
+     */
+    private final SourceUnitOperation parse = new SourceUnitOperation() {
+        public void call(SourceUnit source) throws CompilationFailedException {
+            source.parse();
+        }
+    };
+
+    private int parsingThreads = Integer.getInteger("greclipse.parallelParsing", 0);
+
+    /**
+     * Sets the number of threads that parse sources.  With more than one, the
+     * sources that are pending at the start of the parsing phase are parsed
+     * concurrently and the phase completes when all of them are done.  Later
+     * phases use shared resolvers and class node caches and always run on the
+     * calling thread.
+     */
+    public void setParsingThreads(int threads) {
+        this.parsingThreads = threads;
+    }
+    // GRECLIPSE end
+
     /**
      * Runs convert() on a single SourceUnit.
      */
@@ -817,6 +866,16 @@ public class CompilationUnit extends ProcessingUnit {
             byte[] bytes = ((ClassWriter) visitor).toByteArray();
             // GRECLIPSE added classNode, source
             generatedClasses.add(new GroovyClass(classNode.getName(), bytes, classNode, source));
+            // GRECLIPSE add
+            if (source != null) {
+                List<GroovyClass> classes = generatedClassesBySource.get(source);
+                if (classes == null) {
+                    classes = new ArrayList<GroovyClass>();
+                    generatedClassesBySource.put(source, classes);
+                }
+                classes.add(generatedClasses.get(generatedClasses.size() - 1));
+            }
+            // GRECLIPSE end
 
             //
             // Handle any callback that's been set
@@ -835,6 +894,16 @@ public class CompilationUnit extends ProcessingUnit {
         }
     };
 
+    // GRECLIPSE add
+    /**
+     * Types and common super classes looked up to compute stack map frames.
+     * Kept for the whole compilation, since the same pairs of types come up
+     * again and again in the methods of a unit.
+     */
+    private final Map<String, ClassNode> frameClassNodes = new HashMap<String, ClassNode>();
+    private final Map<String, String> commonSuperClasses = new HashMap<String, String>();
+    // GRECLIPSE end
+
     protected ClassVisitor createClassVisitor() {
         CompilerConfiguration config = getConfiguration();
         int computeMaxStackAndFrames = ClassWriter.COMPUTE_MAXS;
@@ -851,6 +920,15 @@ public class CompilationUnit extends ProcessingUnit {
                 // try inner classes
                 cn = cu.getGeneratedInnerClass(name);
                 if (cn!=null) return cn;
+                // GRECLIPSE add -- try classes found before and classes known to the resolver
+                cn = frameClassNodes.get(name);
+                if (cn != null) return cn;
+                cn = resolveVisitor.resolveForClassGeneration(name);
+                if (cn != null) {
+                    frameClassNodes.put(name, cn);
+                    return cn;
+                }
+                // GRECLIPSE end
                 // try class loader classes
                 try {
                     cn = ClassHelper.make(
@@ -859,6 +937,9 @@ public class CompilationUnit extends ProcessingUnit {
                 } catch (Exception e) {
                     throw new GroovyBugError(e);
                 }
+                // GRECLIPSE add
+                frameClassNodes.put(name, cn);
+                // GRECLIPSE end
                 return cn;
             }
             private ClassNode getCommonSuperClassNode(ClassNode c, ClassNode d) {
@@ -874,9 +955,19 @@ public class CompilationUnit extends ProcessingUnit {
             }
             @Override
             protected String getCommonSuperClass(String arg1, String arg2) {
+                // GRECLIPSE add
+                String key = arg1 + ';' + arg2;
+                String result = commonSuperClasses.get(key);
+                if (result != null) return result;
+                // GRECLIPSE end
                 ClassNode a = getClassNode(arg1.replace('/', '.')); 
                 ClassNode b = getClassNode(arg2.replace('/', '.'));
-                return getCommonSuperClassNode(a,b).getName().replace('.','/');
+                // GRECLIPSE edit
+                //return getCommonSuperClassNode(a,b).getName().replace('.','/');
+                result = getCommonSuperClassNode(a,b).getName().replace('.','/');
+                commonSuperClasses.put(key, result);
+                return result;
+                // GRECLIPSE end
             }
 
         };
@@ -926,6 +1017,12 @@ public class CompilationUnit extends ProcessingUnit {
      * through the current phase.
      */
     public void applyToSourceUnits(SourceUnitOperation body) throws CompilationFailedException {
+        // GRECLIPSE add
+        if (body == parse && parsingThreads > 1 && parseInParallel()) {
+            getErrorCollector().failIfErrors();
+            return;
+        }
+        // GRECLIPSE end
         // GRECLIPSE edit -- prevent concurrent modification exceptions
         //for (String name : names) {
         for (int i = 0; i < names.size(); i += 1) {
@@ -956,6 +1053,106 @@ public class CompilationUnit extends ProcessingUnit {
         getErrorCollector().failIfErrors();
     }
 
+    // GRECLIPSE add
+    /**
+     * Parses the pending sources on up to {@link #parsingThreads} threads,
+     * counting the calling thread, which takes its share of the sources.  The
+     * other threads come from the shared {@link #getParsingPool() pool}.  Each
+     * source has its own reader and parser plugin, so parsing one does not
+     * affect another.  If any source fails, the failure of the first one in
+     * source order is thrown once all of them are done.
+     *
+     * @return {@code false} if there are too few pending sources to bother
+     */
+    private boolean parseInParallel() throws CompilationFailedException {
+        final List<SourceUnit> pending = new ArrayList<SourceUnit>();
+        for (int i = 0; i < names.size(); i += 1) {
+            SourceUnit source = sources.get(names.get(i));
+            if ((source.phase < phase) || (source.phase == phase && !source.phaseComplete)) {
+                pending.add(source);
+            }
+        }
+        if (pending.size() < 2) {
+            return false;
+        }
+
+        final Throwable[] failures = new Throwable[pending.size()];
+        final AtomicInteger next = new AtomicInteger();
+        Runnable worker = new Runnable() {
+            public void run() {
+                for (int i; (i = next.getAndIncrement()) < failures.length;) {
+                    try {
+                        parse.call(pending.get(i));
+                    } catch (Throwable t) {
+                        failures[i] = t;
+                    }
+                }
+            }
+        };
+        List<Future<?>> helpers = new ArrayList<Future<?>>();
+        for (int i = 1, n = Math.min(parsingThreads, pending.size()); i < n; i += 1) {
+            helpers.add(getParsingPool().submit(worker));
+        }
+        worker.run();
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (ExecutionException e) {
+                throw new GroovyBugError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GroovyBugError(e);
+            }
+        }
+
+        for (int i = 0; i < failures.length; i += 1) {
+            Throwable cause = failures[i];
+            if (cause == null) {
+                continue;
+            }
+            if (cause instanceof CompilationFailedException) {
+                throw (CompilationFailedException) cause;
+            }
+            GroovyBugError gbe;
+            if (cause instanceof GroovyBugError) {
+                gbe = (GroovyBugError) cause;
+            } else if (cause instanceof Exception) {
+                gbe = new GroovyBugError((Exception) cause);
+            } else {
+                throw (Error) cause;
+            }
+            changeBugText(gbe, pending.get(i));
+            throw gbe;
+        }
+        return true;
+    }
+
+    private static ExecutorService parsingPool;
+
+    /**
+     * Returns the pool shared by every compilation unit that parses in
+     * parallel.  It has at most a thread per processor and idle threads exit
+     * after a few seconds.  When all of them are busy, a unit parses on its
+     * own thread instead of queueing.
+     */
+    private static synchronized ExecutorService getParsingPool() {
+        if (parsingPool == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(0, Runtime.getRuntime().availableProcessors(),
+                10L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "Groovy parser " + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+            parsingPool = pool;
+        }
+        return parsingPool;
+    }
+    // GRECLIPSE end
+
     //---------------------------------------------------------------------------
     // LOOP SIMPLIFICATION FOR PRIMARY ClassNode OPERATIONS
 
@@ -1225,6 +1422,32 @@ public class CompilationUnit extends ProcessingUnit {
         this.isReconcile = isReconcile;
     }
 
+    /**
+     * Discards the sources, AST and generated classes of this compilation unit
+     * so that it can be reused for other sources.  The configuration, the class
+     * loaders and the phase operations (including those of global transforms,
+     * which are costly to find) are kept.
+     */
+    public void reset() {
+        sources.clear();
+        names.clear();
+        queuedSources.clear();
+        summariesBySourceName.clear();
+        summariesByPublicClassName.clear();
+        classSourcesByPublicClassName.clear();
+        ast = new CompileUnit(classLoader, ast.getCodeSource(), configuration);
+        generatedClasses.clear();
+        generatedClassesBySource.clear();
+        frameClassNodes.clear();
+        commonSuperClasses.clear();
+        classNodeResolver = new ClassNodeResolver();
+        errorCollector = new ErrorCollector(configuration);
+        phase = Phases.INITIALIZATION;
+        phaseComplete = false;
+        erroredAtPhase = -1;
+        listener = null;
+    }
+
     public boolean allowTransforms = true;
     public boolean isReconcile = false;
     private ProgressListener listener;
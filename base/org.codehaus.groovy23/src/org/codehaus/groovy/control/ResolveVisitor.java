@@ -809,6 +809,17 @@ public class ResolveVisitor extends ClassCodeExpressionTransformer {
         return false;
     }
 
+    // GRECLIPSE add
+    /**
+     * Finds a class by name while bytecode is generated, for example to
+     * compute stack map frames.  Returns {@code null} if this resolver has no
+     * better way to find the class than to load it.
+     */
+    public ClassNode resolveForClassGeneration(String name) {
+        return null;
+    }
+    // GRECLIPSE end
+
     // GRECLIPSE private->protected
     protected boolean resolveToOuter(ClassNode type) {
         String name = type.getName();
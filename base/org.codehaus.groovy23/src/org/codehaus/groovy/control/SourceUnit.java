@@ -134,6 +134,16 @@ public class SourceUnit extends ProcessingUnit {
     }
 
 
+    // GRECLIPSE add
+    /**
+     * Returns the characters of the source if they are already in memory, or
+     * null if they have to be read through the {@link ReaderSource}.
+     */
+    public char[] getContents() {
+        return null;
+    }
+    // GRECLIPSE end
+
     /**
      * Returns the name for the SourceUnit. This name shouldn't
      * be used for controlling the SourceUnit, it is only for error
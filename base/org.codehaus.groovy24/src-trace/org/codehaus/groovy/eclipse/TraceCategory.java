@@ -29,6 +29,7 @@ public enum TraceCategory {
 
     DSL("DSL"),
     CODE_SELECT("Code select"),
+    HIGHLIGHTING("Highlighting"),
     REFACTORING("Refactoring"),
     AST_TRANSFORM("AST Transforms"),
     CONTENT_ASSIST("Content assist"),
@@ -118,8 +118,10 @@ public class SourceBuffer {
             lines.add(current);
             // GRECLIPSE add
             } else { // \r\n was found
-                // back out previous line and add a \n to the line
+                // back out the line started at \r and add the \n to the line it ended
+                lines.remove(lines.size() - 1);
                 lines.get(lines.size() - 1).append('\n');
+                lines.add(current);
                 lineEndings.remove(lineEndings.size() - 1);
             }
             lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount());
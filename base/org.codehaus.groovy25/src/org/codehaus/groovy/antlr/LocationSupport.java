@@ -45,6 +45,10 @@ public class LocationSupport {
         lineEndings = NO_LINE_ENDINGS;
     }
 
+    /**
+     * Uses the given table as is: the start offset of each line, followed by
+     * the length of the document.
+     */
     public LocationSupport(int[] lineEndings) {
         this.lineEndings = lineEndings;
     }
@@ -91,10 +95,18 @@ public class LocationSupport {
     }
 
     public int[] getRowCol(int offset) {
-        for (int i = 1, n = lineEndings.length; i < n; i += 1) {
-            if (lineEndings[i] > offset) {
-                return new int[] {i, offset - lineEndings[i - 1] + 1};
+        // binary search for the first line that ends after the offset
+        int lo = 1, hi = lineEndings.length - 1;
+        if (hi >= lo && lineEndings[hi] > offset) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (lineEndings[mid] > offset) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
             }
+            return new int[] {lo, offset - lineEndings[lo - 1] + 1};
         }
         // after end of document
         throw new RuntimeException("Location is after end of document.  Offset : " + offset);
@@ -68,6 +68,20 @@ public abstract class Comment {
 
     public abstract List<TaskEntry> getPositionsOf(String taskTag, String taskPriority, int[] lineseps, boolean caseSensitive);
 
+    /**
+     * Returns the task for an occurrence of a task tag at the given index of
+     * the comment text, or null if the tag does not start a task there (for
+     * instance because it is part of a longer word).
+     */
+    public TaskEntry getTaskAt(int index, String taskTag, String taskPriority, int[] lineseps) {
+        if (!isValidStartLocationForTask(comment, index, taskTag)) {
+            return null;
+        }
+        return createTaskEntry(index, taskTag, taskPriority, lineseps);
+    }
+
+    protected abstract TaskEntry createTaskEntry(int index, String taskTag, String taskPriority, int[] lineseps);
+
     /**
      * Return the positions (offsets) that JDT wants to see.  Special rules here!  For a javadoc comment
      * both offsets are positive.  For a line comment '//' both are negative.  For a block comment only the
@@ -168,19 +182,24 @@ class SingleLineComment extends Comment {
         List<TaskEntry> tasks = new ArrayList<>();
         while (i != -1) {
             if (isValidStartLocationForTask(comment, i, taskTag)) {
-                int offsetToLineStart = (sline == 1 ? 0 : lineseps[sline - 2] + 1);
-                int taskTagStart = offsetToLineStart + (scol - 1) + i;
-                int taskEnd = offsetToLineStart + ecol - 2;
-                TaskEntry taskEntry = new TaskEntry(taskTagStart, taskEnd, taskTag, taskPriority, comment, offsetToLineStart + scol - 1);
-                if (debug) {
-                    System.out.println("Built task entry " + taskEntry.toString());
-                }
-                tasks.add(taskEntry);
+                tasks.add(createTaskEntry(i, taskTag, taskPriority, lineseps));
             }
             i = findTaskTag(comment, taskTag, caseSensitive, i + taskTag.length());
         }
         return tasks;
     }
+
+    @Override
+    protected TaskEntry createTaskEntry(int i, String taskTag, String taskPriority, int[] lineseps) {
+        int offsetToLineStart = (sline == 1 ? 0 : lineseps[sline - 2] + 1);
+        int taskTagStart = offsetToLineStart + (scol - 1) + i;
+        int taskEnd = offsetToLineStart + ecol - 2;
+        TaskEntry taskEntry = new TaskEntry(taskTagStart, taskEnd, taskTag, taskPriority, comment, offsetToLineStart + scol - 1);
+        if (debug) {
+            System.out.println("Built task entry " + taskEntry.toString());
+        }
+        return taskEntry;
+    }
 }
 
 /**
@@ -208,31 +227,36 @@ class MultiLineComment extends Comment {
         while (i != -1) {
 
             if (isValidStartLocationForTask(comment, i, taskTag)) {
-                int offsetToCommentStart = (sline == 1 ? 0 : lineseps[sline - 2] + 1) + scol - 1;
-
-                int taskTagStart = offsetToCommentStart + i;
-                int taskEnd = taskTagStart;
-                // find the end (end of comment or end of line)
-                while (true) {
-                    int pos = taskEnd - offsetToCommentStart;
-                    char ch = comment.charAt(pos);
-                    if (ch == '\n' || ch == '\r') {
-                        break;
-                    }
-                    if ((pos + 2) > comment.length()) {
-                        taskEnd--;
-                        break;
-                    }
-                    taskEnd++;
-                }
-                TaskEntry taskEntry = new TaskEntry(taskTagStart, taskEnd - 1, taskTag, taskPriority, comment, offsetToCommentStart);
-                if (debug) {
-                    System.out.println("Built task entry " + taskEntry.toString());
-                }
-                taskPositions.add(taskEntry);
+                taskPositions.add(createTaskEntry(i, taskTag, taskPriority, lineseps));
             }
             i = findTaskTag(comment, taskTag, caseSensitive, i + taskTag.length());
         }
         return taskPositions;
     }
+
+    @Override
+    protected TaskEntry createTaskEntry(int i, String taskTag, String taskPriority, int[] lineseps) {
+        int offsetToCommentStart = (sline == 1 ? 0 : lineseps[sline - 2] + 1) + scol - 1;
+
+        int taskTagStart = offsetToCommentStart + i;
+        int taskEnd = taskTagStart;
+        // find the end (end of comment or end of line)
+        while (true) {
+            int pos = taskEnd - offsetToCommentStart;
+            char ch = comment.charAt(pos);
+            if (ch == '\n' || ch == '\r') {
+                break;
+            }
+            if ((pos + 2) > comment.length()) {
+                taskEnd--;
+                break;
+            }
+            taskEnd++;
+        }
+        TaskEntry taskEntry = new TaskEntry(taskTagStart, taskEnd - 1, taskTag, taskPriority, comment, offsetToCommentStart);
+        if (debug) {
+            System.out.println("Built task entry " + taskEntry.toString());
+        }
+        return taskEntry;
+    }
 }
@@ -67,7 +67,10 @@ public class ErrorCollector {
         this.configuration = configuration;
     }
     
-    public void addCollectorContents(ErrorCollector er) {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public void addCollectorContents(ErrorCollector er) {
+    public synchronized void addCollectorContents(ErrorCollector er) {
+    // GRECLIPSE end
         if (er.errors!=null) {
             if (errors==null) {
                 errors = er.errors;
@@ -92,7 +95,10 @@ public class ErrorCollector {
      * Adds an error to the message set, but does not cause a failure. The message is not required to have a source
      * line and column specified, but it is best practice to try and include that information. 
      */
-    public void addErrorAndContinue(Message message) {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public void addErrorAndContinue(Message message) {
+    public synchronized void addErrorAndContinue(Message message) {
+    // GRECLIPSE end
         if (this.errors == null) {
             this.errors = new LinkedList();
         }
@@ -164,7 +170,10 @@ public class ErrorCollector {
     /**
      * Returns true if there are any errors pending.
      */
-    public boolean hasErrors() {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public boolean hasErrors() {
+    public synchronized boolean hasErrors() {
+    // GRECLIPSE end
         return this.errors != null;
     }
 
@@ -178,42 +187,60 @@ public class ErrorCollector {
     /**
      * Returns true if there are any warnings pending.
      */
-    public boolean hasWarnings() {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public boolean hasWarnings() {
+    public synchronized boolean hasWarnings() {
+    // GRECLIPSE end
         return this.warnings != null;
     }
     
     /**
      * Returns the list of warnings, or null if there are none.
      */
-    public List getWarnings() {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public List getWarnings() {
+    public synchronized List getWarnings() {
+    // GRECLIPSE end
         return this.warnings;
     }
 
     /**
      * Returns the list of errors, or null if there are none.
      */
-    public List getErrors() {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public List getErrors() {
+    public synchronized List getErrors() {
+    // GRECLIPSE end
         return this.errors;
     }
 
     /**
      * Returns the number of warnings.
      */
-    public int getWarningCount() {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public int getWarningCount() {
+    public synchronized int getWarningCount() {
+    // GRECLIPSE end
         return ((this.warnings == null) ? 0 : this.warnings.size());
     }
 
     /**
      * Returns the number of errors.
      */
-    public int getErrorCount() {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public int getErrorCount() {
+    public synchronized int getErrorCount() {
+    // GRECLIPSE end
         return ((this.errors == null) ? 0 : this.errors.size());
     }
 
     /**
      * Returns the specified warning message, or null.
      */
-    public WarningMessage getWarning(int index) {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public WarningMessage getWarning(int index) {
+    public synchronized WarningMessage getWarning(int index) {
+    // GRECLIPSE end
         if (index < getWarningCount()) {
             return (WarningMessage) this.warnings.get(index);
         }
@@ -223,7 +250,10 @@ public class ErrorCollector {
     /**
      * Returns the specified error message, or null.
      */
-    public Message getError(int index) {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public Message getError(int index) {
+    public synchronized Message getError(int index) {
+    // GRECLIPSE end
         if (index < getErrorCount()) {
             return (Message) this.errors.get(index);
         }
@@ -233,7 +263,10 @@ public class ErrorCollector {
     /**
      * Returns the last error reported
      */
-    public Message getLastError() {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public Message getLastError() {
+    public synchronized Message getLastError() {
+    // GRECLIPSE end
         return (Message) this.errors.getLast();
     }
     
@@ -273,7 +306,10 @@ public class ErrorCollector {
     /**
      * Adds a WarningMessage to the message set.
      */
-    public void addWarning(WarningMessage message) {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //public void addWarning(WarningMessage message) {
+    public synchronized void addWarning(WarningMessage message) {
+    // GRECLIPSE end
         if (message.isRelevant(configuration.getWarningLevel())) {
             if (this.warnings == null) {
                 this.warnings = new LinkedList();
@@ -310,7 +346,10 @@ public class ErrorCollector {
      * Causes the current phase to fail by throwing a
      * CompilationFailedException.
      */
-    protected void failIfErrors() throws CompilationFailedException {
+    // GRECLIPSE edit -- sources may be parsed concurrently
+    //protected void failIfErrors() throws CompilationFailedException {
+    protected synchronized void failIfErrors() throws CompilationFailedException {
+    // GRECLIPSE end
         if (hasErrors()) {
             throw new MultipleCompilationErrorsException(this);
         }
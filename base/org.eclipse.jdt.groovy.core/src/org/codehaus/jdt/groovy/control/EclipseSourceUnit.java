@@ -17,10 +17,17 @@ package org.codehaus.jdt.groovy.control;
 
 import groovy.lang.GroovyClassLoader;
 
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ErrorCollector;
 import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.io.AbstractReaderSource;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
 import org.eclipse.core.resources.IFile;
 
@@ -35,6 +42,7 @@ public class EclipseSourceUnit extends SourceUnit {
 
     final private IFile file;
     final public JDTResolver resolver;
+    private char[] contents;
 
     public EclipseSourceUnit(IFile resource, String filepath, String string, CompilerConfiguration groovyCompilerConfig,
             GroovyClassLoader classLoader, ErrorCollector errorCollector, JDTResolver resolver) {
@@ -43,6 +51,19 @@ public class EclipseSourceUnit extends SourceUnit {
         this.resolver = resolver;
     }
 
+    /**
+     * Creates a source unit for contents held by JDT.  The parser reads the
+     * characters directly, both for the source text and for line and column
+     * information, instead of keeping its own copy.
+     */
+    public EclipseSourceUnit(IFile resource, String filepath, char[] contents, CompilerConfiguration groovyCompilerConfig,
+            GroovyClassLoader classLoader, ErrorCollector errorCollector, JDTResolver resolver) {
+        super(filepath, new CharArrayReaderSource(contents, groovyCompilerConfig), groovyCompilerConfig, classLoader, errorCollector);
+        this.file = resource;
+        this.resolver = resolver;
+        this.contents = contents;
+    }
+
     /**
      * Will be null if workspace is closed (ie- batch compilation mode)
      */
@@ -50,6 +71,11 @@ public class EclipseSourceUnit extends SourceUnit {
         return file;
     }
 
+    @Override
+    public char[] getContents() {
+        return contents;
+    }
+
     @Override
     public void convert() throws CompilationFailedException {
         super.convert();
@@ -60,4 +86,34 @@ public class EclipseSourceUnit extends SourceUnit {
     public String toString() {
         return "EclipseSourceUnit(" + name + ")";
     }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * Reads the characters held by JDT, like a {@code StringReaderSource} does
+     * for a String.
+     */
+    private static class CharArrayReaderSource extends AbstractReaderSource {
+        private final char[] contents;
+
+        CharArrayReaderSource(char[] contents, CompilerConfiguration configuration) {
+            super(configuration);
+            this.contents = contents;
+        }
+
+        public Reader getReader() throws IOException {
+            return new CharArrayReader(contents);
+        }
+
+        /**
+         * Returns a Data URI (RFC 2397) containing the literal value of the source.
+         */
+        public URI getURI() {
+            try {
+                return new URI("data", "," + new String(contents), null);
+            } catch (URISyntaxException e) {
+                return null;
+            }
+        }
+    }
 }
@@ -16,6 +16,7 @@
 package org.codehaus.jdt.groovy.integration.internal;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.codehaus.jdt.groovy.integration.ISupplementalIndexer;
@@ -24,32 +25,161 @@ import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
 
 /**
+ * Indexes the names in the constant pool of a class file, since Groovy method
+ * calls and property accesses are dynamically dispatched by name.  Each Utf8
+ * entry made of identifier characters and dots is split on the dots.
+ * <p>
+ * Entries are checked and split in place in the bytes of the class file; char
+ * arrays are made only for the pieces that are added to the index.  Classes
+ * without any string constant, invokedynamic call site or annotation have
+ * nothing to dispatch by name, and are skipped.  Annotations count since the
+ * string values of their elements are Utf8 entries with no string constant.
+ *
  * @author Andrew Eisenberg
  * @created 2013-04-30
  */
 public class BinaryGroovySupplementalIndexer implements ISupplementalIndexer {
 
+    // not in ClassFileConstants of the older JDT patches
+    private static final int InvokeDynamicTag = 18;
+
+    // attributes whose element values may be strings; the type annotations are not in AttributeNamesConstants of the older JDT patches
+    private static final byte[][] ANNOTATION_ATTRIBUTE_NAMES = {
+        bytes("AnnotationDefault"),
+        bytes("RuntimeInvisibleAnnotations"),
+        bytes("RuntimeInvisibleParameterAnnotations"),
+        bytes("RuntimeInvisibleTypeAnnotations"),
+        bytes("RuntimeVisibleAnnotations"),
+        bytes("RuntimeVisibleParameterAnnotations"),
+        bytes("RuntimeVisibleTypeAnnotations"),
+    };
+
     public List<char[]> extractNamedReferences(byte[] contents, ClassFileReader reader) {
         int[] constantPoolOffsets = reader.getConstantPoolOffsets();
         int constantPoolCount = constantPoolOffsets.length;
-        List<char[]> refs = new ArrayList<char[]>();
+        if (!hasDynamicNames(contents, constantPoolOffsets)) {
+            return Collections.emptyList();
+        }
+        List<char[]> refs = null;
         for (int i = 1; i < constantPoolCount; i++) {
-            int tag = reader.u1At(constantPoolOffsets[i]);
-            switch (tag) {
-                case ClassFileConstants.Utf8Tag:
-                    char[] strConst = extractStringConstant(constantPoolOffsets, reader, i);
+            int offset = constantPoolOffsets[i];
+            if (offset > 0 && contents[offset] == ClassFileConstants.Utf8Tag) {
+                int strlen = u2At(contents, offset + 1); // +1 for the tag type
+                int strstart = offset + 3; // +1 for the tag type and +2 for the strlen
+                switch (checkId(contents, strstart, strlen)) {
+                case ASCII_ID:
+                    refs = addSplits(refs, contents, strstart, strlen);
+                    break;
+                case NON_ASCII:
+                    // rare enough to decode the entry and check its chars
+                    char[] strConst = reader.utf8At(strstart, strlen);
                     if (isValidId(strConst)) {
-                        char[][] splits = CharOperation.splitOn('.', strConst);
-                        for (char[] split : splits) {
-                            refs.add(split);
-                        }
+                        refs = addSplits(refs, strConst);
                     }
+                    break;
+                }
             }
         }
+        if (refs == null) {
+            return Collections.emptyList();
+        }
         return refs;
     }
 
-    private boolean isValidId(char[] strConst) {
+    //--------------------------------------------------------------------------
+
+    private static final int NOT_ID = 0, ASCII_ID = 1, NON_ASCII = 2;
+
+    /**
+     * Tells whether the constant pool has a string constant, an invokedynamic
+     * call site or the name of an annotation attribute, any of which may name a
+     * dynamically dispatched member.
+     */
+    private static boolean hasDynamicNames(byte[] contents, int[] constantPoolOffsets) {
+        for (int i = 1, n = constantPoolOffsets.length; i < n; i++) {
+            int offset = constantPoolOffsets[i];
+            if (offset > 0) { // the slot after a long or a double is empty
+                int tag = contents[offset];
+                if (tag == ClassFileConstants.StringTag || tag == InvokeDynamicTag ||
+                        (tag == ClassFileConstants.Utf8Tag && isAnnotationAttributeName(contents, offset + 3, u2At(contents, offset + 1)))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAnnotationAttributeName(byte[] contents, int start, int length) {
+        names: for (byte[] name : ANNOTATION_ATTRIBUTE_NAMES) {
+            if (name.length == length) {
+                for (int i = 0; i < length; i++) {
+                    if (contents[start + i] != name[i]) {
+                        continue names;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks the bytes of a Utf8 entry like {@link #isValidId} checks chars,
+     * as long as the bytes are ASCII, which they are for nearly every entry.
+     */
+    private static int checkId(byte[] contents, int start, int length) {
+        if (length == 0) {
+            return NOT_ID;
+        }
+        for (int i = start, end = start + length; i < end; i++) {
+            byte b = contents[i];
+            if (b < 0) {
+                return NON_ASCII;
+            }
+            char c = (char) b;
+            boolean valid = (i == start ? Character.isJavaIdentifierStart(c) : Character.isJavaIdentifierPart(c));
+            if (!(valid || c == '.') || c == '$') {
+                // a non-ASCII char further on cannot make the entry valid
+                return NOT_ID;
+            }
+        }
+        return ASCII_ID;
+    }
+
+    private static List<char[]> addSplits(List<char[]> refs, byte[] contents, int start, int length) {
+        int from = start;
+        for (int i = start, end = start + length; i <= end; i++) {
+            if (i == end || contents[i] == '.') {
+                if (i > from) {
+                    char[] split = new char[i - from];
+                    for (int j = 0; j < split.length; j++) {
+                        split[j] = (char) contents[from + j];
+                    }
+                    if (refs == null) {
+                        refs = new ArrayList<char[]>();
+                    }
+                    refs.add(split);
+                }
+                from = i + 1;
+            }
+        }
+        return refs;
+    }
+
+    private static List<char[]> addSplits(List<char[]> refs, char[] strConst) {
+        char[][] splits = CharOperation.splitOn('.', strConst);
+        for (char[] split : splits) {
+            if (split.length > 0) {
+                if (refs == null) {
+                    refs = new ArrayList<char[]>();
+                }
+                refs.add(split);
+            }
+        }
+        return refs;
+    }
+
+    private static boolean isValidId(char[] strConst) {
         if (strConst == null || strConst.length == 0) {
             return false;
         }
@@ -64,9 +194,15 @@ public class BinaryGroovySupplementalIndexer implements ISupplementalIndexer {
         return true;
     }
 
-    private char[] extractStringConstant(int[] constantPoolOffsets, ClassFileReader reader, int index) {
-        int strlen = reader.u2At(constantPoolOffsets[index] + 1); // / +1 for the tag type
-        int strstart = constantPoolOffsets[index] + 3; // +1 for the tag type and +2 for the strlen
-        return reader.utf8At(strstart, strlen);
+    private static byte[] bytes(String ascii) {
+        byte[] bytes = new byte[ascii.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ascii.charAt(i);
+        }
+        return bytes;
+    }
+
+    private static int u2At(byte[] contents, int offset) {
+        return ((contents[offset] & 0xFF) << 8) + (contents[offset + 1] & 0xFF);
     }
 }
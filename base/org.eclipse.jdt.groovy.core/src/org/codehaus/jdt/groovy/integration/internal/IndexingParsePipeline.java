@@ -0,0 +1,256 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.integration.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.IProblemFactory;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+import org.eclipse.jdt.internal.core.BasicCompilationUnit;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * Parses the Groovy documents that are scheduled for indexing on a few threads
+ * of a shared pool, ahead of the indexing jobs.  Only parsing is moved off of
+ * the indexing thread: it still visits each declaration and writes the index,
+ * one document at a time and in the order of the jobs.
+ * <p>
+ * Parses are started for at most {@link #WINDOW} documents ahead of the job
+ * being run, so the declarations waiting for their jobs stay few however many
+ * documents are scheduled.  Workers return their thread to the pool when there
+ * is nothing to parse, and a document whose job is cancelled is dropped.  The
+ * number of threads, for all pipelines together, can be set with
+ * {@code -Dgreclipse.indexing.threads=N}; zero turns the pipeline off.
+ */
+final class IndexingParsePipeline {
+
+    static final int THREADS = Integer.getInteger("greclipse.indexing.threads", Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    static final int WINDOW = THREADS * 4;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final AtomicInteger takenCount = new AtomicInteger();
+    private static ExecutorService workerPool;
+
+    private final CompilerOptions options;
+    private final IProblemFactory problemFactory;
+
+    /** Scheduled documents by path, in the order they were scheduled; guarded by {@code this}. */
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+    private int started, workers;
+
+    IndexingParsePipeline(CompilerOptions options, IProblemFactory problemFactory) {
+        this.options = options;
+        this.problemFactory = problemFactory;
+    }
+
+    /**
+     * Queues a document for parsing; a document queued again replaces its
+     * previous entry.
+     */
+    synchronized void schedule(IFile file) {
+        String path = file.getFullPath().toString();
+        discard(entries.remove(path));
+        entries.put(path, new Entry(file, path));
+        startWorkers();
+    }
+
+    /**
+     * Drops the document whose indexing job was cancelled, and the declaration
+     * parsed for it if any.
+     */
+    synchronized void cancel(String path) {
+        discard(entries.remove(path));
+    }
+
+    /**
+     * Returns the declaration parsed for the given unit, or {@code null} if the
+     * unit was not scheduled or its contents have changed since it was read.
+     * Entries scheduled before the unit are dropped, as their jobs have passed.
+     */
+    GroovyCompilationUnitDeclaration take(ICompilationUnit unit) {
+        String path = new String(unit.getFileName());
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(path);
+            if (entry == null) {
+                return null;
+            }
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+                Entry next = it.next();
+                it.remove();
+                if (next == entry) {
+                    break;
+                }
+                discard(next);
+            }
+            if (entry.started) {
+                started -= 1;
+            }
+            startWorkers();
+        }
+
+        entry.task.run(); // parses on this thread if no worker has got to it
+        Parsed parsed;
+        try {
+            parsed = entry.task.get();
+        } catch (ExecutionException e) {
+            return null; // parse again on the indexing thread, which reports the failure
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (!CharOperation.equals(parsed.contents, unit.getContents())) {
+            return null;
+        }
+        if (parsed.thread != Thread.currentThread()) {
+            takenCount.incrementAndGet();
+        }
+        parsed.declaration.compilationResult.compilationUnit = unit;
+        return parsed.declaration;
+    }
+
+    /**
+     * Returns the number of declarations that were parsed by a worker and then
+     * taken for indexing, since startup.
+     */
+    static int getTakenCount() {
+        return takenCount.get();
+    }
+
+    //--------------------------------------------------------------------------
+
+    private void discard(Entry entry) {
+        if (entry != null) {
+            if (entry.started) {
+                started -= 1;
+            }
+            entry.task.cancel(false);
+        }
+    }
+
+    private void startWorkers() {
+        int waiting = entries.size() - started;
+        while (workers < THREADS && workers < waiting && started + workers < WINDOW) {
+            workers += 1;
+            try {
+                getWorkerPool().execute(new Runnable() {
+                    public void run() {
+                        Entry entry;
+                        while ((entry = nextEntry()) != null) {
+                            entry.task.run();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // all threads are busy, possibly for another project; the indexing thread parses what is left
+                workers -= 1;
+                break;
+            }
+        }
+    }
+
+    private static synchronized ExecutorService getWorkerPool() {
+        if (workerPool == null) {
+            workerPool = new ThreadPoolExecutor(0, THREADS, 10, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Groovy indexing parser " + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return workerPool;
+    }
+
+    private synchronized Entry nextEntry() {
+        if (started < WINDOW) {
+            for (Entry entry : entries.values()) {
+                if (!entry.started) {
+                    entry.started = true;
+                    started += 1;
+                    return entry;
+                }
+            }
+        }
+        workers -= 1;
+        return null;
+    }
+
+    private Parsed parse(IFile file, String path) throws Exception {
+        char[] contents = Util.getResourceContentsAsCharArray(file);
+        ICompilationUnit unit = new BasicCompilationUnit(contents, null, path);
+        // problem reporters are not thread-safe, so each parse has its own
+        ProblemReporter problemReporter = new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(), options, problemFactory);
+        CompilationResult compilationResult = new CompilationResult(unit, 0, 0, options.maxProblemsPerUnit);
+
+        long start = System.nanoTime();
+        GroovyParser groovyParser = GroovyParser.acquireIndexingParser(options, problemReporter);
+        try {
+            Parsed parsed = new Parsed();
+            parsed.thread = Thread.currentThread();
+            parsed.contents = contents;
+            parsed.declaration = (GroovyCompilationUnitDeclaration) groovyParser.dietParse(unit, compilationResult);
+            if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.COMPILER, "Parsed " + path + " for indexing on " +
+                        Thread.currentThread().getName() + " in " + (System.nanoTime() - start) / 1000 + "us");
+            }
+            return parsed;
+        } finally {
+            GroovyParser.releaseIndexingParser(groovyParser);
+        }
+    }
+
+    private final class Entry {
+        final FutureTask<Parsed> task;
+        boolean started;
+
+        Entry(final IFile file, final String path) {
+            task = new FutureTask<Parsed>(new Callable<Parsed>() {
+                public Parsed call() throws Exception {
+                    return parse(file, path);
+                }
+            });
+        }
+    }
+
+    private static final class Parsed {
+        Thread thread;
+        char[] contents;
+        GroovyCompilationUnitDeclaration declaration;
+    }
+}
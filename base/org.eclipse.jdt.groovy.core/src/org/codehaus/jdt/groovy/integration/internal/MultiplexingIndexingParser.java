@@ -19,6 +19,7 @@ import java.util.Collections;
 
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
@@ -44,6 +45,8 @@ public class MultiplexingIndexingParser extends IndexingParser {
     SourceElementNotifier notifier;
     boolean groovyReportReferenceInfo;
     ISourceElementRequestor requestor;
+    private IProblemFactory problemFactory;
+    private volatile IndexingParsePipeline pipeline;
 
     public MultiplexingIndexingParser(ISourceElementRequestor requestor, IProblemFactory problemFactory, CompilerOptions options,
             boolean reportLocalDeclarations, boolean optimizeStringLiterals, boolean useSourceJavadocParser) {
@@ -51,6 +54,34 @@ public class MultiplexingIndexingParser extends IndexingParser {
         this.notifier = (SourceElementNotifier) ReflectionUtils.getPrivateField(SourceElementParser.class, "notifier", this);
         this.groovyReportReferenceInfo = reportLocalDeclarations;
         this.requestor = requestor;
+        this.problemFactory = problemFactory;
+    }
+
+    @Override
+    public void documentScheduled(IFile resource) {
+        if (IndexingParsePipeline.THREADS > 0 && ContentTypeUtils.isGroovyLikeFileName(resource.getName())) {
+            synchronized (this) {
+                if (pipeline == null) {
+                    pipeline = new IndexingParsePipeline(this.options, problemFactory);
+                }
+            }
+            pipeline.schedule(resource);
+        }
+    }
+
+    @Override
+    public void documentCancelled(String path) {
+        if (pipeline != null) {
+            pipeline.cancel(path);
+        }
+    }
+
+    /**
+     * Returns the number of Groovy documents that were parsed ahead of their
+     * indexing jobs and then indexed, since startup.
+     */
+    public static int getPipelinedParseCount() {
+        return IndexingParsePipeline.getTakenCount();
     }
 
     @Override
@@ -68,13 +99,20 @@ public class MultiplexingIndexingParser extends IndexingParser {
             // 2) parsing is for the entire CU (ie- from character 0, to unit.getContents().length)
             // 3) nodesToCategories map is not necessary. I think it has something to do with JavaDoc, but not sure
 
-            CompilationResult compilationResult = new CompilationResult(unit, 0, 0, this.options.maxProblemsPerUnit);
+            // documents scheduled through this parser may have been parsed already; the index is written here, in job order
+            GroovyCompilationUnitDeclaration cud = (pipeline != null ? pipeline.take(unit) : null);
+            if (cud == null) {
+                CompilationResult compilationResult = new CompilationResult(unit, 0, 0, this.options.maxProblemsPerUnit);
 
-            // FIXASC Is it ok to use a new parser here everytime? If we don't we sometimes recurse back into the first one
-            GroovyCompilationUnitDeclaration cud = (GroovyCompilationUnitDeclaration) new GroovyParser(this.options,
-                    problemReporter, false, true).dietParse(unit, compilationResult);
+                // parsers are taken from a pool of the project rather than shared, since we sometimes recurse back into this method
+                GroovyParser groovyParser = GroovyParser.acquireIndexingParser(this.options, problemReporter);
+                try {
+                    cud = (GroovyCompilationUnitDeclaration) groovyParser.dietParse(unit, compilationResult);
+                } finally {
+                    GroovyParser.releaseIndexingParser(groovyParser);
+                }
+            }
 
-            // CompilationUnitDeclaration cud groovyParser.dietParse(sourceUnit, compilationResult);
             HashtableOfObjectToInt sourceEnds = createSourceEnds(cud);
             GroovyIndexingVisitor visitor = new GroovyIndexingVisitor(requestor);
             visitor.doVisit(cud.getModuleNode(), cud.currentPackage);
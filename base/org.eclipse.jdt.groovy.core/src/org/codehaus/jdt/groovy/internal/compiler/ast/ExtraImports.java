@@ -0,0 +1,168 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Parsed form of the {@link org.eclipse.jdt.internal.compiler.impl.CompilerOptions#groovyExtraImports groovyExtraImports}
+ * compiler option.  The spec has the form {@code 'com.foo.*,com.bar.MyType;.gradle=com.this.*,com.foo.Type as Alias'}.
+ * Instances are immutable and shared by all resolvers and scopes that see the same option value.
+ * <p>
+ * The file suffix qualifiers are kept, but like before they do not limit the
+ * files that see an import.  Single-type imports are found by simple name or
+ * alias in one lookup; their position tells a resolver which on-demand
+ * imports, declared before them, come first.
+ */
+public final class ExtraImports {
+
+    private static final ConcurrentMap<String, ExtraImports> CACHE = new ConcurrentHashMap<String, ExtraImports>();
+
+    /**
+     * @return the parsed form of {@code spec} or {@code null} if the spec is {@code null}
+     */
+    public static ExtraImports forSpec(String spec) {
+        if (spec == null) {
+            return null;
+        }
+        ExtraImports imports = CACHE.get(spec);
+        if (imports == null) {
+            if (CACHE.size() > 64) {
+                // option values change rarely; keep this from growing without bound
+                CACHE.clear();
+            }
+            imports = new ExtraImports(spec);
+            ExtraImports existing = CACHE.putIfAbsent(spec, imports);
+            if (existing != null) {
+                imports = existing;
+            }
+        }
+        return imports;
+    }
+
+    /**
+     * A single import of the spec: either an on-demand import or a single-type
+     * import, which may have an alias.
+     */
+    public static final class Import {
+        Import(int position, String suffix, String name, boolean onDemand, String alias) {
+            this.position = position;
+            this.suffix = suffix;
+            this.name = name;
+            this.onDemand = onDemand;
+            this.alias = alias;
+        }
+
+        /** Index of the import in the spec, counted over all sections. */
+        public final int position;
+
+        /** The file suffix qualifier, or {@code null} if the import is unqualified. */
+        public final String suffix;
+
+        /** Package name (without {@code ".*"}) of an on-demand import, or fully-qualified name of a single-type import. */
+        public final String name;
+
+        public final boolean onDemand;
+
+        /** The alias of a single-type import, or {@code null} if there is none. */
+        public final String alias;
+    }
+
+    /** Imports of every suffix section, in declaration order. */
+    private final List<Import> imports;
+
+    /** On-demand imports of every suffix section, in declaration order. */
+    private final List<Import> onDemandImports;
+
+    /** Single-type imports by simple name and by alias; the first one declared for a name wins. */
+    private final Map<String, Import> singleTypeImports;
+
+    private ExtraImports(String spec) {
+        List<Import> imports = new ArrayList<Import>();
+        List<Import> onDemandImports = new ArrayList<Import>();
+        Map<String, Import> singleTypeImports = new HashMap<String, Import>();
+
+        StringTokenizer st = new StringTokenizer(spec, ";");
+        while (st.hasMoreTokens()) {
+            String onesuffix = st.nextToken();
+            int equals = onesuffix.indexOf('=');
+            String suffix = null, elements = onesuffix;
+            if (equals != -1) {
+                suffix = onesuffix.substring(0, equals).trim();
+                elements = onesuffix.substring(equals + 1);
+            }
+            StringTokenizer st2 = new StringTokenizer(elements, ",");
+            while (st2.hasMoreTokens()) {
+                String nextElement = st2.nextToken().trim();
+                // One of two forms: a.b.c.* or a.b.c.Type (optionally followed by 'as Alias')
+                if (nextElement.endsWith(".*")) {
+                    Import onDemand = new Import(imports.size(), suffix, nextElement.substring(0, nextElement.length() - 2), true, null);
+                    imports.add(onDemand);
+                    onDemandImports.add(onDemand);
+                } else if (nextElement.length() > 0) {
+                    String typeName = nextElement, asName = null;
+                    int asIndex = typeName.indexOf(" as ");
+                    if (asIndex != -1) {
+                        asName = typeName.substring(asIndex + 4).trim();
+                        typeName = typeName.substring(0, asIndex).trim();
+                    }
+                    Import singleType = new Import(imports.size(), suffix, typeName, false, asName);
+                    imports.add(singleType);
+                    // the type is known by its own simple name too, as through the import bindings of the scope
+                    String simpleName = typeName.substring(typeName.lastIndexOf('.') + 1);
+                    if (!singleTypeImports.containsKey(simpleName)) {
+                        singleTypeImports.put(simpleName, singleType);
+                    }
+                    if (asName != null && !singleTypeImports.containsKey(asName)) {
+                        singleTypeImports.put(asName, singleType);
+                    }
+                }
+            }
+        }
+
+        this.imports = Collections.unmodifiableList(imports);
+        this.onDemandImports = Collections.unmodifiableList(onDemandImports);
+        this.singleTypeImports = singleTypeImports;
+    }
+
+    /**
+     * @return the on-demand and single-type imports of all sections, in the order they are declared
+     */
+    public List<Import> getImports() {
+        return imports;
+    }
+
+    /**
+     * @return the on-demand imports of all sections, in the order they are declared
+     */
+    public List<Import> getOnDemandImports() {
+        return onDemandImports;
+    }
+
+    /**
+     * @return the first single-type import of {@code simpleName} or aliased as {@code simpleName}, or {@code null} if there is none
+     */
+    public Import getSingleTypeImport(String simpleName) {
+        return singleTypeImports.get(simpleName);
+    }
+}
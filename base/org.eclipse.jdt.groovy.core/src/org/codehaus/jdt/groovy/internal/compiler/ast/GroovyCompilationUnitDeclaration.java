@@ -173,6 +173,10 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
     private boolean isScript = false;
     private TraitHelper traitHelper = new TraitHelper();
     private static final boolean DEBUG_TASK_TAGS = false;
+    // Finds the task tags of the most recently seen compiler options
+    private static volatile TaskTagMatcher taskTagMatcher;
+    // Time taken by generateCode to emit the class files of this unit, in nanoseconds
+    private long codeGenerationTime = -1;
 
     public GroovyCompilationUnitDeclaration(
             ProblemReporter problemReporter,
@@ -198,13 +202,13 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
      */
     public boolean processToPhase(int phase) {
         // GRECLIPSE-1776 start
-        // Try to discard cached class loaders for traits
-        if (phase == Phases.CANONICALIZATION) {
-            for (ModuleNode module : groovyCompilationUnit.getAST().getModules()) {
+        // Discard the cached class loaders that may hold stale helper classes of traits being compiled into this project
+        if (phase == Phases.CANONICALIZATION && compilerOptions != null && compilerOptions.groovyProjectName != null) {
+            search: for (ModuleNode module : groovyCompilationUnit.getAST().getModules()) {
                 for (ClassNode classNode : module.getClasses()) {
                     if (traitHelper.isTrait(classNode)) {
-                        GroovyParser.tidyCache();
-                        break;
+                        GroovyParser.tidyCache(compilerOptions.groovyProjectName, compilerOptions.groovyExcludeGlobalASTScan);
+                        break search;
                     }
                 }
             }
@@ -307,6 +311,14 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
         return groovyCompilationUnit;
     }
 
+    /**
+     * Returns the time taken to emit the class files of this unit, in
+     * nanoseconds, or -1 if {@link #generateCode()} has not emitted any.
+     */
+    public long getCodeGenerationTime() {
+        return codeGenerationTime;
+    }
+
     /**
      * Populates the compilation unit based on the successful parse.
      */
@@ -344,69 +356,68 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
             // we have to do very little hunting for the binding and don't have to mess around with strings (chopping off
             // packages, etc).
 
-            // This returns all of them, for all source files
-            List<GroovyClass> classes = groovyCompilationUnit.getClasses();
+            // The compilation unit indexes the classes it generates by source, so only those of this groovySourceUnit are visited
+            List<GroovyClass> classes = groovyCompilationUnit.getClasses(groovySourceUnit);
 
             if (DEBUG) {
                 log("Processing sourceUnit " + groovySourceUnit.getName());
             }
 
+            long start = System.nanoTime();
             for (GroovyClass clazz : classes) {
                 ClassNode classnode = clazz.getClassNode();
                 if (DEBUG) {
                     log("Looking at class " + clazz.getName());
                     log("ClassNode where it came from " + classnode);
                 }
-                // Only care about those coming about because of this groovySourceUnit
-                if (clazz.getSourceUnit() == groovySourceUnit) {
-                    if (DEBUG) {
-                        log("It is from this source unit");
-                    }
-                    // Worth continuing
-                    String classname = clazz.getName();
-                    SourceTypeBinding binding = null;
-                    if (types != null && types.length != 0) {
-                        binding = findBinding(types, clazz.getClassNode());
-                    }
-                    if (DEBUG) {
-                        log("Binding located? " + (binding != null));
-                    }
-                    if (binding == null) {
-                        // closures will be represented as InnerClassNodes
-                        ClassNode current = classnode;
-                        while (current instanceof InnerClassNode && binding == null) {
-                            current = ((InnerClassNode) current).getOuterClass();
-                            binding = findBinding(types, current);
-                            if (DEBUG) {
-                                log("Had another look because it is in an InnerClassNode, found binding? " + (binding != null));
-                            }
+                String classname = clazz.getName();
+                SourceTypeBinding binding = null;
+                if (types != null && types.length != 0) {
+                    binding = findBinding(types, clazz.getClassNode());
+                }
+                if (DEBUG) {
+                    log("Binding located? " + (binding != null));
+                }
+                if (binding == null) {
+                    // closures will be represented as InnerClassNodes
+                    ClassNode current = classnode;
+                    while (current instanceof InnerClassNode && binding == null) {
+                        current = ((InnerClassNode) current).getOuterClass();
+                        binding = findBinding(types, current);
+                        if (DEBUG) {
+                            log("Had another look because it is in an InnerClassNode, found binding? " + (binding != null));
                         }
                     }
+                }
 
-                    boolean isScript = false;
-                    // Suppress class file output if it is a script
-                    // null binding implies synthetic type, which we assume cannot be a script
-                    if (binding != null && binding.scope != null && (binding.scope.parent instanceof GroovyCompilationUnitScope)) {
-                        GroovyCompilationUnitScope gcuScope = (GroovyCompilationUnitScope) binding.scope.parent;
-                        if (gcuScope.isScript()) {
-                            isScript = true;
-                        }
+                boolean isScript = false;
+                // Suppress class file output if it is a script
+                // null binding implies synthetic type, which we assume cannot be a script
+                if (binding != null && binding.scope != null && (binding.scope.parent instanceof GroovyCompilationUnitScope)) {
+                    GroovyCompilationUnitScope gcuScope = (GroovyCompilationUnitScope) binding.scope.parent;
+                    if (gcuScope.isScript()) {
+                        isScript = true;
                     }
-                    if (!isScript) {
-                        byte[] classbytes = clazz.getBytes();
-                        String path = clazz.getName().replace('.', '/');
-                        GroovyClassFile classFile = new GroovyClassFile(classname, classbytes, binding, path);
-                        char[] classNameChars = classname.toCharArray();
-                        if (binding == null) {
-                            // GRECLIPSE-1653 this type likely added by AST transform and is synthetic
-                            Map<char[], ClassFile> compiledTypes = Map.class.cast(compilationResult.compiledTypes);
-                            compiledTypes.put(classNameChars, classFile);
-                        } else {
-                            compilationResult.record(classNameChars, classFile);
-                        }
+                }
+                if (!isScript) {
+                    byte[] classbytes = clazz.getBytes();
+                    String path = clazz.getName().replace('.', '/');
+                    GroovyClassFile classFile = new GroovyClassFile(classname, classbytes, binding, path);
+                    char[] classNameChars = classname.toCharArray();
+                    if (binding == null) {
+                        // GRECLIPSE-1653 this type likely added by AST transform and is synthetic
+                        Map<char[], ClassFile> compiledTypes = Map.class.cast(compilationResult.compiledTypes);
+                        compiledTypes.put(classNameChars, classFile);
+                    } else {
+                        compilationResult.record(classNameChars, classFile);
                     }
                 }
             }
+            codeGenerationTime = System.nanoTime() - start;
+            if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.COMPILER, "Emitted " + classes.size() + " class files for " +
+                    groovySourceUnit.getName() + " in " + (codeGenerationTime / 1000) + "us");
+            }
         } else {
             // GRECLIPSE-1773
             // We should create problem types if some types are not compiled successfully as it is done for Java types.
@@ -633,19 +644,14 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
         boolean caseSensitiveTags = this.compilerOptions.isTaskCaseSensitive;
         try {
             if (taskTags != null) {
+                TaskTagMatcher matcher = taskTagMatcher;
+                if (matcher == null || !matcher.isFor(taskTags, taskPriorities, caseSensitiveTags)) {
+                    taskTagMatcher = matcher = new TaskTagMatcher(taskTags, taskPriorities, caseSensitiveTags);
+                }
                 // For each comment find all task tags within it and cope with
                 for (Comment comment : comments) {
-                    List<TaskEntry> allTasksInComment = new ArrayList<TaskEntry>();
-                    for (int t = 0; t < taskTags.length; t++) {
-                        String taskTag = new String(taskTags[t]);
-                        String taskPriority = null;
-                        if (taskPriorities != null) {
-                            taskPriority = new String(taskPriorities[t]);
-                        }
-                        allTasksInComment.addAll(comment.getPositionsOf(taskTag, taskPriority,
-                                compilationResult.lineSeparatorPositions, caseSensitiveTags));
-                    }
-                    if (!allTasksInComment.isEmpty()) {
+                    List<TaskEntry> allTasksInComment = matcher.findTasks(comment, compilationResult.lineSeparatorPositions);
+                    if (allTasksInComment.size() > 1) {
                         // Need to check quickly for clashes
                         for (int t1 = 0; t1 < allTasksInComment.size(); t1++) {
                             for (int t2 = 0; t2 < allTasksInComment.size(); t2++) {
@@ -674,13 +680,13 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
                                 }
                             }
                         }
-                        for (TaskEntry taskEntry : allTasksInComment) {
-                            this.problemReporter.referenceContext = this;
-                            if (DEBUG_TASK_TAGS) {
-                                log("Adding task " + taskEntry.toString());
-                            }
-                            problemReporter.task(taskEntry.taskTag, taskEntry.getText(), taskEntry.taskPriority, taskEntry.start, taskEntry.getEnd());
+                    }
+                    for (TaskEntry taskEntry : allTasksInComment) {
+                        this.problemReporter.referenceContext = this;
+                        if (DEBUG_TASK_TAGS) {
+                            log("Adding task " + taskEntry.toString());
                         }
+                        problemReporter.task(taskEntry.taskTag, taskEntry.getText(), taskEntry.taskPriority, taskEntry.start, taskEntry.getEnd());
                     }
                 }
             }
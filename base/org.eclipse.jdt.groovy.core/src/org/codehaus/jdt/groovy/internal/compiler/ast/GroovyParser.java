@@ -21,10 +21,17 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarFile;
 
 import groovy.lang.GroovyClassLoader;
@@ -43,9 +50,14 @@ import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.jdt.groovy.control.EclipseSourceUnit;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.util.CompilerUtils;
 import org.eclipse.jdt.groovy.core.util.GroovyUtils;
@@ -79,6 +91,7 @@ public class GroovyParser {
     private String gclClasspath;
     private CompilationUnit compilationUnit;
     private CompilerOptions compilerOptions;
+    private GroovyClassLoader transformLoader;
 
     public CompilerOptions getCompilerOptions() {
         return compilerOptions;
@@ -94,6 +107,7 @@ public class GroovyParser {
 
     private static Map<String, PathLoaderPair> projectToLoaderCache = new ConcurrentHashMap<String, PathLoaderPair>();
     private static Map<String, ScriptFolderSelector> scriptFolderSelectorCache = new ConcurrentHashMap<String, ScriptFolderSelector>();
+    private static final AtomicInteger loaderCreationCount = new AtomicInteger();
 
     static class PathLoaderPair {
         String classpath;
@@ -102,9 +116,29 @@ public class GroovyParser {
         PathLoaderPair(String classpath) {
             this.classpath = classpath;
             this.groovyClassLoader = new GroovyClassLoader(createConfigureLoader(classpath));
+            loaderCreationCount.incrementAndGet();
+        }
+
+        boolean includesAny(Set<String> locations) {
+            StringTokenizer tokenizer = new StringTokenizer(classpath, File.pathSeparator);
+            while (tokenizer.hasMoreTokens()) {
+                if (locations.contains(tokenizer.nextToken())) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
+    /**
+     * Returns the number of transform class loaders created for projects since
+     * startup.  Each one reopens the jars of its project's classpath, so a count
+     * that keeps climbing across builds points to loaders being discarded.
+     */
+    public static int getLoaderCreationCount() {
+        return loaderCreationCount.get();
+    }
+
     /**
      * Close the jar files that have been kept open by the URLClassLoader
      */
@@ -141,7 +175,9 @@ public class GroovyParser {
     public static void tidyCache(String projectName) {
         // This will orphan the loader on the heap
         projectToLoaderCache.remove(projectName);
+        projectToParserPool.remove(projectName);
         scriptFolderSelectorCache.remove(projectName);
+        JDTResolver.clearSharedNodes(projectName);
     }
 
     public static void closeClassLoader(String projectName) {
@@ -152,10 +188,180 @@ public class GroovyParser {
     }
 
     /**
-     * Clears cached class loaders for all caches. It helps to fix problems with cached trait helper classes.
+     * Removes the cached class loaders that can see any output location of the
+     * project, so that classes compiled into it (like trait helper classes) are
+     * not served stale from a loader of this or a dependent project.  Loaders
+     * of other projects are kept.  If no location is known, all cached class
+     * loaders are removed.
+     *
+     * @param outputLocation the default output location of the project
+     */
+    static void tidyCache(String projectName, String outputLocation) {
+        Set<String> outputLocations = getOutputLocations(projectName, outputLocation);
+        if (outputLocations.isEmpty()) {
+            projectToLoaderCache.clear();
+            projectToParserPool.clear();
+            return;
+        }
+        for (Iterator<Map.Entry<String, PathLoaderPair>> it = projectToLoaderCache.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, PathLoaderPair> entry = it.next();
+            if (entry.getKey().equals(projectName) || entry.getValue().includesAny(outputLocations)) {
+                if (GroovyLogManager.manager.hasLoggers()) {
+                    GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM,
+                            "Discarding GroovyClassLoader of " + entry.getKey() + " for changes to " + outputLocations);
+                }
+                it.remove();
+                projectToParserPool.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Returns the file system locations of the default output folder and of the
+     * source folder specific output folders of the project, in the form they
+     * take on transform loader classpaths.
+     */
+    private static Set<String> getOutputLocations(String projectName, String outputLocation) {
+        Set<String> locations = new HashSet<String>();
+        if (outputLocation != null) {
+            locations.add(outputLocation);
+        }
+        if (ResourcesPlugin.getPlugin() != null) {
+            IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
+            IJavaProject javaProject = JavaCore.create(project);
+            if (javaProject.exists()) {
+                try {
+                    addOutputLocation(locations, javaProject.getOutputLocation(), project);
+                    for (IClasspathEntry entry : javaProject.getRawClasspath()) {
+                        if (entry.getEntryKind() == IClasspathEntry.CPE_SOURCE) {
+                            addOutputLocation(locations, entry.getOutputLocation(), project);
+                        }
+                    }
+                } catch (JavaModelException e) {
+                    // the default output location is all that is known
+                }
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Converts a workspace output path the way {@link CompilerUtils} does when
+     * it builds the transform loader classpath.
      */
-    static void tidyCache() {
-        projectToLoaderCache.clear();
+    private static void addOutputLocation(Set<String> locations, IPath path, IProject project) {
+        if (path == null) {
+            return;
+        }
+        IPath location;
+        if (!path.segment(0).equals(project.getName())) {
+            location = path;
+        } else if (path.segmentCount() == 1) {
+            location = project.getRawLocation();
+        } else {
+            location = project.getFile(path.removeFirstSegments(1)).getRawLocation();
+        }
+        if (location != null) {
+            locations.add(location.toOSString());
+        }
+    }
+
+    /*
+     * Indexing parses every Groovy source of a project on its own. Rather than create a parser, with its class loaders, compiler
+     * configuration, customizers and global transforms, for each source, parsers are pooled per project. A pooled parser is only
+     * reused for options that would give it the same configuration and while the project's transform loader is the one it uses.
+     */
+
+    private static final int PARSER_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static ConcurrentMap<String, Queue<GroovyParser>> projectToParserPool = new ConcurrentHashMap<String, Queue<GroovyParser>>();
+    private static final AtomicInteger indexingParserCreationCount = new AtomicInteger();
+
+    /**
+     * Returns a parser for indexing a source of the project named in the given
+     * options.  A parser of the project's pool is reset and reused if it fits
+     * the options; otherwise a new one is created.  The parser should be given
+     * back with {@link #releaseIndexingParser} once the source is indexed.
+     */
+    public static GroovyParser acquireIndexingParser(CompilerOptions options, ProblemReporter problemReporter) {
+        if (options.groovyProjectName != null) {
+            Queue<GroovyParser> pool = projectToParserPool.get(options.groovyProjectName);
+            if (pool != null) {
+                GroovyParser parser;
+                while ((parser = pool.poll()) != null) {
+                    if (parser.isReusableFor(options)) {
+                        parser.recycle(options, problemReporter);
+                        return parser;
+                    }
+                }
+            }
+        }
+        indexingParserCreationCount.incrementAndGet();
+        return new GroovyParser(options, problemReporter, false, true);
+    }
+
+    /**
+     * Gives back a parser obtained from {@link #acquireIndexingParser}.  It is
+     * kept for the next source of its project unless the pool is full or a grab
+     * has added to its class loader.
+     */
+    public static void releaseIndexingParser(GroovyParser parser) {
+        if (parser.projectName == null || parser.isGrabbed()) {
+            return;
+        }
+        Queue<GroovyParser> pool = projectToParserPool.get(parser.projectName);
+        if (pool == null) {
+            Queue<GroovyParser> newPool = new ConcurrentLinkedQueue<GroovyParser>();
+            pool = projectToParserPool.putIfAbsent(parser.projectName, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        if (pool.size() < PARSER_POOL_SIZE) {
+            pool.offer(parser);
+        }
+    }
+
+    /**
+     * Returns the number of parsers created by {@link #acquireIndexingParser}
+     * since startup, that is the number of times the pool could not be used.
+     */
+    public static int getIndexingParserCreationCount() {
+        return indexingParserCreationCount.get();
+    }
+
+    private boolean isReusableFor(CompilerOptions options) {
+        if (!same(gclClasspath, options.groovyClassLoaderPath) ||
+                !same(compilerOptions.groovyCustomizerClassesList, options.groovyCustomizerClassesList) ||
+                !same(compilerOptions.groovyTransformsToRunOnReconcile, options.groovyTransformsToRunOnReconcile) ||
+                !same(compilerOptions.groovyExcludeGlobalASTScan, options.groovyExcludeGlobalASTScan) ||
+                compilerOptions.groovyFlags != options.groovyFlags) {
+            return false;
+        }
+        if (gclClasspath != null) {
+            // the project's transform loader is replaced when its classpath changes or its classes are rebuilt
+            PathLoaderPair pathAndLoader = projectToLoaderCache.get(projectName);
+            if (pathAndLoader == null || pathAndLoader.groovyClassLoader != transformLoader) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void recycle(CompilerOptions options, ProblemReporter problemReporter) {
+        this.compilerOptions = options;
+        this.problemReporter = problemReporter;
+        this.compilationUnit.reset();
+        this.resolver = new JDTResolver(compilationUnit);
+        this.compilationUnit.setResolveVisitor(resolver);
+    }
+
+    private boolean isGrabbed() {
+        ClassLoader loader = compilationUnit.getClassLoader();
+        return (loader instanceof GrapeAwareGroovyClassLoader && ((GrapeAwareGroovyClassLoader) loader).grabbed);
+    }
+
+    private static boolean same(String one, String two) {
+        return (one == null ? two == null : one.equals(two));
     }
 
     private GroovyClassLoader gclForBatch = null;
@@ -213,7 +419,10 @@ public class GroovyParser {
                 } else {
                     if (!path.equals(pathAndLoader.classpath)) {
                         // classpath change detected
-                        // System.out.println("Classpath change detected for " + projectName);
+                        if (GroovyLogManager.manager.hasLoggers()) {
+                            GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM,
+                                    "Classpath change detected for " + projectName + "; creating GroovyClassLoader #" + (loaderCreationCount.get() + 1));
+                        }
                         pathAndLoader = new PathLoaderPair(path);
                         projectToLoaderCache.put(projectName, pathAndLoader);
                     }
@@ -243,6 +452,7 @@ public class GroovyParser {
         this.gclClasspath = (options == null ? null : options.groovyClassLoaderPath);
 
         GroovyClassLoader gcl = getLoaderFor(this.gclClasspath);
+        this.transformLoader = gcl;
         // ---
         // Status of transforms and reconciling: Oct-18-2011
         // Prior to 2.6.0 all transforms were turned OFF for reconciling, and by turned off that meant no phase
@@ -263,6 +473,7 @@ public class GroovyParser {
 
     public void reset() {
         GroovyClassLoader gcl = getLoaderFor(gclClasspath);
+        this.transformLoader = gcl;
         this.compilationUnit = makeCompilationUnit(
             new GrapeAwareGroovyClassLoader(gcl), gcl,
             this.compilationUnit.isReconcile,
@@ -385,7 +596,7 @@ public class GroovyParser {
             }
         }
 
-        SourceUnit groovySourceUnit = new EclipseSourceUnit(eclipseFile, filepath, new String(sourceCode),
+        SourceUnit groovySourceUnit = new EclipseSourceUnit(eclipseFile, filepath, sourceCode,
                 compilationUnit.getConfiguration(), compilationUnit.getClassLoader(), errorCollector, this.resolver);
         groovySourceUnit.isReconcile = compilationUnit.isReconcile;
         GroovyCompilationUnitDeclaration gcuDeclaration = new GroovyCompilationUnitDeclaration(problemReporter, compilationResult,
@@ -65,13 +65,15 @@ import org.eclipse.jdt.internal.compiler.lookup.ReferenceBinding;
 import org.eclipse.jdt.internal.compiler.lookup.SourceTypeBinding;
 import org.eclipse.jdt.internal.compiler.lookup.SyntheticMethodBinding;
 import org.eclipse.jdt.internal.compiler.lookup.TypeBinding;
+import org.eclipse.jdt.internal.compiler.lookup.TypeConstants;
 import org.eclipse.jdt.internal.compiler.lookup.TypeVariableBinding;
 
 /**
  * Groovy can use these to ask questions of JDT bindings. They are only built as
  * required (as groovy references to java files are resolved). They remain
  * uninitialized until groovy starts digging into them - at that time the details
- * are filled in (eg. members).
+ * are filled in (eg. members).  Members are converted one name at a time where
+ * possible; only requests for all methods or all fields convert every binding.
  */
 public class JDTClassNode extends ClassNode implements JDTNode {
 
@@ -94,6 +96,15 @@ public class JDTClassNode extends ClassNode implements JDTNode {
     private static final int PROPERTIES_INITIALIZED = 0x0002;
     private TypeDeclaration groovyDecl = null;
 
+    // Member flags (guarded by lazyInitLock)
+    private int memberBits = 0;
+    private static final int METHODS_INITIALIZED = 0x0001;
+    private static final int CONSTRUCTORS_INITIALIZED = 0x0002;
+    private static final int FIELDS_INITIALIZED = 0x0004;
+    private static final int METHODS_VERIFIED = 0x0008;
+    // names of the methods and fields converted individually, before all members were asked for
+    private Set<String> initializedSelectors, initializedFields;
+
     static final ClassNode unboundWildcard; // represents plain old '?'
 
     static final GenericsType genericsTypeUnboundWildcard;
@@ -242,86 +253,233 @@ public class JDTClassNode extends ClassNode implements JDTNode {
             }
         }
 
-        // We do this here rather than at the start of the method because
-        // the preceding code sets 'groovyDecl', later used to 'initializeProperties'.
+        // Fields, constructors and methods are converted on demand by the accessors below. Lookups by
+        // name only convert the bindings of that name; asking for all methods or fields converts the rest.
+
+        // The code in ClassNode seems set up to get member information *always* from the end of the 'redirect' chain.
+        // So, the redirect target should be responsible for its own members initialisation; the accessors only convert
+        // members when there is no redirect, otherwise duplicated members would be added to the redirect target.
+    }
 
-        // From this point onward... the code is only about initializing fields, constructors and methods.
-        if (redirect != null) {
-            // The code in ClassNode seems set up to get field information *always* from the end of the 'redirect' chain.
-            // So, the redirect target should be responsible for its own members initialisation.
+    @Override
+    public List<MethodNode> getMethods() {
+        if (redirect == null) {
+            lazyClassInit();
+            initializeMethods(null);
+        }
+        return super.getMethods();
+    }
 
-            // If we initialize members here again, when redirect target is already
-            // initialised then we will be adding duplicated methods to the redirect target.
+    @Override
+    public List<MethodNode> getDeclaredMethods(String name) {
+        if (redirect == null) {
+            lazyClassInit();
+            initializeMethods(name);
+        }
+        return super.getDeclaredMethods(name);
+    }
 
-            return;
+    @Override
+    public List<ConstructorNode> getDeclaredConstructors() {
+        if (redirect == null) {
+            lazyClassInit();
+            initializeConstructors();
+        }
+        return super.getDeclaredConstructors();
+    }
+
+    @Override
+    public List<FieldNode> getFields() {
+        if (redirect == null) {
+            lazyClassInit();
+            initializeFields(null);
+        }
+        return super.getFields();
+    }
+
+    @Override
+    public FieldNode getDeclaredField(String name) {
+        if (redirect == null) {
+            lazyClassInit();
+            initializeFields(name);
         }
+        return super.getDeclaredField(name);
+    }
 
-        MethodBinding[] bindings = null;
+    /**
+     * @return the binding that declares the members; for a parameterized type this is its generic type
+     */
+    private ReferenceBinding getMemberSource() {
         if (jdtBinding instanceof ParameterizedTypeBinding) {
-            ReferenceBinding genericType = ((ParameterizedTypeBinding) jdtBinding).genericType();
-            bindings = genericType.methods();
-        } else {
-            bindings = jdtBinding.methods();
-        }
-        if (bindings != null) {
-            for (int i = 0; i < bindings.length; i++) {
-                if (bindings[i].isConstructor()) {
-                    ConstructorNode cNode = constructorBindingToConstructorNode(bindings[i]);
-                    addConstructor(cNode);
-                } else {
-                    MethodNode mNode = methodBindingToMethodNode(bindings[i]);
-                    addMethod(mNode);
+            return ((ParameterizedTypeBinding) jdtBinding).genericType();
+        }
+        return jdtBinding;
+    }
+
+    /**
+     * @param name selector of the methods to convert, or {@code null} to convert all remaining methods
+     */
+    private void initializeMethods(String name) {
+        synchronized (lazyInitLock) {
+            if ((memberBits & METHODS_INITIALIZED) != 0) {
+                return;
+            }
+            if (name != null) {
+                if (initializedSelectors == null) {
+                    initializedSelectors = new HashSet<String>();
+                }
+                if (!initializedSelectors.add(name)) {
+                    return;
+                }
+                char[] selector = name.toCharArray();
+                MethodBinding[] bindings = getMemberSource().getMethods(selector);
+                if (bindings != null) {
+                    for (MethodBinding binding : bindings) {
+                        if (!binding.isConstructor()) {
+                            addMethod(methodBindingToMethodNode(binding));
+                        }
+                    }
+                }
+                if (jdtBinding instanceof BinaryTypeBinding) {
+                    for (MethodBinding binding : ((BinaryTypeBinding) jdtBinding).infraMethods()) {
+                        if (!binding.isConstructor() && CharOperation.equals(selector, binding.selector)) {
+                            addMethod(methodBindingToMethodNode(binding));
+                        }
+                    }
+                }
+                // bridge methods of this name exist only once the methods have been verified, as for all methods below
+                if (jdtBinding instanceof SourceTypeBinding) {
+                    verifyMethods();
+                    SyntheticMethodBinding[] syntheticMethodBindings = ((SourceTypeBinding) jdtBinding).syntheticMethods();
+                    if (syntheticMethodBindings != null) {
+                        for (SyntheticMethodBinding binding : syntheticMethodBindings) {
+                            if (!binding.isConstructor() && CharOperation.equals(selector, binding.selector)) {
+                                addMethod(methodBindingToMethodNode(binding));
+                            }
+                        }
+                    }
+                }
+                return;
+            }
+            memberBits |= METHODS_INITIALIZED;
+
+            MethodBinding[] bindings = getMemberSource().methods();
+            if (bindings != null) {
+                for (MethodBinding binding : bindings) {
+                    if (!binding.isConstructor() && !isInitialized(binding)) {
+                        addMethod(methodBindingToMethodNode(binding));
+                    }
                 }
             }
-        }
-        if (jdtBinding instanceof BinaryTypeBinding) {
-            MethodBinding[] infraBindings = ((BinaryTypeBinding) jdtBinding).infraMethods();
-            for (int i = 0; i < infraBindings.length; i++) {
-                if (infraBindings[i].isConstructor()) {
-                    ConstructorNode cNode = constructorBindingToConstructorNode(infraBindings[i]);
-                    addConstructor(cNode);
-                } else {
-                    MethodNode mNode = methodBindingToMethodNode(infraBindings[i]);
-                    addMethod(mNode);
+            if (jdtBinding instanceof BinaryTypeBinding) {
+                for (MethodBinding binding : ((BinaryTypeBinding) jdtBinding).infraMethods()) {
+                    if (!binding.isConstructor() && !isInitialized(binding)) {
+                        addMethod(methodBindingToMethodNode(binding));
+                    }
+                }
+            }
+            // Synthetic bindings are created for features like covariance, where the method implementing an interface method uses a
+            // different return type (interface I { A foo(); } class C implements I { AA foo(); } - this needs a method 'A foo()' in C.
+            if (jdtBinding instanceof SourceTypeBinding) {
+                verifyMethods();
+                SyntheticMethodBinding[] syntheticMethodBindings = ((SourceTypeBinding) jdtBinding).syntheticMethods();
+                if (syntheticMethodBindings != null) {
+                    for (SyntheticMethodBinding binding : syntheticMethodBindings) {
+                        if (!binding.isConstructor() && !isInitialized(binding)) {
+                            addMethod(methodBindingToMethodNode(binding));
+                        }
+                    }
                 }
             }
         }
-        // Synthetic bindings are created for features like covariance, where the method implementing an interface method uses a
-        // different return type (interface I { A foo(); } class C implements I { AA foo(); } - this needs a method 'A foo()' in C.
-        if (jdtBinding instanceof SourceTypeBinding) {
-            SourceTypeBinding jdtSourceTypeBinding = (SourceTypeBinding) jdtBinding;
-            ClassScope classScope = jdtSourceTypeBinding.scope;
-            // a null scope indicates it has already been 'cleaned up' so nothing to do (CUDeclaration.cleanUp())
-            if (classScope != null) {
-                CompilationUnitScope cuScope = classScope.compilationUnitScope();
-                LookupEnvironment environment = classScope.environment();
-                MethodVerifier verifier = environment.methodVerifier();
-                cuScope.verifyMethods(verifier);
+    }
+
+    /**
+     * Verifies the methods of the compilation unit of this source type, once
+     * for this node, so that its synthetic bridge methods exist.
+     */
+    private void verifyMethods() {
+        if ((memberBits & METHODS_VERIFIED) != 0) {
+            return;
+        }
+        memberBits |= METHODS_VERIFIED;
+
+        ClassScope classScope = ((SourceTypeBinding) jdtBinding).scope;
+        // a null scope indicates it has already been 'cleaned up' so nothing to do (CUDeclaration.cleanUp())
+        if (classScope != null) {
+            CompilationUnitScope cuScope = classScope.compilationUnitScope();
+            LookupEnvironment environment = classScope.environment();
+            MethodVerifier verifier = environment.methodVerifier();
+            cuScope.verifyMethods(verifier);
+        }
+    }
+
+    private boolean isInitialized(MethodBinding binding) {
+        return initializedSelectors != null && initializedSelectors.contains(String.valueOf(binding.selector));
+    }
+
+    private void initializeConstructors() {
+        synchronized (lazyInitLock) {
+            if ((memberBits & CONSTRUCTORS_INITIALIZED) != 0) {
+                return;
             }
-            SyntheticMethodBinding[] syntheticMethodBindings = ((SourceTypeBinding) jdtBinding).syntheticMethods();
-            if (syntheticMethodBindings != null) {
-                for (int i = 0; i < syntheticMethodBindings.length; i++) {
-                    if (syntheticMethodBindings[i].isConstructor()) {
-                        ConstructorNode cNode = constructorBindingToConstructorNode(bindings[i]);
-                        addConstructor(cNode);
-                    } else {
-                        MethodNode mNode = methodBindingToMethodNode(syntheticMethodBindings[i]);
-                        addMethod(mNode);
+            memberBits |= CONSTRUCTORS_INITIALIZED;
+
+            MethodBinding[] bindings = getMemberSource().getMethods(TypeConstants.INIT);
+            if (bindings != null) {
+                for (MethodBinding binding : bindings) {
+                    addConstructor(constructorBindingToConstructorNode(binding));
+                }
+            }
+            if (jdtBinding instanceof BinaryTypeBinding) {
+                for (MethodBinding binding : ((BinaryTypeBinding) jdtBinding).infraMethods()) {
+                    if (binding.isConstructor()) {
+                        addConstructor(constructorBindingToConstructorNode(binding));
+                    }
+                }
+            }
+            if (jdtBinding instanceof SourceTypeBinding) {
+                SyntheticMethodBinding[] syntheticMethodBindings = ((SourceTypeBinding) jdtBinding).syntheticMethods();
+                if (syntheticMethodBindings != null) {
+                    for (SyntheticMethodBinding binding : syntheticMethodBindings) {
+                        if (binding.isConstructor()) {
+                            addConstructor(constructorBindingToConstructorNode(binding));
+                        }
                     }
                 }
             }
         }
+    }
 
-        FieldBinding[] fieldBindings = null;
-        if (jdtBinding instanceof ParameterizedTypeBinding) {
-            fieldBindings = ((ParameterizedTypeBinding) jdtBinding).genericType().fields();
-        } else {
-            fieldBindings = jdtBinding.fields();
-        }
-        if (fieldBindings != null) {
-            for (int i = 0; i < fieldBindings.length; i++) {
-                FieldNode fNode = fieldBindingToFieldNode(fieldBindings[i], groovyDecl);
-                addField(fNode);
+    /**
+     * @param name name of the field to convert, or {@code null} to convert all remaining fields
+     */
+    private void initializeFields(String name) {
+        synchronized (lazyInitLock) {
+            if ((memberBits & FIELDS_INITIALIZED) != 0) {
+                return;
+            }
+            if (name != null) {
+                if (initializedFields == null) {
+                    initializedFields = new HashSet<String>();
+                }
+                if (initializedFields.add(name)) {
+                    FieldBinding binding = getMemberSource().getField(name.toCharArray(), true);
+                    if (binding != null) {
+                        addField(fieldBindingToFieldNode(binding, groovyDecl));
+                    }
+                }
+                return;
+            }
+            memberBits |= FIELDS_INITIALIZED;
+
+            FieldBinding[] fieldBindings = getMemberSource().fields();
+            if (fieldBindings != null) {
+                for (FieldBinding binding : fieldBindings) {
+                    if (initializedFields == null || !initializedFields.contains(String.valueOf(binding.name))) {
+                        addField(fieldBindingToFieldNode(binding, groovyDecl));
+                    }
+                }
             }
         }
     }
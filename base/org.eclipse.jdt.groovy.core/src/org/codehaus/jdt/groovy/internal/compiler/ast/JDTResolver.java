@@ -15,6 +15,8 @@
  */
 package org.codehaus.jdt.groovy.internal.compiler.ast;
 
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -24,7 +26,8 @@ import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import groovy.lang.GroovyClassLoader;
 
@@ -34,12 +37,20 @@ import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.ResolveVisitor;
 import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser.GrapeAwareGroovyClassLoader;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.internal.compiler.ast.SingleTypeReference;
 import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
 import org.eclipse.jdt.internal.compiler.env.AccessRestriction;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.lookup.BinaryTypeBinding;
+import org.eclipse.jdt.internal.compiler.lookup.LookupEnvironment;
+import org.eclipse.jdt.internal.compiler.lookup.MissingTypeBinding;
+import org.eclipse.jdt.internal.compiler.lookup.ReferenceBinding;
+import org.eclipse.jdt.internal.compiler.lookup.SourceTypeBinding;
 import org.eclipse.jdt.internal.compiler.lookup.TypeBinding;
 import org.eclipse.jdt.internal.compiler.lookup.TypeIds;
 
@@ -134,6 +145,50 @@ public class JDTResolver extends ResolveVisitor {
 
     private Set<ClassNode> resolvedClassNodes = new HashSet<ClassNode>();
 
+    // Cache of JDT type lookups (by scope, then fully-qualified name); NOT_FOUND records a failed lookup
+    private Map<GroovyCompilationUnitScope, Map<String, ClassNode>> lookupCache = new IdentityHashMap<GroovyCompilationUnitScope, Map<String, ClassNode>>();
+    private static final ClassNode NOT_FOUND = ClassHelper.makeWithoutCaching("JDTResolver$NotFound");
+    private int lookupsAvoided, lookupsPerformed;
+
+    /*
+     * Nodes for binary types are shared by all the resolvers of a project that work against the same lookup environment (for
+     * example, the search engine creates a parser and resolver for each unit it matches). A node refers to bindings owned by
+     * its environment, so a project keeps one generation of shared nodes, keyed by type name and valid only for the exact
+     * binding they were built from; a resolver with a different environment or classpath starts a new generation.
+     */
+    private static final Map<String, SharedNodes> projectToSharedNodes = new ConcurrentHashMap<String, SharedNodes>();
+    private static final AtomicLong sharedHits = new AtomicLong(), sharedMisses = new AtomicLong();
+
+    static class SharedNodes {
+        SharedNodes(String classpath, LookupEnvironment environment, Map<String, JDTClassNode> nodes) {
+            this.classpath = classpath;
+            this.environment = new WeakReference<LookupEnvironment>(environment);
+            this.nodes = new SoftReference<Map<String, JDTClassNode>>(nodes);
+        }
+
+        final String classpath;
+        final WeakReference<LookupEnvironment> environment;
+        final SoftReference<Map<String, JDTClassNode>> nodes;
+    }
+
+    // this resolver's generation of shared nodes (if any)
+    private Map<String, JDTClassNode> sharedNodes;
+
+    /**
+     * Discards the shared binary type nodes of the given project.
+     */
+    public static void clearSharedNodes(String projectName) {
+        projectToSharedNodes.remove(projectName);
+    }
+
+    public static long getSharedNodeHitCount() {
+        return sharedHits.get();
+    }
+
+    public static long getSharedNodeMissCount() {
+        return sharedMisses.get();
+    }
+
     public JDTResolver(CompilationUnit groovyCompilationUnit) {
         super(groovyCompilationUnit);
         if (recordInstances) {
@@ -145,6 +200,12 @@ public class JDTResolver extends ResolveVisitor {
     }
 
     public void cleanUp() {
+        if (GroovyLogManager.manager.hasLoggers() && (lookupsPerformed + lookupsAvoided) > 0) {
+            GroovyLogManager.manager.log(TraceCategory.COMPILER, String.format(
+                "JDTResolver@%x: %d JDT type lookups performed, %d avoided", System.identityHashCode(this), lookupsPerformed, lookupsAvoided));
+            GroovyLogManager.manager.log(TraceCategory.COMPILER, String.format(
+                "JDTResolver: shared binary type nodes %d hits, %d misses", sharedHits.get(), sharedMisses.get()));
+        }
         inProgress.clear();
         //nodeCache.clear();
     }
@@ -181,7 +242,7 @@ public class JDTResolver extends ResolveVisitor {
         }
         if (activeScope != null) {
             // Ask JDT for a source file, visible from this scope
-            ClassNode node = activeScope.lookupClassNodeForSource(type.getName(), this);
+            ClassNode node = lookupClassNode(type.getName(), true);
             if (DEBUG) {
                 log("resolveFromCompileUnit (jdt) ", type, node != null);
             }
@@ -195,84 +256,24 @@ public class JDTResolver extends ResolveVisitor {
 
     @Override
     protected boolean resolveFromDefaultImports(ClassNode type, boolean testDefaultImports) {
-        boolean foundit = super.resolveFromDefaultImports(type, testDefaultImports);
+        boolean foundit = false;
         if (activeScope != null) {
-            // TODO need to refactor (duplicated in GroovyCompilationUnitScope)
             boolean b = testDefaultImports & !type.hasPackageName();
             // we do not resolve a vanilla name starting with a lower case letter
             // try to resolve against adefault import, because we know that the
             // default packages do not contain classes like these
             b &= !(type instanceof LowerCaseClass);
             if (b) {
-                String extraImports = activeScope.compilerOptions().groovyExtraImports;
+                ExtraImports extraImports = ExtraImports.forSpec(activeScope.compilerOptions().groovyExtraImports);
                 if (extraImports != null) {
-                    try {
-                        String filename = String.valueOf(activeScope.referenceContext.getFileName());
-                        // may be something to do
-                        StringTokenizer st = new StringTokenizer(extraImports, ";");
-                        // Form would be 'com.foo.*,com.bar.MyType;.gradle=com.this.*,com.foo.Type"
-                        // If there is no qualifying suffix it applies to all types
-
-                        while (st.hasMoreTokens()) {
-                            String onesuffix = st.nextToken();
-                            int equals = onesuffix.indexOf('=');
-                            @SuppressWarnings("unused")
-                            boolean shouldApply = false;
-                            String imports = null;
-                            if (equals == -1) {
-                                // definetly applies
-                                shouldApply = true;
-                                imports = onesuffix;
-                            } else {
-                                // need to check the suffix
-                                String suffix = onesuffix.substring(0, equals);
-                                shouldApply = filename.endsWith(suffix);
-                                imports = onesuffix.substring(equals + 1);
-                            }
-                            StringTokenizer st2 = new StringTokenizer(imports, ",");
-                            while (st2.hasMoreTokens()) {
-                                String nextElement = st2.nextToken();
-                                // One of two forms: a.b.c.* or a.b.c.Type
-                                if (nextElement.endsWith(".*")) {
-                                    String withoutStar = nextElement.substring(0, nextElement.length() - 1);
-                                    ConstructedClassWithPackage tmp = new ConstructedClassWithPackage(withoutStar, type.getName());
-                                    if (resolve(tmp, false, false, false)) {
-                                        type.setRedirect(tmp.redirect());
-                                        return true;
-                                    }
-                                } else {
-                                    String importedTypeName = nextElement;
-                                    int asIndex = importedTypeName.indexOf(" as ");
-                                    String asName = null;
-
-                                    if (asIndex != -1) {
-                                        asName = importedTypeName.substring(asIndex + 4).trim();
-                                        importedTypeName = importedTypeName.substring(0, asIndex).trim();
-                                    }
-                                    String typeName = type.getName();
-                                    if (importedTypeName.endsWith(typeName) || typeName.equals(asName)) {
-                                        int lastdot = importedTypeName.lastIndexOf('.');
-                                        String importTypeNameChopped = importedTypeName.substring(0, lastdot + 1);
-                                        if (typeName.equals(asName)) {
-                                            typeName = importedTypeName.substring(lastdot + 1);
-                                        }
-                                        ConstructedClassWithPackage tmp = new ConstructedClassWithPackage(importTypeNameChopped,
-                                                typeName);
-                                        if (resolve(tmp, false, false, false)) {
-                                            type.setRedirect(tmp.redirect());
-                                            return true;
-                                        }
-                                    }
-                                }
-                            }
-
-                        }
-                    } catch (Exception e) {
-                        new RuntimeException("Problem processing extraImports: " + extraImports, e).printStackTrace();
-                    }
+                    foundit = resolveFromExtraImports(type, extraImports);
                 }
             }
         }
+        // extra imports are tried first, so they take precedence over the default imports
+        if (!foundit) {
+            foundit = super.resolveFromDefaultImports(type, testDefaultImports);
+        }
 
         recordDependency(type.getName());
         if (DEBUG) {
@@ -281,6 +282,38 @@ public class JDTResolver extends ResolveVisitor {
         return foundit;
     }
 
+    /**
+     * Tries the extra imports in the order they are declared.  The single-type
+     * import of the simple name, if any, is found in one lookup and tried after
+     * the on-demand imports declared before it.
+     */
+    private boolean resolveFromExtraImports(ClassNode type, ExtraImports extraImports) {
+        String typeName = type.getName();
+        ExtraImports.Import singleType = extraImports.getSingleTypeImport(typeName);
+        for (ExtraImports.Import onDemand : extraImports.getOnDemandImports()) {
+            if (singleType != null && singleType.position < onDemand.position) {
+                if (resolveFromExtraImport(type, singleType.name)) {
+                    return true;
+                }
+                singleType = null;
+            }
+            if (resolveFromExtraImport(type, onDemand.name + '.' + typeName)) {
+                return true;
+            }
+        }
+        return singleType != null && resolveFromExtraImport(type, singleType.name);
+    }
+
+    private boolean resolveFromExtraImport(ClassNode type, String qualifiedName) {
+        int lastdot = qualifiedName.lastIndexOf('.');
+        ConstructedClassWithPackage tmp = new ConstructedClassWithPackage(qualifiedName.substring(0, lastdot + 1), qualifiedName.substring(lastdot + 1));
+        if (resolve(tmp, false, false, false)) {
+            type.setRedirect(tmp.redirect());
+            return true;
+        }
+        return false;
+    }
+
     @Override
     protected boolean resolveFromStaticInnerClasses(ClassNode type, boolean testStaticInnerClasses) {
         boolean foundit = super.resolveFromStaticInnerClasses(type, testStaticInnerClasses);
@@ -304,7 +337,7 @@ public class JDTResolver extends ResolveVisitor {
     protected boolean resolveToClass(ClassNode type) {
         ClassNode node;
         if (activeScope != null) {
-            node = activeScope.lookupClassNodeForBinary(type.getName(), this);
+            node = lookupClassNode(type.getName(), false);
             if (DEBUG) {
                 log("resolveToClass (jdt)", type, node != null);
             }
@@ -338,6 +371,45 @@ public class JDTResolver extends ResolveVisitor {
         return false;
     }
 
+    /**
+     * Asks JDT for the named type through the active scope.  Results (including
+     * failures) are remembered for the lifetime of this resolver, since the
+     * Groovy resolver probes many candidate names for each simple type name and
+     * the lookup environment does not change during a compile.  Results are kept
+     * per scope because visibility depends on the requesting compilation unit.
+     */
+    private ClassNode lookupClassNode(String typeName, boolean source) {
+        Map<String, ClassNode> lookups = lookupCache.get(activeScope);
+        if (lookups == null) {
+            lookups = new HashMap<String, ClassNode>();
+            lookupCache.put(activeScope, lookups);
+        }
+        String key = (source ? typeName : "binary:" + typeName);
+        ClassNode node = lookups.get(key);
+        if (node != null) {
+            lookupsAvoided += 1;
+            return (node != NOT_FOUND ? node : null);
+        }
+        lookupsPerformed += 1;
+        node = source ? activeScope.lookupClassNodeForSource(typeName, this) : activeScope.lookupClassNodeForBinary(typeName, this);
+        lookups.put(key, node != null ? node : NOT_FOUND);
+        return node;
+    }
+
+    /**
+     * @return number of JDT type lookups that were answered from this resolver's cache
+     */
+    public int getLookupsAvoided() {
+        return lookupsAvoided;
+    }
+
+    /**
+     * @return number of JDT type lookups that were made by this resolver
+     */
+    public int getLookupsPerformed() {
+        return lookupsPerformed;
+    }
+
     @Override
     protected boolean resolveToScript(ClassNode type) {
         return false;
@@ -379,6 +451,51 @@ public class JDTResolver extends ResolveVisitor {
         }
     }
 
+    // binary names looked up to compute stack map frames and whether they were found; recorded for tests
+    private final Map<String, Boolean> classGenerationLookups = new HashMap<String, Boolean>();
+
+    /**
+     * Finds types through the lookup environment when stack map frames are
+     * computed, so that classes of the project and its dependencies are not
+     * loaded (and initialized) by the transform loader.  The name is a binary
+     * name; member types are found through their top-level type, so that no
+     * class file is read for a member of a type that is being compiled.
+     */
+    @Override
+    public ClassNode resolveForClassGeneration(String name) {
+        ClassNode node = findForClassGeneration(name);
+        if (recordInstances) {
+            classGenerationLookups.put(name, node != null);
+        }
+        return node;
+    }
+
+    /**
+     * @return binary names looked up to compute stack map frames (if {@link #recordInstances} was set),
+     *         mapped to whether the lookup environment knew them; the others were left to the class loader
+     */
+    public Map<String, Boolean> getClassGenerationLookups() {
+        return Collections.unmodifiableMap(classGenerationLookups);
+    }
+
+    private ClassNode findForClassGeneration(String name) {
+        if (activeScope != null) {
+            int dollar = name.indexOf('$', name.lastIndexOf('.') + 1);
+            String typeName = (dollar < 0 ? name : name.substring(0, dollar));
+            ReferenceBinding binding = activeScope.environment().getType(CharOperation.splitOn('.', typeName.toCharArray()));
+            if (dollar > 0) {
+                for (String memberName : name.substring(dollar + 1).split("\\$")) {
+                    if (binding == null) break;
+                    binding = binding.getMemberType(memberName.toCharArray());
+                }
+            }
+            if ((binding instanceof SourceTypeBinding || binding instanceof BinaryTypeBinding) && !(binding instanceof MissingTypeBinding)) {
+                return convertToClassNode(binding);
+            }
+        }
+        return null;
+    }
+
     // avoiding an inner resolve is dangerous.
     // leave a back door here to turn it back on
     // if no one complains, then safe to remove
@@ -440,12 +557,45 @@ public class JDTResolver extends ResolveVisitor {
         if (node == null) {
             node = nodeCache.get(jdtBinding);
         }
+        if (node == null && jdtBinding instanceof BinaryTypeBinding) {
+            Map<String, JDTClassNode> shared = getSharedNodes();
+            if (shared != null) {
+                node = shared.get(String.valueOf(jdtBinding.constantPoolName()));
+                if (node != null && node.jdtBinding == jdtBinding) {
+                    sharedHits.incrementAndGet();
+                    nodeCache.put(jdtBinding, node);
+                } else {
+                    sharedMisses.incrementAndGet();
+                    node = null;
+                }
+            }
+        }
         if (node != null) {
             assert Arrays.equals(jdtBinding.readableName(), node.jdtBinding.readableName());
         }
         return node;
     }
 
+    private Map<String, JDTClassNode> getSharedNodes() {
+        if (sharedNodes == null && activeScope != null) {
+            CompilerOptions options = activeScope.compilerOptions();
+            String projectName = options.groovyProjectName;
+            if (projectName != null) {
+                String classpath = String.valueOf(options.groovyClassLoaderPath);
+                LookupEnvironment environment = activeScope.environment();
+
+                SharedNodes shared = projectToSharedNodes.get(projectName);
+                Map<String, JDTClassNode> nodes = (shared == null ? null : shared.nodes.get());
+                if (nodes == null || shared.environment.get() != environment || !shared.classpath.equals(classpath)) {
+                    nodes = Collections.synchronizedMap(new HashMap<String, JDTClassNode>());
+                    projectToSharedNodes.put(projectName, new SharedNodes(classpath, environment, nodes));
+                }
+                sharedNodes = nodes;
+            }
+        }
+        return sharedNodes;
+    }
+
     /**
      * Creates a Groovy ClassNode that represents the JDT TypeBinding. Steps
      * include building the basic structure, marking node as 'in progress' and
@@ -468,6 +618,13 @@ public class JDTResolver extends ResolveVisitor {
             assert nodeCache.get(jdtBinding) == null : "not unique";
             nodeCache.put(jdtBinding, jdtNode);
             inProgress.remove(jdtBinding);
+
+            if (jdtBinding instanceof BinaryTypeBinding) {
+                Map<String, JDTClassNode> shared = getSharedNodes();
+                if (shared != null) {
+                    shared.put(String.valueOf(jdtBinding.constantPoolName()), jdtNode);
+                }
+            }
         }
         return classNode;
     }
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.groovy.ast.Comment;
+import org.codehaus.groovy.ast.TaskEntry;
+import org.eclipse.jdt.core.compiler.CharOperation;
+
+/**
+ * Finds the task tags of a set of compiler options in comments.  The tags are
+ * compiled into an Aho-Corasick automaton, so all occurrences of all the tags
+ * are found in one pass over a comment, however many tags there are.
+ * <p>
+ * Tasks are reported like {@link Comment#getPositionsOf} would report them
+ * one tag at a time: ordered by tag and then by position, and an occurrence of
+ * a tag that overlaps the previous occurrence of the same tag is skipped.
+ */
+final class TaskTagMatcher {
+
+    private final char[][] taskTags;
+    private final char[][] taskPriorities;
+    private final boolean caseSensitive;
+
+    private final String[] tags;
+    private final String[] priorities;
+
+    // the automaton; state 0 is the root
+    private char[][] labels = new char[8][];
+    private int[][] targets = new int[8][];
+    private int[][] outputs = new int[8][];
+    private int[] failures = new int[8];
+    private int stateCount = 1;
+
+    TaskTagMatcher(char[][] taskTags, char[][] taskPriorities, boolean caseSensitive) {
+        this.taskTags = taskTags;
+        this.taskPriorities = taskPriorities;
+        this.caseSensitive = caseSensitive;
+
+        int n = taskTags.length;
+        tags = new String[n];
+        priorities = new String[n];
+        for (int t = 0; t < n; t += 1) {
+            tags[t] = new String(taskTags[t]);
+            if (taskPriorities != null) {
+                priorities[t] = new String(taskPriorities[t]);
+            }
+        }
+
+        labels[0] = CharOperation.NO_CHAR;
+        targets[0] = new int[0];
+        for (int t = 0; t < n; t += 1) {
+            if (tags[t].length() > 0) {
+                addTag(t, caseSensitive ? tags[t] : tags[t].toLowerCase());
+            }
+        }
+        computeFailures();
+    }
+
+    /**
+     * Tells if this matcher was built for the given options.
+     */
+    boolean isFor(char[][] taskTags, char[][] taskPriorities, boolean caseSensitive) {
+        return this.caseSensitive == caseSensitive &&
+            CharOperation.equals(this.taskTags, taskTags) &&
+            (this.taskPriorities == null ? taskPriorities == null : CharOperation.equals(this.taskPriorities, taskPriorities));
+    }
+
+    /**
+     * Returns the tasks of a comment, ordered by tag and then by position.
+     */
+    List<TaskEntry> findTasks(Comment comment, int[] lineseps) {
+        String text = comment.toString();
+        int[] hits = null; // pairs of tag index and position
+        int hitCount = 0;
+        int[] nextStart = null;
+
+        for (int i = 0, state = 0, length = text.length(); i < length; i += 1) {
+            char c = caseSensitive ? text.charAt(i) : Character.toLowerCase(text.charAt(i));
+            state = step(state, c);
+            for (int s = state; s != 0; s = failures[s]) {
+                int[] tagsEndingHere = outputs[s];
+                if (tagsEndingHere == null) {
+                    continue;
+                }
+                for (int t : tagsEndingHere) {
+                    int start = i - tags[t].length() + 1;
+                    if (nextStart == null) {
+                        nextStart = new int[tags.length];
+                        hits = new int[8];
+                    } else if (start < nextStart[t]) {
+                        continue;
+                    }
+                    nextStart[t] = start + tags[t].length();
+                    if (hitCount + 2 > hits.length) {
+                        int[] grown = new int[hits.length * 2];
+                        System.arraycopy(hits, 0, grown, 0, hitCount);
+                        hits = grown;
+                    }
+                    hits[hitCount++] = t;
+                    hits[hitCount++] = start;
+                }
+            }
+        }
+        if (hitCount == 0) {
+            return Collections.emptyList();
+        }
+
+        List<TaskEntry> tasks = new ArrayList<TaskEntry>(hitCount / 2);
+        if (hitCount == 2) {
+            addTask(tasks, comment, hits[0], hits[1], lineseps);
+        } else {
+            // hits of each tag are in position order already
+            for (int t = 0; t < tags.length; t += 1) {
+                if (nextStart[t] > 0) {
+                    for (int h = 0; h < hitCount; h += 2) {
+                        if (hits[h] == t) {
+                            addTask(tasks, comment, t, hits[h + 1], lineseps);
+                        }
+                    }
+                }
+            }
+        }
+        return tasks;
+    }
+
+    //--------------------------------------------------------------------------
+
+    private void addTask(List<TaskEntry> tasks, Comment comment, int tag, int start, int[] lineseps) {
+        TaskEntry task = comment.getTaskAt(start, tags[tag], priorities[tag], lineseps);
+        if (task != null) {
+            tasks.add(task);
+        }
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            char[] l = labels[state];
+            for (int k = 0; k < l.length; k += 1) {
+                if (l[k] == c) {
+                    return targets[state][k];
+                }
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = failures[state];
+        }
+    }
+
+    private int child(int state, char c) {
+        char[] l = labels[state];
+        for (int k = 0; k < l.length; k += 1) {
+            if (l[k] == c) {
+                return targets[state][k];
+            }
+        }
+        return -1;
+    }
+
+    private void addTag(int tag, String chars) {
+        int state = 0;
+        for (int i = 0, n = chars.length(); i < n; i += 1) {
+            char c = chars.charAt(i);
+            int next = child(state, c);
+            if (next == -1) {
+                next = newState();
+                int k = labels[state].length;
+                char[] l = new char[k + 1];
+                System.arraycopy(labels[state], 0, l, 0, k);
+                l[k] = c;
+                labels[state] = l;
+                int[] s = new int[k + 1];
+                System.arraycopy(targets[state], 0, s, 0, k);
+                s[k] = next;
+                targets[state] = s;
+            }
+            state = next;
+        }
+        int[] o = outputs[state];
+        if (o == null) {
+            outputs[state] = new int[] {tag};
+        } else {
+            int[] p = new int[o.length + 1];
+            System.arraycopy(o, 0, p, 0, o.length);
+            p[o.length] = tag;
+            outputs[state] = p;
+        }
+    }
+
+    private int newState() {
+        if (stateCount == labels.length) {
+            int n = stateCount * 2;
+            char[][] l = new char[n][];
+            System.arraycopy(labels, 0, l, 0, stateCount);
+            labels = l;
+            int[][] s = new int[n][];
+            System.arraycopy(targets, 0, s, 0, stateCount);
+            targets = s;
+            int[][] o = new int[n][];
+            System.arraycopy(outputs, 0, o, 0, stateCount);
+            outputs = o;
+            int[] f = new int[n];
+            System.arraycopy(failures, 0, f, 0, stateCount);
+            failures = f;
+        }
+        labels[stateCount] = CharOperation.NO_CHAR;
+        targets[stateCount] = new int[0];
+        return stateCount++;
+    }
+
+    private void computeFailures() {
+        // breadth-first, so the failure state of a parent is known before its children
+        int[] queue = new int[stateCount];
+        int head = 0, tail = 0;
+        for (int k = 0; k < targets[0].length; k += 1) {
+            queue[tail++] = targets[0][k];
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int k = 0; k < targets[state].length; k += 1) {
+                int next = targets[state][k];
+                int fail = failures[state];
+                int candidate;
+                while ((candidate = child(fail, labels[state][k])) == -1 && fail != 0) {
+                    fail = failures[fail];
+                }
+                failures[next] = (candidate == -1 || candidate == next) ? 0 : candidate;
+                queue[tail++] = next;
+            }
+        }
+    }
+}
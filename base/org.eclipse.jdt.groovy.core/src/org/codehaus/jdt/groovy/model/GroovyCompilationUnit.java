@@ -115,17 +115,30 @@ public class GroovyCompilationUnit extends CompilationUnit {
      * Gets the module info for this compilation unit
      *
      * @param force if true, then a module info is created even if not a working copy. This occurs by temporarily turning the
-     *        compilation unit into a working copy and then discarding it.
+     *        compilation unit into a working copy and then discarding it. The result is cached in {@link ModuleNodeCache}.
      * @return the {@link ModuleNodeInfo} for this compilation unit. Will be null if force is set to false and this unit is not a
      *         working copy. Also will be null if a problem occurs
      */
     public ModuleNodeInfo getModuleInfo(boolean force) {
+        return getModuleInfo(force, true);
+    }
+
+    private ModuleNodeInfo getModuleInfo(boolean force, boolean useCache) {
         try {
             if (!isConsistent()) {
                 makeConsistent(null);
             }
+            // module nodes of units that are not working copies are kept until the unit or its classpath change
+            boolean cacheable = (force && !isWorkingCopy());
+            if (cacheable && useCache) {
+                ModuleNodeInfo cached = ModuleNodeCache.getInstance().get(this);
+                if (cached != null) {
+                    return cached;
+                }
+            }
             boolean becameWorkingCopy = false;
-            ModuleNodeMapper.getInstance().lock();
+            ModuleNodeInfo moduleInfo = null;
+            ModuleNodeMapper.getInstance().lock(this);
             // discard the working copy after finishing
             // if there was no working copy to begin with
             try {
@@ -135,7 +148,12 @@ public class GroovyCompilationUnit extends CompilationUnit {
                 }
                 PerWorkingCopyInfo info = getPerWorkingCopyInfo();
                 if (info != null) {
-                    return ModuleNodeMapper.getInstance().get(info);
+                    moduleInfo = ModuleNodeMapper.getInstance().get(info);
+                    if (moduleInfo == null && !becameWorkingCopy) {
+                        // module node was evicted from the cache; rebuild it
+                        openWhenClosed(createElementInfo(), false, new NullProgressMonitor());
+                        moduleInfo = ModuleNodeMapper.getInstance().get(info);
+                    }
                 }
             } finally {
                 try {
@@ -143,9 +161,14 @@ public class GroovyCompilationUnit extends CompilationUnit {
                         discardWorkingCopy();
                     }
                 } finally {
-                    ModuleNodeMapper.getInstance().unlock();
+                    ModuleNodeMapper.getInstance().unlock(this);
                 }
             }
+            // cached once the temporary working copy is gone, as closing a working copy evicts its unit
+            if (cacheable) {
+                ModuleNodeCache.getInstance().put(this, moduleInfo);
+            }
+            return moduleInfo;
         } catch (JavaModelException e) {
             Util.log(e, "Exception thrown when trying to get Groovy module node for " + this.getElementName());
         }
@@ -163,13 +186,13 @@ public class GroovyCompilationUnit extends CompilationUnit {
         } catch (JavaModelException e) {
             Util.log(e, "Exception thrown when trying to get Groovy module node for " + this.getElementName());
         }
-        return getModuleInfo(true);
+        return getModuleInfo(true, false);
     }
 
     @Override
     public void discardWorkingCopy() throws JavaModelException {
         // GRECLIPSE-804 must synchronize
-        ModuleNodeMapper.getInstance().lock();
+        ModuleNodeMapper.getInstance().lock(this);
         try {
             PerWorkingCopyInfo info = getPerWorkingCopyInfo();
             if (workingCopyInfoWillBeDiscarded(info)) {
@@ -177,7 +200,7 @@ public class GroovyCompilationUnit extends CompilationUnit {
             }
             super.discardWorkingCopy();
         } finally {
-            ModuleNodeMapper.getInstance().unlock();
+            ModuleNodeMapper.getInstance().unlock(this);
         }
     }
 
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.model;
+
+import java.lang.ref.SoftReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * Caches the module nodes built for Groovy compilation units that are not
+ * working copies.  Without this, each search or refactoring that touches a
+ * closed unit runs the Groovy front end on it again.
+ * <p>
+ * Entries are keyed by compilation unit and are valid as long as the content
+ * hash of the unit and the classpath fingerprint of its project are unchanged.
+ * The fingerprint covers the resolved classpath and a stamp that is advanced
+ * whenever what a project puts on that classpath changes: its classpath, its
+ * package fragment roots, archive contents, or the contents of its sources,
+ * whose types the module nodes are bound to.  Deltas that only concern working
+ * copies or non-Java resources leave the stamps alone.  The entry of a unit is
+ * evicted when the unit changes or is removed, or when its working copy closes.
+ * Module nodes refer to compiler bindings, so entries are held in memory only
+ * and are softly referenced.
+ */
+public class ModuleNodeCache implements IElementChangedListener {
+
+    private static final ModuleNodeCache INSTANCE = new ModuleNodeCache();
+
+    public static ModuleNodeCache getInstance() {
+        return INSTANCE;
+    }
+
+    private static final int MAX_ENTRIES;
+    static {
+        int max = 256;
+        try {
+            String value = System.getProperty("groovy.eclipse.model.closedUnitCacheSize");
+            if (value != null) {
+                max = Integer.parseInt(value.trim());
+            }
+        } catch (Exception e) {
+            Util.log(e);
+        }
+        MAX_ENTRIES = max;
+    }
+
+    private static class Entry {
+        Entry(byte[] contentHash, long fingerprint, ModuleNodeInfo info) {
+            this.contentHash = contentHash;
+            this.fingerprint = fingerprint;
+            this.info = new SoftReference<ModuleNodeInfo>(info);
+        }
+
+        final byte[] contentHash;
+        final long fingerprint;
+        final SoftReference<ModuleNodeInfo> info;
+    }
+
+    @SuppressWarnings("serial")
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /** Incremented for each change to a project; keyed by project name. */
+    private final Map<String, AtomicLong> projectStamps = new HashMap<String, AtomicLong>();
+
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+
+    private ModuleNodeCache() {
+    }
+
+    public void install() {
+        JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE);
+    }
+
+    public void uninstall() {
+        JavaCore.removeElementChangedListener(this);
+        clear();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private synchronized void evict(ICompilationUnit unit) {
+        entries.remove(unit.getHandleIdentifier());
+    }
+
+    /**
+     * @return cached module info for {@code unit} or {@code null} if there is none or it is out of date
+     */
+    ModuleNodeInfo get(GroovyCompilationUnit unit) {
+        if (MAX_ENTRIES > 0) {
+            String key = unit.getHandleIdentifier();
+            Entry entry;
+            synchronized (this) {
+                entry = entries.get(key);
+            }
+            if (entry != null) {
+                ModuleNodeInfo info = entry.info.get();
+                if (info != null && entry.fingerprint == fingerprint(unit.getJavaProject()) &&
+                        Arrays.equals(entry.contentHash, contentHash(unit))) {
+                    hits.incrementAndGet();
+                    return info;
+                }
+                synchronized (this) {
+                    if (entries.get(key) == entry) {
+                        entries.remove(key);
+                    }
+                }
+            }
+            misses.incrementAndGet();
+        }
+        return null;
+    }
+
+    void put(GroovyCompilationUnit unit, ModuleNodeInfo info) {
+        if (MAX_ENTRIES > 0 && info != null && info.module != null) {
+            byte[] hash = contentHash(unit);
+            if (hash != null) {
+                Entry entry = new Entry(hash, fingerprint(unit.getJavaProject()), info);
+                synchronized (this) {
+                    entries.put(unit.getHandleIdentifier(), entry);
+                }
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    //--------------------------------------------------------------------------
+
+    public void elementChanged(ElementChangedEvent event) {
+        visit(event.getDelta());
+    }
+
+    private static final int PROJECT_CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED |
+        IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+
+    private static final int ROOT_CLASSPATH_FLAGS = IJavaElementDelta.F_ADDED_TO_CLASSPATH |
+        IJavaElementDelta.F_REMOVED_FROM_CLASSPATH | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_REORDER;
+
+    private void visit(IJavaElementDelta delta) {
+        IJavaElement element = delta.getElement();
+        boolean changed = (delta.getKind() == IJavaElementDelta.CHANGED);
+        switch (element.getElementType()) {
+        case IJavaElement.JAVA_MODEL:
+            visitChildren(delta);
+            break;
+        case IJavaElement.JAVA_PROJECT:
+            if (!changed || (delta.getFlags() & PROJECT_CLASSPATH_FLAGS) != 0) {
+                stampFor(element.getElementName()).incrementAndGet();
+            } else {
+                visitChildren(delta);
+            }
+            break;
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+            if (!changed || (delta.getFlags() & ROOT_CLASSPATH_FLAGS) != 0) {
+                stampFor(element.getJavaProject().getElementName()).incrementAndGet();
+            } else {
+                visitChildren(delta);
+            }
+            break;
+        case IJavaElement.PACKAGE_FRAGMENT:
+            if (!changed) {
+                stampFor(element.getJavaProject().getElementName()).incrementAndGet();
+            } else {
+                visitChildren(delta);
+            }
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+            ICompilationUnit unit = (ICompilationUnit) element;
+            if (!changed || (delta.getFlags() & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_PRIMARY_RESOURCE)) != 0) {
+                evict(unit);
+                stampFor(element.getJavaProject().getElementName()).incrementAndGet();
+            } else if ((delta.getFlags() & IJavaElementDelta.F_PRIMARY_WORKING_COPY) != 0 && !unit.isWorkingCopy()) {
+                // the working copy was closed; its edits may or may not have been saved
+                evict(unit);
+            }
+            break;
+        }
+    }
+
+    private void visitChildren(IJavaElementDelta delta) {
+        for (IJavaElementDelta child : delta.getAffectedChildren()) {
+            visit(child);
+        }
+    }
+
+    private synchronized AtomicLong stampFor(String projectName) {
+        AtomicLong stamp = projectStamps.get(projectName);
+        if (stamp == null) {
+            stamp = new AtomicLong();
+            projectStamps.put(projectName, stamp);
+        }
+        return stamp;
+    }
+
+    private long fingerprint(IJavaProject project) {
+        if (project == null) {
+            return 0;
+        }
+        long result = stampFor(project.getElementName()).get();
+        try {
+            for (IClasspathEntry entry : project.getResolvedClasspath(true)) {
+                result = 31 * result + entry.getPath().hashCode();
+                if (entry.getEntryKind() == IClasspathEntry.CPE_PROJECT) {
+                    result = 31 * result + stampFor(entry.getPath().lastSegment()).get();
+                }
+            }
+        } catch (JavaModelException e) {
+            // unlikely to match a stored fingerprint
+            result = System.nanoTime();
+        }
+        return result;
+    }
+
+    private static byte[] contentHash(GroovyCompilationUnit unit) {
+        char[] contents = unit.getContents();
+        if (contents == null || contents.length == 0) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] buffer = new byte[Math.min(contents.length, 4096) * 2];
+            for (int i = 0, n = contents.length; i < n;) {
+                int len = 0;
+                for (; i < n && len < buffer.length; i += 1) {
+                    buffer[len++] = (byte) (contents[i] >> 8);
+                    buffer[len++] = (byte) contents[i];
+                }
+                digest.update(buffer, 0, len);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+}
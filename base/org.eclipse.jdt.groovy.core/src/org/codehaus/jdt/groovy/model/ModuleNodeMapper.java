@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2016 the original author or authors.
+ * Copyright 2009-2017 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,11 @@
 package org.codehaus.jdt.groovy.model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.codehaus.groovy.ast.ModuleNode;
@@ -28,11 +30,8 @@ import org.codehaus.groovy.ast.stmt.ReturnStatement;
 import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
 import org.eclipse.jdt.internal.core.JavaModelManager;
@@ -91,17 +90,66 @@ public class ModuleNodeMapper {
         return INSTANCE;
     }
 
-    private final ReentrantLock lock = new ReentrantLock(true);
+    /**
+     * Upper bound (in megabytes) on the estimated size of the stored module
+     * nodes and resolvers.  When exceeded, the least-recently used entries are
+     * evicted; they are rebuilt on demand by {@link GroovyCompilationUnit}.
+     */
+    private static final long MEMORY_BUDGET;
+    static {
+        long budget = Runtime.getRuntime().maxMemory() / 8;
+        try {
+            String value = System.getProperty("groovy.eclipse.model.budget");
+            if (value != null) {
+                budget = Long.parseLong(value.trim()) << 20;
+            }
+        } catch (Exception e) {
+            Util.log(e);
+        }
+        MEMORY_BUDGET = budget;
+    }
+
+    // rough estimates; these only need to be proportional to the actual retained sizes
+    private static final long BYTES_PER_SOURCE_CHAR = 64, BYTES_PER_RESOLVER = 1L << 20;
+
+    private static final boolean PURGE_STALE_ENTRIES = (System.getProperty("groovy.eclipse.model.purge") != null);
+
+    private static class Entry {
+        Entry(ModuleNodeInfo info, long size) {
+            this.info = info;
+            this.size = size;
+        }
+
+        final ModuleNodeInfo info;
+        final long size;
+        volatile long lastAccess;
+    }
+
+    /** Guards the compound operations on a single compilation unit, such as become working copy/get/discard. */
+    private final ReentrantLock[] locks = new ReentrantLock[32];
+    {
+        for (int i = 0, n = locks.length; i < n; i += 1) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    private final ConcurrentMap<PerWorkingCopyInfo, Entry> infoToModuleMap = new ConcurrentHashMap<PerWorkingCopyInfo, Entry>();
 
-    private final Map<PerWorkingCopyInfo, ModuleNodeInfo> infoToModuleMap = new HashMap<PerWorkingCopyInfo, ModuleNodeInfo>();
+    private final AtomicLong clock = new AtomicLong(), totalSize = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
 
     void store(PerWorkingCopyInfo key, ModuleNodeInfo val) {
-        lock.lock();
-        try {
+        if (PURGE_STALE_ENTRIES) {
             sweepAndPurgeModuleNodes();
-            infoToModuleMap.put(key, val);
-        } finally {
-            lock.unlock();
+        }
+        Entry entry = new Entry(val, estimateSize(val));
+        entry.lastAccess = clock.incrementAndGet();
+
+        Entry prev = infoToModuleMap.put(key, entry);
+        totalSize.addAndGet(entry.size - (prev != null ? prev.size : 0));
+
+        if (totalSize.get() > MEMORY_BUDGET) {
+            evictLeastRecentlyUsed(key);
         }
     }
 
@@ -121,44 +169,33 @@ public class ModuleNodeMapper {
     }
 
     ModuleNode getModule(PerWorkingCopyInfo info) {
-        lock.lock();
-        try {
-            ModuleNodeInfo moduleNodeInfo = get(info);
-            return moduleNodeInfo != null ? moduleNodeInfo.module : null;
-        } finally {
-            lock.unlock();
-        }
+        ModuleNodeInfo moduleNodeInfo = get(info);
+        return moduleNodeInfo != null ? moduleNodeInfo.module : null;
     }
 
     ModuleNodeInfo get(PerWorkingCopyInfo info) {
-        lock.lock();
-        try {
-            sweepAndPurgeModuleNodes();
-            return infoToModuleMap.get(info);
-        } finally {
-            lock.unlock();
+        Entry entry = infoToModuleMap.get(info);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
         }
+        hits.incrementAndGet();
+        entry.lastAccess = clock.incrementAndGet();
+        return entry.info;
     }
 
     JDTResolver getResolver(PerWorkingCopyInfo info) {
-        lock.lock();
-        try {
-            ModuleNodeInfo moduleNodeInfo = get(info);
-            return moduleNodeInfo != null ? moduleNodeInfo.resolver : null;
-        } finally {
-            lock.unlock();
-        }
+        ModuleNodeInfo moduleNodeInfo = get(info);
+        return moduleNodeInfo != null ? moduleNodeInfo.resolver : null;
     }
 
     ModuleNode remove(PerWorkingCopyInfo info) {
-        lock.lock();
-        try {
-            sweepAndPurgeModuleNodes();
-            ModuleNodeInfo removed = infoToModuleMap.remove(info);
-            return removed != null ? removed.module : null;
-        } finally {
-            lock.unlock();
+        Entry removed = infoToModuleMap.remove(info);
+        if (removed != null) {
+            totalSize.addAndGet(-removed.size);
+            return removed.info.module;
         }
+        return null;
     }
 
     /**
@@ -168,34 +205,56 @@ public class ModuleNodeMapper {
         final JavaModelManager.PerWorkingCopyInfo perWorkingCopyInfo,
         final GroovyCompilationUnitDeclaration compilationUnitDeclaration) {
 
-        if (lock.tryLock()) {
-            try {
-                if (perWorkingCopyInfo != null && compilationUnitDeclaration != null) {
-                    ModuleNode module = compilationUnitDeclaration.getModuleNode();
-                    if (module != null) {
-                        JDTResolver resolver = null;
-                        if (shouldStoreResovler()) {
-                            resolver = (JDTResolver) compilationUnitDeclaration.getCompilationUnit().getResolveVisitor();
-                        }
-
-                        ModuleNodeInfo info = new ModuleNodeInfo(module, resolver);
-                        info.result = compilationUnitDeclaration.compilationResult();
-
-                        store(perWorkingCopyInfo, info);
-                    }
+        if (perWorkingCopyInfo != null && compilationUnitDeclaration != null) {
+            ModuleNode module = compilationUnitDeclaration.getModuleNode();
+            if (module != null) {
+                JDTResolver resolver = null;
+                if (shouldStoreResovler()) {
+                    resolver = (JDTResolver) compilationUnitDeclaration.getCompilationUnit().getResolveVisitor();
                 }
-            } finally {
-                lock.unlock();
+
+                ModuleNodeInfo info = new ModuleNodeInfo(module, resolver);
+                info.result = compilationUnitDeclaration.compilationResult();
+
+                store(perWorkingCopyInfo, info);
+            }
+        }
+    }
+
+    private static long estimateSize(ModuleNodeInfo info) {
+        long size = 0;
+        if (info.result != null) {
+            int[] lineEnds = info.result.getLineSeparatorPositions();
+            if (lineEnds != null && lineEnds.length > 0) {
+                size += lineEnds[lineEnds.length - 1] * BYTES_PER_SOURCE_CHAR;
             }
-        } else {
-            // lock grabbed by someone else. rerun this operation later
-            new Job("Cache module node") {
-                @Override
-                protected IStatus run(IProgressMonitor monitor) {
-                    maybeCacheModuleNode(perWorkingCopyInfo, compilationUnitDeclaration);
-                    return Status.OK_STATUS;
+        }
+        if (info.resolver != null) {
+            size += BYTES_PER_RESOLVER;
+        }
+        return size;
+    }
+
+    /**
+     * Removes least-recently used entries until the estimated size is within budget.
+     * The entry for {@code keep} is not removed, since it was just stored.
+     */
+    private synchronized void evictLeastRecentlyUsed(PerWorkingCopyInfo keep) {
+        while (totalSize.get() > MEMORY_BUDGET) {
+            Map.Entry<PerWorkingCopyInfo, Entry> eldest = null;
+            for (Map.Entry<PerWorkingCopyInfo, Entry> e : infoToModuleMap.entrySet()) {
+                if (e.getKey() != keep && (eldest == null || e.getValue().lastAccess < eldest.getValue().lastAccess)) {
+                    eldest = e;
                 }
-            }.schedule();
+            }
+            if (eldest == null) {
+                break;
+            }
+            // entry may have been replaced or removed concurrently
+            if (infoToModuleMap.remove(eldest.getKey(), eldest.getValue())) {
+                totalSize.addAndGet(-eldest.getValue().size);
+                evictions.incrementAndGet();
+            }
         }
     }
 
@@ -207,43 +266,66 @@ public class ModuleNodeMapper {
         return INSTANCE.infoToModuleMap.size();
     }
 
+    public static long getHitCount() {
+        return INSTANCE.hits.get();
+    }
+
+    public static long getMissCount() {
+        return INSTANCE.misses.get();
+    }
+
+    public static long getEvictionCount() {
+        return INSTANCE.evictions.get();
+    }
+
+    /**
+     * @return estimated size (in bytes) of the stored module nodes and resolvers
+     */
+    public static long getEstimatedSize() {
+        return INSTANCE.totalSize.get();
+    }
+
+    public static String getStatistics() {
+        return String.format("entries: %d, estimated size: %dK of %dK, hits: %d, misses: %d, evictions: %d",
+            size(), getEstimatedSize() >> 10, MEMORY_BUDGET >> 10, getHitCount(), getMissCount(), getEvictionCount());
+    }
+
     // GRECLIPSE-804 check to see that the stored nodes are correct
     // provide info to stdout if not and purge any stale elements
     void sweepAndPurgeModuleNodes() {
-        lock.lock();
-        try {
-            if (System.getProperty("groovy.eclipse.model.purge") == null) {
-                return;
-            }
-
-            List<PerWorkingCopyInfo> toPurge = new ArrayList<PerWorkingCopyInfo>();
-            for (PerWorkingCopyInfo info : infoToModuleMap.keySet()) {
-                int useCount = ((Integer) ReflectionUtils.getPrivateField(PerWorkingCopyInfo.class, "useCount", info)).intValue();
-                if (useCount <= 0) {
-                    String message = "Bad module node map entry: " + info.getWorkingCopy().getElementName();
-                    System.out.println(message);
-                    Util.log(new RuntimeException(message), message);
-                    toPurge.add(info);
-                } else if (useCount > 1) {
-                    System.out.println(info.getWorkingCopy().getElementName() + " : useCount : " + useCount);
-                }
+        List<PerWorkingCopyInfo> toPurge = new ArrayList<PerWorkingCopyInfo>();
+        for (PerWorkingCopyInfo info : infoToModuleMap.keySet()) {
+            int useCount = ((Integer) ReflectionUtils.getPrivateField(PerWorkingCopyInfo.class, "useCount", info)).intValue();
+            if (useCount <= 0) {
+                String message = "Bad module node map entry: " + info.getWorkingCopy().getElementName();
+                System.out.println(message);
+                Util.log(new RuntimeException(message), message);
+                toPurge.add(info);
+            } else if (useCount > 1) {
+                System.out.println(info.getWorkingCopy().getElementName() + " : useCount : " + useCount);
             }
+        }
 
-            if (toPurge.size() > 0) {
-                for (PerWorkingCopyInfo info : toPurge) {
-                    infoToModuleMap.remove(info);
-                }
+        if (toPurge.size() > 0) {
+            for (PerWorkingCopyInfo info : toPurge) {
+                remove(info);
             }
-        } finally {
-            lock.unlock();
         }
     }
 
-    public void lock() {
-        lock.lock();
+    /**
+     * Locks the stripe that guards {@code unit}.  Only compound operations need
+     * to hold this lock; individual store/get/remove calls are thread-safe.
+     */
+    public void lock(ICompilationUnit unit) {
+        lockFor(unit).lock();
+    }
+
+    public void unlock(ICompilationUnit unit) {
+        lockFor(unit).unlock();
     }
 
-    public void unlock() {
-        lock.unlock();
+    private ReentrantLock lockFor(ICompilationUnit unit) {
+        return locks[(unit.hashCode() & 0x7FFFFFFF) % locks.length];
     }
 }
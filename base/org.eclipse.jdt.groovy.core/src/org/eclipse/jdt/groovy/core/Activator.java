@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
+import org.codehaus.jdt.groovy.model.ModuleNodeCache;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.runtime.Plugin;
@@ -60,9 +61,11 @@ public class Activator extends Plugin {
         super.start(context);
         plugin = this;
         SystemPropertyCleaner.clean();
+        ModuleNodeCache.getInstance().install();
     }
 
     public void stop(BundleContext context) throws Exception {
+        ModuleNodeCache.getInstance().uninstall();
         plugin = null;
         super.stop(context);
     }
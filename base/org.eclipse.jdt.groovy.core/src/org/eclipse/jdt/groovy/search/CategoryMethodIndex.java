@@ -0,0 +1,145 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+
+/**
+ * Immutable index of the category methods of a category class: static methods
+ * with at least one parameter, by name.  Each entry groups its methods by the
+ * erasure of their first (self) parameter, so that a lookup only has to check
+ * self type compatibility once per distinct parameter type.
+ * <p>
+ * The indexes of the {@link VariableScope#ALL_DEFAULT_CATEGORIES default categories}
+ * are built once, when first requested, for the Groovy runtime in use.
+ */
+final class CategoryMethodIndex {
+
+    /**
+     * @return the index for {@code category} if it is one of the default categories; otherwise {@code null}
+     */
+    static CategoryMethodIndex forDefaultCategory(ClassNode category) {
+        return DefaultCategories.INDEXES.get(category);
+    }
+
+    private static class DefaultCategories {
+        static final Map<ClassNode, CategoryMethodIndex> INDEXES;
+        static {
+            Map<ClassNode, CategoryMethodIndex> indexes = new IdentityHashMap<ClassNode, CategoryMethodIndex>();
+            for (ClassNode category : VariableScope.ALL_DEFAULT_CATEGORIES) {
+                indexes.put(category, new CategoryMethodIndex(category));
+            }
+            INDEXES = Collections.unmodifiableMap(indexes);
+        }
+    }
+
+    /**
+     * Category methods of one name, in the order {@link ClassNode#getMethods(String)} returns them.
+     */
+    static final class Entry {
+        /** The candidate methods. */
+        final MethodNode[] methods;
+        /** For each method, the index of its self type in {@link #selfTypes}. */
+        final int[] selfTypeIndexes;
+        /** Distinct self parameter types of the methods. */
+        final ClassNode[] selfTypes;
+        /** For each method, its kind as a category accessor. */
+        final AccessorSupport[] accessorKinds;
+
+        Entry(List<MethodNode> methods) {
+            int n = methods.size();
+            this.methods = methods.toArray(new MethodNode[n]);
+            this.selfTypeIndexes = new int[n];
+            this.accessorKinds = new AccessorSupport[n];
+
+            List<ClassNode> selfTypes = new ArrayList<ClassNode>();
+            for (int i = 0; i < n; i += 1) {
+                ClassNode selfType = this.methods[i].getParameters()[0].getType();
+                int index = selfTypes.indexOf(selfType);
+                if (index < 0) {
+                    index = selfTypes.size();
+                    selfTypes.add(selfType);
+                }
+                this.selfTypeIndexes[i] = index;
+                this.accessorKinds[i] = AccessorSupport.findAccessorKind(this.methods[i], true);
+            }
+            this.selfTypes = selfTypes.toArray(new ClassNode[selfTypes.size()]);
+        }
+
+        /**
+         * Adds the methods that accept {@code selfType} to {@code candidates}.
+         *
+         * @param kind if non-null, only accessors of this kind are added
+         */
+        void collectCandidates(ClassNode selfType, AccessorSupport kind, List<MethodNode> candidates) {
+            Boolean[] compatible = new Boolean[selfTypes.length];
+            for (int i = 0, n = methods.length; i < n; i += 1) {
+                if (kind != null && accessorKinds[i] != kind) {
+                    continue;
+                }
+                int index = selfTypeIndexes[i];
+                if (compatible[index] == null) {
+                    compatible[index] = Boolean.valueOf(SimpleTypeLookup.isTypeCompatible(selfType, selfTypes[index]) != Boolean.FALSE);
+                }
+                if (compatible[index].booleanValue()) {
+                    candidates.add(methods[i]);
+                }
+            }
+        }
+    }
+
+    private final Map<String, Entry> entries;
+
+    private CategoryMethodIndex(ClassNode category) {
+        // ClassNode#getMethods(String) returns the methods of the class and then those of its super classes
+        Map<String, List<MethodNode>> methodsByName = new HashMap<String, List<MethodNode>>();
+        for (ClassNode node = category; node != null; node = node.getSuperClass()) {
+            for (MethodNode method : node.getMethods()) {
+                Parameter[] parameters = method.getParameters();
+                if (method.isStatic() && parameters != null && parameters.length > 0) {
+                    List<MethodNode> methods = methodsByName.get(method.getName());
+                    if (methods == null) {
+                        methods = new ArrayList<MethodNode>();
+                        methodsByName.put(method.getName(), methods);
+                    }
+                    methods.add(method);
+                }
+            }
+        }
+
+        Map<String, Entry> entries = new HashMap<String, Entry>(methodsByName.size() * 2);
+        for (Map.Entry<String, List<MethodNode>> methods : methodsByName.entrySet()) {
+            entries.put(methods.getKey(), new Entry(methods.getValue()));
+        }
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * @return category methods named {@code name} or {@code null} if there are none
+     */
+    Entry getEntry(String name) {
+        return entries.get(name);
+    }
+}
@@ -28,8 +28,6 @@ import org.codehaus.groovy.ast.Parameter;
 import org.codehaus.groovy.ast.expr.ConstantExpression;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.codehaus.groovy.ast.expr.VariableExpression;
-import org.codehaus.groovy.reflection.ParameterTypes;
-import org.codehaus.groovy.runtime.MetaClassHelper;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.jdt.groovy.core.util.GroovyUtils;
 import org.eclipse.jdt.groovy.search.TypeLookupResult.TypeConfidence;
@@ -51,13 +49,30 @@ public class CategoryTypeLookup implements ITypeLookup {
             //
             List<MethodNode> candidates = new ArrayList<MethodNode>();
 
+            String getterName = AccessorSupport.GETTER.createAccessorName(simpleName);
+            String setterName = AccessorSupport.SETTER.createAccessorName(simpleName);
+
             for (ClassNode category : scope.getCategoryNames()) {
+                CategoryMethodIndex index = CategoryMethodIndex.forDefaultCategory(category);
+                if (index != null) {
+                    CategoryMethodIndex.Entry entry = index.getEntry(simpleName);
+                    if (entry != null) {
+                        entry.collectCandidates(normalizedType, null, candidates);
+                    }
+                    if (getterName != null && (entry = index.getEntry(getterName)) != null) {
+                        entry.collectCandidates(normalizedType, AccessorSupport.GETTER, candidates);
+                    }
+                    if (setterName != null && (entry = index.getEntry(setterName)) != null) {
+                        entry.collectCandidates(normalizedType, AccessorSupport.SETTER, candidates);
+                    }
+                    continue;
+                }
+
                 for (MethodNode method : category.getMethods(simpleName)) {
                     if (isCompatibleCategoryMethod(method, normalizedType)) {
                         candidates.add(method);
                     }
                 }
-                String getterName = AccessorSupport.GETTER.createAccessorName(simpleName);
                 if (getterName != null) {
                     for (MethodNode method : category.getMethods(getterName)) {
                         if (AccessorSupport.findAccessorKind(method, true) == AccessorSupport.GETTER &&
@@ -66,7 +81,6 @@ public class CategoryTypeLookup implements ITypeLookup {
                         }
                     }
                 }
-                String setterName = AccessorSupport.SETTER.createAccessorName(simpleName);
                 if (setterName != null) {
                     for (MethodNode method : category.getMethods(setterName)) {
                         if (AccessorSupport.findAccessorKind(method, true) == AccessorSupport.SETTER &&
@@ -137,31 +151,145 @@ public class CategoryTypeLookup implements ITypeLookup {
     }
 
     private static long calculateParameterDistance(List<ClassNode> arguments, Parameter[] parameters) {
-        try {
-            // weight self type higher to prevent considering getAt(Map, Object)
-            // and getAt(Object, String) equally for the arguments (Map, String)
-
-            int n = 1 + arguments.size();
-            Class<?>[] args = new Class[n];
-            for (int i = 1; i < n; i += 1) {
-                args[i] = arguments.get(i - 1).getTypeClass();
+        // weight self type higher to prevent considering getAt(Map, Object)
+        // and getAt(Object, String) equally for the arguments (Map, String)
+        long distance = 2 * calculateTypeDistance(arguments.get(0), parameters[0].getType());
+        for (int i = 1, n = Math.min(arguments.size(), parameters.length); i < n; i += 1) {
+            distance += calculateTypeDistance(arguments.get(i), parameters[i].getType());
+        }
+        return distance;
+    }
+
+    /**
+     * Estimates how far {@code parameter} is from {@code argument} the way
+     * {@code MetaClassHelper} does for runtime dispatch: interfaces rank ahead
+     * of primitive conversions, which rank ahead of super class steps.  Works
+     * on ClassNodes directly, so it does not depend on loading the types as
+     * classes.
+     */
+    private static long calculateTypeDistance(ClassNode argument, ClassNode parameter) {
+        if (argument == null || parameter == null) {
+            return UNRELATED_DISTANCE;
+        }
+        if (argument.equals(parameter)) {
+            return 0;
+        }
+
+        if (parameter.isInterface()) {
+            int distance = getMaximumInterfaceDistance(argument, parameter);
+            if (distance > -1) {
+                return distance;
             }
-            args[0] = args[1]; // repeat the self type for effect
+            if (!argument.isDerivedFrom(ClassHelper.CLOSURE_TYPE)) {
+                return UNRELATED_DISTANCE;
+            }
+            // else go to object case
+        }
+
+        int primitiveDistance = getPrimitiveDistance(argument, parameter);
+        if (primitiveDistance > -1) {
+            return ((long) primitiveDistance) << PRIMITIVE_SHIFT;
+        }
 
-            n = 1 + parameters.length;
-            Class<?>[] prms = new Class[n];
-            for (int i = 1; i < n; i += 1) {
-                prms[i] = parameters[i - 1].getType().getTypeClass();
+        // add one to distance to be sure interfaces are preferred
+        long distance = PRIMITIVES.length + 1;
+        // prefer foo(Object[]) over foo(Object) for an array argument
+        if (argument.isArray() && !parameter.isArray()) {
+            distance += 4;
+        }
+        for (ClassNode type = ClassHelper.getWrapper(argument); type != null; type = type.getSuperClass()) {
+            if (type.equals(parameter)) {
+                break;
+            }
+            if (type.equals(ClassHelper.GSTRING_TYPE) && parameter.equals(ClassHelper.STRING_TYPE)) {
+                distance += 2;
+                break;
             }
-            prms[0] = prms[1]; // repeat the self type for effect
+            distance += 3;
+        }
+        return distance << OBJECT_SHIFT;
+    }
+
+    private static int getMaximumInterfaceDistance(ClassNode type, ClassNode interfaceType) {
+        if (type == null) {
+            return -1;
+        }
+        if (type.equals(interfaceType)) {
+            return 0;
+        }
+        int max = -1;
+        for (ClassNode face : type.getInterfaces()) {
+            int sub = getMaximumInterfaceDistance(face, interfaceType);
+            if (sub != -1) sub += 1; // there is an interface in between
+            max = Math.max(max, sub);
+        }
+        // one more for the super class, the longest path counts
+        int sup = getMaximumInterfaceDistance(type.getSuperClass(), interfaceType);
+        if (sup != -1) sup += 1;
+        return Math.max(max, sup);
+    }
 
-            // TODO: This can fail in a lot of cases; is there a better way to call it?
-            return MetaClassHelper.calculateParameterDistance(args, new ParameterTypes(prms));
-        } catch (Throwable t) {
-            return Long.MAX_VALUE;
+    private static int getPrimitiveDistance(ClassNode argument, ClassNode parameter) {
+        int from = getPrimitiveIndex(argument), to = getPrimitiveIndex(parameter);
+        if (from == -1 || to == -1) {
+            return -1;
         }
+        return PRIMITIVE_DISTANCE_TABLE[from][to];
     }
 
+    private static int getPrimitiveIndex(ClassNode type) {
+        for (int i = 0; i < PRIMITIVES.length; i += 1) {
+            if (PRIMITIVES[i].equals(type)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final int OBJECT_SHIFT = 23, PRIMITIVE_SHIFT = 21;
+
+    private static final long UNRELATED_DISTANCE = 1L << 40;
+
+    private static final ClassNode[] PRIMITIVES = {
+        ClassHelper.boolean_TYPE, ClassHelper.Boolean_TYPE,
+        ClassHelper.byte_TYPE, ClassHelper.Byte_TYPE,
+        ClassHelper.short_TYPE, ClassHelper.Short_TYPE,
+        ClassHelper.char_TYPE, ClassHelper.Character_TYPE,
+        ClassHelper.int_TYPE, ClassHelper.Integer_TYPE,
+        ClassHelper.long_TYPE, ClassHelper.Long_TYPE,
+        ClassHelper.BigInteger_TYPE,
+        ClassHelper.float_TYPE, ClassHelper.Float_TYPE,
+        ClassHelper.double_TYPE, ClassHelper.Double_TYPE,
+        ClassHelper.BigDecimal_TYPE,
+        ClassHelper.Number_TYPE,
+        ClassHelper.OBJECT_TYPE,
+    };
+
+    // rows are the argument types and columns the parameter types, in the order of PRIMITIVES
+    private static final int[][] PRIMITIVE_DISTANCE_TABLE = {
+        //                  0   1   2   3   4   5   6   7   8   9  10  11  12  13  14  15  16  17  18  19
+        /*boolean[0]*/    { 0,  1,  3,  4,  5,  6,  7,  8,  9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19,  2,},
+        /*Boolean[1]*/    { 1,  0,  3,  4,  5,  6,  7,  8,  9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19,  2,},
+        /*byte[2]*/       {18, 19,  0,  1,  2,  3, 16, 17,  4,  5,  6,  7,  8,  9, 10, 11, 12, 13, 14, 15,},
+        /*Byte[3]*/       {18, 19,  1,  0,  2,  3, 16, 17,  4,  5,  6,  7,  8,  9, 10, 11, 12, 13, 14, 15,},
+        /*short[4]*/      {18, 19, 14, 15,  0,  1, 16, 17,  2,  3,  4,  5,  6,  7,  8,  9, 10, 11, 12, 13,},
+        /*Short[5]*/      {18, 19, 14, 15,  1,  0, 16, 17,  2,  3,  4,  5,  6,  7,  8,  9, 10, 11, 12, 13,},
+        /*char[6]*/       {18, 19, 16, 17, 14, 15,  0,  1,  2,  3,  4,  5,  6,  7,  8,  9, 10, 11, 12, 13,},
+        /*Character[7]*/  {18, 19, 16, 17, 14, 15,  1,  0,  2,  3,  4,  5,  6,  7,  8,  9, 10, 11, 12, 13,},
+        /*int[8]*/        {18, 19, 14, 15, 12, 13, 16, 17,  0,  1,  2,  3,  4,  5,  6,  7,  8,  9, 10, 11,},
+        /*Integer[9]*/    {18, 19, 14, 15, 12, 13, 16, 17,  1,  0,  2,  3,  4,  5,  6,  7,  8,  9, 10, 11,},
+        /*long[10]*/      {18, 19, 14, 15, 12, 13, 16, 17, 10, 11,  0,  1,  2,  3,  4,  5,  6,  7,  8,  9,},
+        /*Long[11]*/      {18, 19, 14, 15, 12, 13, 16, 17, 10, 11,  1,  0,  2,  3,  4,  5,  6,  7,  8,  9,},
+        /*BigInteger[12]*/{18, 19,  9, 10,  7,  8, 16, 17,  5,  6,  3,  4,  0, 14, 15, 12, 13, 11,  1,  2,},
+        /*float[13]*/     {18, 19, 14, 15, 12, 13, 16, 17, 10, 11,  8,  9,  7,  0,  1,  2,  3,  4,  5,  6,},
+        /*Float[14]*/     {18, 19, 14, 15, 12, 13, 16, 17, 10, 11,  8,  9,  7,  1,  0,  2,  3,  4,  5,  6,},
+        /*double[15]*/    {18, 19, 14, 15, 12, 13, 16, 17, 10, 11,  8,  9,  7,  5,  6,  0,  1,  2,  3,  4,},
+        /*Double[16]*/    {18, 19, 14, 15, 12, 13, 16, 17, 10, 11,  8,  9,  7,  5,  6,  1,  0,  2,  3,  4,},
+        /*BigDecimal[17]*/{18, 19, 14, 15, 12, 13, 16, 17, 10, 11,  8,  9,  7,  5,  6,  3,  4,  0,  1,  2,},
+        /*Number[18]*/    {18, 19, 14, 15, 12, 13, 16, 17, 10, 11,  8,  9,  7,  5,  6,  3,  4,  2,  0,  1,},
+        /*Object[19]*/    {18, 19, 14, 15, 12, 13, 16, 17, 10, 11,  8,  9,  7,  5,  6,  3,  4,  2,  1,  0,},
+    };
+
     //--------------------------------------------------------------------------
 
     public TypeLookupResult lookupType(AnnotationNode node, VariableScope scope) {
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+import org.eclipse.jdt.core.IJavaElement;
+
+/**
+ * The type lookup results of a complete inferencing visit of a module node, in
+ * the order they were reported.  Results are stored with the module node info of
+ * a unit, so they are computed at most once per reconcile and are dropped along
+ * with the module node.
+ *
+ * @see TypeInferencingVisitorWithRequestor#visitCompilationUnitFromStore(ITypeRequestor)
+ */
+public class InferenceResults {
+
+    private static final Map<ModuleNodeInfo, InferenceResults> STORE = new WeakHashMap<ModuleNodeInfo, InferenceResults>();
+
+    private static long hits, misses;
+
+    static synchronized InferenceResults get(ModuleNodeInfo info) {
+        InferenceResults results = STORE.get(info);
+        if (results != null) {
+            hits += 1;
+        } else {
+            misses += 1;
+        }
+        return results;
+    }
+
+    static synchronized void put(ModuleNodeInfo info, InferenceResults results) {
+        STORE.put(info, results);
+    }
+
+    /**
+     * Discards all stored results; for use when the inferencing configuration changes (for example, after DSLDs are refreshed).
+     */
+    public static synchronized void clearAll() {
+        STORE.clear();
+    }
+
+    public static synchronized long getHitCount() {
+        return hits;
+    }
+
+    public static synchronized long getMissCount() {
+        return misses;
+    }
+
+    //--------------------------------------------------------------------------
+
+    private final List<ASTNode> nodes = new ArrayList<ASTNode>();
+    private final List<TypeLookupResult> results = new ArrayList<TypeLookupResult>();
+    private final List<IJavaElement> enclosingElements = new ArrayList<IJavaElement>();
+    private final Map<ASTNode, TypeLookupResult> resultsByNode = new IdentityHashMap<ASTNode, TypeLookupResult>();
+
+    /**
+     * @return the first result reported for {@code node} or {@code null} if there is none
+     */
+    public TypeLookupResult getResult(ASTNode node) {
+        return resultsByNode.get(node);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Collects the results of a visit.  Always continues, so that the results cover the whole unit.
+     */
+    ITypeRequestor createRecorder() {
+        return new ITypeRequestor() {
+            public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+                nodes.add(node);
+                results.add(result);
+                enclosingElements.add(enclosingElement);
+                if (!resultsByNode.containsKey(node)) {
+                    resultsByNode.put(node, result);
+                }
+                return VisitStatus.CONTINUE;
+            }
+        };
+    }
+
+    /**
+     * Reports the stored results to {@code requestor} and honors the visit status it returns, as the inferencing visitor would.
+     * Which of the following results belong to the branch of a node is not recorded, so branches cannot be cancelled.
+     *
+     * @throws IllegalStateException if the requestor returns {@link ITypeRequestor.VisitStatus#CANCEL_BRANCH}
+     */
+    void replay(ITypeRequestor requestor) {
+        IJavaElement cancelledMember = null;
+        for (int i = 0, n = nodes.size(); i < n; i += 1) {
+            ASTNode node = nodes.get(i);
+            IJavaElement enclosingElement = enclosingElements.get(i);
+
+            if (cancelledMember != null) {
+                if (isWithin(enclosingElement, cancelledMember)) {
+                    continue;
+                }
+                cancelledMember = null;
+            }
+
+            switch (requestor.acceptASTNode(node, results.get(i), enclosingElement)) {
+            case CANCEL_BRANCH:
+                throw new IllegalStateException("Cannot replay a cancelled branch; visit the compilation unit instead");
+            case CANCEL_MEMBER:
+                cancelledMember = enclosingElement;
+                break;
+            case STOP_VISIT:
+                return;
+            default:
+                break;
+            }
+        }
+    }
+
+    private static boolean isWithin(IJavaElement element, IJavaElement ancestor) {
+        for (IJavaElement e = element; e != null; e = e.getParent()) {
+            if (e.equals(ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -87,6 +87,8 @@ import org.codehaus.groovy.ast.stmt.ReturnStatement;
 import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.groovy.ast.tools.WideningCategories;
 import org.codehaus.groovy.classgen.BytecodeExpression;
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.runtime.MetaClassHelper;
 import org.codehaus.groovy.syntax.Types;
 import org.codehaus.groovy.transform.sc.ListOfExpressionsExpression;
@@ -304,6 +306,9 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
     private final JDTResolver resolver;
 
+    // module node info of the unit, if it is shared by other visitors of the unit
+    private final ModuleNodeInfo sharedModuleInfo;
+
     private final AssignmentStorer assignmentStorer = new AssignmentStorer();
 
     /**
@@ -322,6 +327,7 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
         ModuleNodeInfo info = createModuleNode(unit);
         this.resolver = info != null ? info.resolver : null;
         this.enclosingDeclarationNode = info != null ? info.module : null;
+        this.sharedModuleInfo = isPrimary(unit) ? info : null;
     }
 
     //--------------------------------------------------------------------------
@@ -366,6 +372,37 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
         }
     }
 
+    /**
+     * Reports the same nodes and results as {@link #visitCompilationUnit(ITypeRequestor)}, but from the inference results
+     * stored with the unit's module node.  The first such visit after a reconcile visits the whole unit and records the
+     * results; later visits replay them.  Only for requestors that read the nodes and results they are given and do not
+     * rely on the state of the visitor during the visit: the {@link VariableScope} of a replayed result is in the state
+     * it was left in at the end of the visit, and a requestor may not return {@link VisitStatus#CANCEL_BRANCH}.
+     *
+     * @throws IllegalStateException if the requestor returns {@link VisitStatus#CANCEL_BRANCH}
+     */
+    public void visitCompilationUnitFromStore(ITypeRequestor requestor) {
+        if (sharedModuleInfo == null || enclosingDeclarationNode == null) {
+            visitCompilationUnit(requestor);
+            return;
+        }
+        InferenceResults results = InferenceResults.get(sharedModuleInfo);
+        if (results == null) {
+            String event = null;
+            if (GroovyLogManager.manager.hasLoggers()) {
+                event = "Inference results: " + unit.getElementName();
+                GroovyLogManager.manager.logStart(event);
+            }
+            results = new InferenceResults();
+            visitCompilationUnit(results.createRecorder());
+            InferenceResults.put(sharedModuleInfo, results);
+            if (event != null) {
+                GroovyLogManager.manager.logEnd(event, TraceCategory.DEFAULT, "recorded " + results.size() + " results");
+            }
+        }
+        results.replay(requestor);
+    }
+
     public void visitJDT(IType type, ITypeRequestor requestor) {
         IJavaElement oldEnclosing = enclosingElement;
         ASTNode oldEnclosingNode = enclosingDeclarationNode;
@@ -2313,13 +2350,17 @@ assert primaryExprType != null && dependentExprType != null;
      * the ModuleNode must be based on the most recent working copies.
      */
     private static ModuleNodeInfo createModuleNode(GroovyCompilationUnit unit) {
-        if (unit.getOwner() == null || unit.owner == DefaultWorkingCopyOwner.PRIMARY) {
+        if (isPrimary(unit)) {
             return unit.getModuleInfo(true);
         } else {
             return unit.getNewModuleInfo();
         }
     }
 
+    private static boolean isPrimary(GroovyCompilationUnit unit) {
+        return unit.getOwner() == null || unit.owner == DefaultWorkingCopyOwner.PRIMARY;
+    }
+
     /**
      * Creates type name taking into account inner types.
      */
@@ -0,0 +1,4 @@
+class GroovyBroken {
+    String name
+    Strin typo
+}
@@ -0,0 +1,5 @@
+public class JavaBroken {
+    public int length(GroovyBroken broken) {
+        return broken.getName().lenth();
+    }
+}
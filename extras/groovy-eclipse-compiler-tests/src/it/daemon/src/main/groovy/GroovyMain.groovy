@@ -0,0 +1,5 @@
+class GroovyMain {
+	static void main(String... args) {
+		new GroovyHello().sayHello()
+	}
+}
\ No newline at end of file
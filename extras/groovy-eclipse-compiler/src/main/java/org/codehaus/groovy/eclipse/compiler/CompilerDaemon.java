@@ -0,0 +1,552 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.internal.compiler.batch.ClasspathJar;
+import org.eclipse.jdt.internal.compiler.batch.FileSystem;
+import org.eclipse.jdt.internal.compiler.batch.Main;
+import org.eclipse.jdt.internal.compiler.env.AccessRuleSet;
+
+/**
+ * The compiler daemon started by {@link CompilerDaemonClient}.  It compiles
+ * the requests of concurrent builds side by side, on a JVM that stays warm
+ * between modules and builds, and keeps the jars of the classpaths it has seen
+ * open from one compilation to the next, until no compilation has been
+ * requested for {@link #JAR_IDLE_MILLIS}.
+ * Open jars cannot be deleted on Windows, so they are not kept past the end
+ * of a build.
+ * <p>
+ * Usage: {@code CompilerDaemon <state file> <idle minutes>}
+ */
+public final class CompilerDaemon {
+
+    /** Time without requests after which the cached jars are closed. */
+    private static final int JAR_IDLE_MILLIS = 10000;
+
+    /** Time a client has to answer the challenge and send its request; shorter than the client waits. */
+    private static final int HANDSHAKE_MILLIS = 5000;
+
+    /** Connections authenticated at the same time, and connections waiting for their turn. */
+    private static final int MAX_HANDSHAKES = 2, MAX_PENDING_HANDSHAKES = 16;
+
+    public static void main(String[] args) throws Exception {
+        File stateFile = new File(args[0]);
+        long idleMillis = Long.parseLong(args[1]) * 60 * 1000;
+
+        // the process that started the daemon does not read its output
+        PrintStream log = new PrintStream(new FileOutputStream(CompilerDaemonClient.getLogFile(stateFile), true), true);
+        System.setOut(log);
+        System.setErr(log);
+
+        try {
+            new CompilerDaemon(stateFile, idleMillis).run();
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+        System.exit(0);
+    }
+
+    //--------------------------------------------------------------------------
+
+    private final File stateFile;
+    private final long idleMillis;
+    private final byte[] token = new byte[32];
+    private final SecureRandom random = new SecureRandom();
+    private final JarCache jarCache = new JarCache();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private volatile long lastRequestEnd = System.currentTimeMillis();
+
+    // connections are authenticated apart from compilations, so that clients
+    // queued behind long compilations still get through the handshake in time
+    private final ExecutorService handshakes = new ThreadPoolExecutor(MAX_HANDSHAKES, MAX_HANDSHAKES,
+        0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(MAX_PENDING_HANDSHAKES),
+        new DaemonThreadFactory("Groovy-Eclipse compiler daemon handshake"));
+    // only authenticated requests are queued here; at least two run at once, so that a short compilation is not held up by a long one
+    private final ExecutorService compilations = Executors.newFixedThreadPool(
+        Math.max(2, Runtime.getRuntime().availableProcessors()), new DaemonThreadFactory("Groovy-Eclipse compiler daemon compilation"));
+
+    private CompilerDaemon(File stateFile, long idleMillis) {
+        this.stateFile = stateFile;
+        this.idleMillis = idleMillis;
+        random.nextBytes(token);
+    }
+
+    private void run() throws IOException {
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        try {
+            server.setSoTimeout((int) Math.min(Math.min(idleMillis, JAR_IDLE_MILLIS), Integer.MAX_VALUE));
+            writeState(server.getLocalPort());
+            log("Listening on port " + server.getLocalPort() + " as process " + processId());
+            while (true) {
+                final Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    if (activeRequests.get() > 0) {
+                        continue;
+                    }
+                    if (!ownsState()) {
+                        // clients can no longer find this daemon
+                        log("State file removed or replaced; exiting");
+                        break;
+                    }
+                    long idle = System.currentTimeMillis() - lastRequestEnd;
+                    if (idle >= idleMillis) {
+                        log("Idle for " + idleMillis / 60000 + " minutes; exiting");
+                        break;
+                    }
+                    if (idle >= JAR_IDLE_MILLIS && jarCache.clear()) {
+                        log("Closed the cached jars");
+                    }
+                    continue;
+                }
+                try {
+                    handshakes.execute(new Runnable() {
+                        public void run() {
+                            try {
+                                authenticate(socket);
+                            } catch (Error e) {
+                                exit(e);
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    log("Too many connections waiting for the handshake; closing one");
+                    close(socket);
+                }
+            }
+        } finally {
+            handshakes.shutdownNow();
+            compilations.shutdownNow();
+            server.close();
+            deleteState();
+            jarCache.clear();
+        }
+    }
+
+    /**
+     * Challenges the client and reads its request, within {@link #HANDSHAKE_MILLIS},
+     * then queues the compilation.  Nothing is done for a client before it has
+     * proven that it knows the token.
+     */
+    private void authenticate(final Socket socket) {
+        final String[] args;
+        try {
+            socket.setSoTimeout(HANDSHAKE_MILLIS);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            byte[] challenge = new byte[32];
+            random.nextBytes(challenge);
+            out.writeInt(CompilerDaemonClient.PROTOCOL_VERSION);
+            CompilerDaemonClient.writeBytes(out, challenge);
+            out.flush();
+            byte[] response = CompilerDaemonClient.readBytes(in, 64);
+            if (!MessageDigest.isEqual(response, CompilerDaemonClient.sign(token, challenge))) {
+                log("Rejected a client that does not know the token");
+                close(socket);
+                return;
+            }
+            out.writeInt(CompilerDaemonClient.PROTOCOL_VERSION);
+            out.flush();
+
+            int argCount = in.readInt();
+            args = new String[argCount];
+            for (int i = 0; i < argCount; i++) {
+                args[i] = CompilerDaemonClient.readString(in);
+            }
+            socket.setSoTimeout(0);
+        } catch (IOException e) {
+            log("Handshake failed: " + e);
+            close(socket);
+            return;
+        }
+
+        activeRequests.incrementAndGet();
+        try {
+            compilations.execute(new Runnable() {
+                public void run() {
+                    try {
+                        serve(socket, args);
+                    } catch (Exception e) {
+                        log("Request failed: " + e);
+                    } catch (Error e) {
+                        exit(e);
+                    } finally {
+                        lastRequestEnd = System.currentTimeMillis();
+                        activeRequests.decrementAndGet();
+                        close(socket);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the daemon is shutting down
+            activeRequests.decrementAndGet();
+            close(socket);
+        }
+    }
+
+    private void serve(Socket socket, String[] args) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        StringWriter output = new StringWriter();
+        StringWriter errors = new StringWriter();
+        boolean success;
+        long start = System.currentTimeMillis();
+        CachingMain main = new CachingMain(new PrintWriter(output), new PrintWriter(errors), jarCache);
+        try {
+            success = main.compile(args);
+        } catch (Exception e) {
+            // report like a forked compiler that crashed would, and carry on;
+            // errors like OutOfMemoryError leave the JVM unfit for more work
+            e.printStackTrace(new PrintWriter(errors, true));
+            success = false;
+        } finally {
+            main.releaseJars();
+        }
+        log("Compiled in " + (System.currentTimeMillis() - start) + "ms" + (success ? "" : " with errors"));
+
+        out.writeInt(success ? 0 : 1);
+        CompilerDaemonClient.writeString(out, output.toString());
+        CompilerDaemonClient.writeString(out, errors.toString());
+        out.flush();
+    }
+
+    /**
+     * Exits after an error, without answering the requests in progress; their
+     * clients see the connection close and compile in a forked process.  The
+     * state file goes first, so that the next client starts a new daemon.
+     */
+    private void exit(Error error) {
+        log("Exiting after an error");
+        error.printStackTrace();
+        deleteState();
+        System.exit(1);
+    }
+
+    private void writeState(int port) throws IOException {
+        Properties state = new Properties();
+        state.setProperty("port", String.valueOf(port));
+        state.setProperty("token", CompilerDaemonClient.toHex(token));
+        // tells clients and tests which process served them
+        state.setProperty("pid", processId());
+
+        // made readable by its owner only before the token goes in, and
+        // renamed into place so that clients never see a partial file
+        File temp = new File(stateFile.getPath() + ".tmp");
+        temp.delete();
+        temp.createNewFile();
+        CompilerDaemonClient.restrictToOwner(temp);
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            state.store(out, "Groovy-Eclipse compiler daemon");
+        } finally {
+            out.close();
+        }
+        stateFile.delete();
+        if (!temp.renameTo(stateFile)) {
+            throw new IOException("Cannot rename " + temp + " to " + stateFile);
+        }
+    }
+
+    private void deleteState() {
+        // a newer daemon may have replaced the state file already
+        if (ownsState()) {
+            stateFile.delete();
+        }
+    }
+
+    private boolean ownsState() {
+        Properties state = new Properties();
+        try {
+            InputStream in = new FileInputStream(stateFile);
+            try {
+                state.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return CompilerDaemonClient.toHex(token).equals(state.getProperty("token"));
+    }
+
+    private static String processId() {
+        // "pid@host" on the usual JVMs
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        int at = name.indexOf('@');
+        return at < 0 ? name : name.substring(0, at);
+    }
+
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    private static void log(String message) {
+        System.out.println(new Date() + " " + message);
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final String name;
+
+        DaemonThreadFactory(String name) {
+            this.name = name;
+        }
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * A batch compiler that takes the jars of its classpath from a cache, so
+     * that they are opened once for all the compilations that use them.
+     */
+    private static class CachingMain extends Main {
+
+        private final JarCache jarCache;
+        private final List<JarCache.Jar> acquiredJars = new ArrayList<JarCache.Jar>();
+
+        CachingMain(PrintWriter out, PrintWriter err, JarCache jarCache) {
+            super(out, err, false/* systemExit */, null/* options */, null/* progress */);
+            this.jarCache = jarCache;
+        }
+
+        @Override
+        public FileSystem getLibraryAccess() {
+            if (checkedClasspaths != null) {
+                acquiredJars.addAll(jarCache.acquire(checkedClasspaths));
+            }
+            return super.getLibraryAccess();
+        }
+
+        void releaseJars() {
+            jarCache.release(acquiredJars);
+            acquiredJars.clear();
+        }
+    }
+
+    /**
+     * Jars by classpath entry, kept open between compilations.  A jar is used
+     * again only for an entry with the same path, access rules and destination,
+     * and only if its time stamp and size are unchanged; the least recently
+     * used jars are closed when there are too many.
+     * <p>
+     * The cache is locked only while jars are handed out or given back, not
+     * while compiling.  A {@link ClasspathJar} fills its package cache lazily,
+     * so a cached jar is lent to one compilation at a time; a compilation that
+     * finds it lent out reads the jar it opened itself.  A jar that is dropped
+     * from the cache while lent out is closed when it is given back.
+     */
+    private static class JarCache {
+
+        private static final int MAX_JARS = 1000;
+
+        private static Field closeZipFileAtEnd;
+        static {
+            try {
+                closeZipFileAtEnd = ClasspathJar.class.getDeclaredField("closeZipFileAtEnd");
+                closeZipFileAtEnd.setAccessible(true);
+            } catch (Exception e) {
+                log("Jars cannot be cached: " + e);
+            }
+        }
+
+        private final Map<Key, Jar> jars = new LinkedHashMap<Key, Jar>(64, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Jar> eldest) {
+                if (size() > MAX_JARS) {
+                    if (!eldest.getValue().lent) {
+                        close(eldest.getValue().classpath);
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        private static class Key {
+            final String path;
+            final AccessRuleSet accessRuleSet;
+            final String destinationPath;
+            Key(ClasspathJar classpath) {
+                this.path = classpath.getPath();
+                this.accessRuleSet = classpath.accessRuleSet;
+                this.destinationPath = classpath.destinationPath;
+            }
+            @Override
+            public boolean equals(Object obj) {
+                if (!(obj instanceof Key)) {
+                    return false;
+                }
+                Key that = (Key) obj;
+                return path.equals(that.path) && equal(accessRuleSet, that.accessRuleSet) && equal(destinationPath, that.destinationPath);
+            }
+            @Override
+            public int hashCode() {
+                return path.hashCode();
+            }
+            private static boolean equal(Object one, Object two) {
+                return one == null ? two == null : one.equals(two);
+            }
+        }
+
+        static class Jar {
+            final Key key;
+            final ClasspathJar classpath;
+            final long lastModified;
+            final long length;
+            boolean lent;
+            Jar(Key key, ClasspathJar classpath, File file) {
+                this.key = key;
+                this.classpath = classpath;
+                this.lastModified = file.lastModified();
+                this.length = file.length();
+            }
+        }
+
+        /**
+         * Replaces the jars of {@code classpaths} with cached ones where it can
+         * and caches the others.
+         *
+         * @return the cached jars lent to the caller, to be given back through
+         *         {@link #release(List)} once the compilation is over
+         */
+        synchronized List<Jar> acquire(FileSystem.Classpath[] classpaths) {
+            List<Jar> lent = new ArrayList<Jar>();
+            if (closeZipFileAtEnd == null) {
+                return lent;
+            }
+            for (int i = 0; i < classpaths.length; i++) {
+                // subclasses read sources or external annotations; leave them be
+                if (classpaths[i] == null || classpaths[i].getClass() != ClasspathJar.class) {
+                    continue;
+                }
+                Key key = new Key((ClasspathJar) classpaths[i]);
+                File file = new File(key.path);
+                Jar jar = jars.get(key);
+                if (jar != null && jar.lastModified == file.lastModified() && jar.length == file.length()) {
+                    if (!jar.lent) {
+                        jar.lent = true;
+                        lent.add(jar);
+                        classpaths[i] = jar.classpath;
+                    }
+                } else {
+                    if (jar != null && !jar.lent) {
+                        close(jar.classpath);
+                    }
+                    ClasspathJar classpath = (ClasspathJar) classpaths[i];
+                    if (setCloseZipFileAtEnd(classpath, false)) {
+                        jar = new Jar(key, classpath, file);
+                        jar.lent = true;
+                        lent.add(jar);
+                        jars.put(key, jar);
+                    }
+                }
+            }
+            return lent;
+        }
+
+        synchronized void release(List<Jar> lent) {
+            for (Jar jar : lent) {
+                jar.lent = false;
+                if (jars.get(jar.key) != jar) {
+                    close(jar.classpath);
+                }
+            }
+        }
+
+        /**
+         * Closes the cached jars that are not lent out and forgets them all.
+         *
+         * @return {@code true} if the cache was not empty
+         */
+        synchronized boolean clear() {
+            boolean cleared = !jars.isEmpty();
+            for (Iterator<Jar> it = jars.values().iterator(); it.hasNext();) {
+                Jar jar = it.next();
+                if (!jar.lent) {
+                    close(jar.classpath);
+                }
+                it.remove();
+            }
+            return cleared;
+        }
+
+        private static void close(ClasspathJar classpath) {
+            if (setCloseZipFileAtEnd(classpath, true)) {
+                classpath.reset();
+            }
+        }
+
+        private static boolean setCloseZipFileAtEnd(ClasspathJar classpath, boolean value) {
+            try {
+                closeZipFileAtEnd.setBoolean(classpath, value);
+                return true;
+            } catch (IllegalAccessException e) {
+                return false;
+            }
+        }
+    }
+}
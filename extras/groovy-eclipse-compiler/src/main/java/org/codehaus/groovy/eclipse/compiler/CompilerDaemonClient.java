@@ -0,0 +1,452 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.FileLock;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Runs compilations in a long-lived compiler daemon, so that modules compiled
+ * with {@code fork=true} do not each pay for starting and warming up a JVM.
+ * The daemon is started on first use and then shared by all the modules and
+ * builds that use the same java executable, JVM arguments and compiler jars;
+ * it exits by itself once it has been idle for {@link #IDLE_MINUTES}.
+ * <p>
+ * The daemon only listens on the loopback interface.  Its port and a secret
+ * token are kept in a state file under {@code ~/.groovy-eclipse/daemon} (or
+ * the directory given by {@code greclipse.daemon.dir}) that only the current
+ * user can read, and a client must prove that it knows the token before the
+ * daemon compiles anything for it.  Removing the state file stops the daemon.
+ * <p>
+ * Any failure to reach the daemon is thrown as an {@link IOException}, after
+ * which the caller is expected to compile in a fresh forked process instead.
+ * <p>
+ * IMPORTANT: like {@link GroovyEclipseCompiler}, this class must not reference
+ * any JDT classes, not even through {@code CompilerDaemon}, which is the part
+ * that runs in the daemon.
+ */
+final class CompilerDaemonClient {
+
+    static final int PROTOCOL_VERSION = 1;
+
+    static final String DAEMON_CLASS = "org.codehaus.groovy.eclipse.compiler.CompilerDaemon";
+
+    /** Minutes of inactivity after which the daemon exits. */
+    static final int IDLE_MINUTES = Integer.getInteger("greclipse.daemon.idleMinutes", 60);
+
+    private static final int CONNECT_TIMEOUT = 2000; // ms
+    private static final int HANDSHAKE_TIMEOUT = 10000; // ms
+    private static final int START_TIMEOUT = 60000; // ms
+
+    static class Result {
+        final int exitCode;
+        final String output;
+        final String errors;
+        Result(int exitCode, String output, String errors) {
+            this.exitCode = exitCode;
+            this.output = output;
+            this.errors = errors;
+        }
+    }
+
+    private final Logger logger;
+    private final List<String> command;
+    private final File stateFile;
+    private final File lockFile;
+
+    /**
+     * @param executable the java executable to run the daemon with
+     * @param jvmArgs arguments for the daemon JVM, like {@code -Xmx512m}
+     * @param classpath classpath of the daemon: this plugin and groovy-eclipse-batch
+     */
+    CompilerDaemonClient(Logger logger, String executable, List<String> jvmArgs, String classpath) throws IOException {
+        this.logger = logger;
+
+        File stateDir = getStateDirectory();
+        String key = computeKey(executable, jvmArgs, classpath);
+        this.stateFile = new File(stateDir, key + ".properties");
+        this.lockFile = new File(stateDir, key + ".lock");
+
+        command = new ArrayList<String>();
+        command.add(executable);
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(classpath);
+        command.add(DAEMON_CLASS);
+        command.add(stateFile.getAbsolutePath());
+        command.add(String.valueOf(IDLE_MINUTES));
+    }
+
+    /**
+     * Compiles in the daemon, starting it first if it is not running.
+     *
+     * @param args arguments for the batch compiler
+     * @param workingDirectory directory that relative paths in {@code args} are relative to
+     */
+    Result compile(String[] args, File workingDirectory) throws IOException {
+        // the daemon runs in a directory of its own and is shared by all modules
+        args = resolvePaths(args, workingDirectory);
+
+        Connection connection = connect();
+        if (connection == null) {
+            connection = start();
+        }
+        try {
+            DataInputStream in = connection.in;
+            DataOutputStream out = connection.out;
+
+            out.writeInt(args.length);
+            for (String arg : args) {
+                writeString(out, arg);
+            }
+            out.flush();
+
+            connection.socket.setSoTimeout(0); // compiling takes as long as it takes
+            int exitCode = in.readInt();
+            String output = readString(in);
+            String errors = readString(in);
+            logger.info("Compiled by the compiler daemon with process id " + connection.daemon);
+            return new Result(exitCode, output, errors);
+        } finally {
+            connection.socket.close();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+
+    /** Options of the batch compiler whose value is a path. */
+    private static final Set<String> PATH_OPTIONS = new HashSet<String>(Arrays.asList(
+        "-d", "-s", "-log", "-properties"));
+
+    /** Options of the batch compiler whose value is a list of paths. */
+    private static final Set<String> PATH_LIST_OPTIONS = new HashSet<String>(Arrays.asList(
+        "-cp", "-classpath", "-sourcepath", "-bootclasspath", "-extdirs", "-endorseddirs", "-processorpath"));
+
+    /** Options of the batch compiler whose value is not a path. */
+    private static final Set<String> VALUE_OPTIONS = new HashSet<String>(Arrays.asList(
+        "-source", "-target", "-encoding", "-processor", "-repeat", "-maxProblems", "-classNames"));
+
+    /**
+     * Makes the paths in the arguments of a compilation absolute, resolving
+     * them against {@code workingDirectory}: the paths given to options that
+     * take paths, the source files and the argument files ({@code @file}).
+     */
+    static String[] resolvePaths(String[] args, File workingDirectory) {
+        String[] resolved = new String[args.length];
+        for (int i = 0; i < args.length; i += 1) {
+            String arg = args[i];
+            resolved[i] = arg;
+            if (i + 1 < args.length && (PATH_OPTIONS.contains(arg) || PATH_LIST_OPTIONS.contains(arg) || VALUE_OPTIONS.contains(arg))) {
+                String value = args[++i];
+                if (PATH_LIST_OPTIONS.contains(arg)) {
+                    value = resolvePathList(value, workingDirectory);
+                } else if (PATH_OPTIONS.contains(arg) && !(arg.equals("-d") && value.equals("none"))) {
+                    value = resolvePath(value, workingDirectory);
+                }
+                resolved[i] = value;
+            } else if (arg.startsWith("@")) {
+                resolved[i] = "@" + resolvePath(arg.substring(1), workingDirectory);
+            } else if (!arg.startsWith("-") && new File(workingDirectory, arg).exists()) {
+                resolved[i] = resolvePath(arg, workingDirectory);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Resolves each entry of a path list; an entry may be followed by access
+     * rules or a destination in brackets, like {@code lib.jar[-com/foo/internal/*]}.
+     */
+    private static String resolvePathList(String value, File workingDirectory) {
+        StringBuilder sb = new StringBuilder();
+        for (String entry : value.split(File.pathSeparator, -1)) {
+            if (sb.length() > 0) {
+                sb.append(File.pathSeparator);
+            }
+            int bracket = entry.indexOf('[');
+            if (bracket == -1) {
+                sb.append(resolvePath(entry, workingDirectory));
+            } else {
+                sb.append(resolvePath(entry.substring(0, bracket), workingDirectory)).append(entry.substring(bracket));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String resolvePath(String path, File workingDirectory) {
+        if (path.length() == 0 || new File(path).isAbsolute()) {
+            return path;
+        }
+        return new File(workingDirectory, path).getAbsolutePath();
+    }
+
+    private static class Connection {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final String daemon;
+        Connection(Socket socket, String daemon) throws IOException {
+            this.socket = socket;
+            this.daemon = daemon;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+    }
+
+    /**
+     * Connects to the running daemon and answers its challenge.
+     *
+     * @return the connection, or {@code null} if no daemon is running
+     */
+    private Connection connect() {
+        Properties state = readState();
+        if (state == null) {
+            return null;
+        }
+        Socket socket = new Socket();
+        try {
+            int port = Integer.parseInt(state.getProperty("port"));
+            byte[] token = fromHex(state.getProperty("token"));
+
+            socket.connect(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port), CONNECT_TIMEOUT);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+            Connection connection = new Connection(socket, state.getProperty("pid"));
+
+            if (connection.in.readInt() != PROTOCOL_VERSION) {
+                throw new IOException("Unexpected protocol version");
+            }
+            byte[] challenge = readBytes(connection.in, 64);
+            writeBytes(connection.out, sign(token, challenge));
+            connection.out.flush();
+            if (connection.in.readInt() != PROTOCOL_VERSION) {
+                throw new IOException("Not accepted by the compiler daemon");
+            }
+            return connection;
+        } catch (Exception e) {
+            // stale state file, or the daemon exited
+            logger.debug("Cannot connect to the compiler daemon: " + e);
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Starts a daemon and connects to it.  Builds that run at the same time
+     * wait for each other, so that only one of them starts the daemon.
+     */
+    private Connection start() throws IOException {
+        synchronized (CompilerDaemonClient.class) {
+            RandomAccessFile lock = new RandomAccessFile(lockFile, "rw");
+            try {
+                FileLock fileLock = lock.getChannel().lock();
+                try {
+                    Connection connection = connect();
+                    if (connection != null) {
+                        return connection; // started by another build in the meantime
+                    }
+                    stateFile.delete();
+
+                    logger.info("Starting the Groovy-Eclipse compiler daemon");
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Daemon command line: " + command);
+                    }
+                    ProcessBuilder builder = new ProcessBuilder(command);
+                    builder.directory(stateFile.getParentFile());
+                    builder.redirectErrorStream(true);
+                    Process process = builder.start();
+                    // the daemon writes to a log file of its own and must not depend on this process
+                    process.getOutputStream().close();
+                    process.getInputStream().close();
+
+                    long deadline = System.currentTimeMillis() + START_TIMEOUT;
+                    while (System.currentTimeMillis() < deadline) {
+                        if (stateFile.isFile()) {
+                            connection = connect();
+                            if (connection != null) {
+                                return connection;
+                            }
+                        }
+                        try {
+                            int exitCode = process.exitValue();
+                            throw new IOException("Compiler daemon exited with code " + exitCode + "; see " + getLogFile(stateFile));
+                        } catch (IllegalThreadStateException stillRunning) {
+                        }
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                    process.destroy();
+                    throw new IOException("Compiler daemon did not start in time");
+                } finally {
+                    fileLock.release();
+                }
+            } finally {
+                lock.close();
+            }
+        }
+    }
+
+    private Properties readState() {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+        try {
+            InputStream in = new FileInputStream(stateFile);
+            try {
+                Properties state = new Properties();
+                state.load(in);
+                return state;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static File getStateDirectory() throws IOException {
+        String path = System.getProperty("greclipse.daemon.dir");
+        File dir = (path != null && path.length() > 0) ? new File(path).getAbsoluteFile() :
+            new File(System.getProperty("user.home"), ".groovy-eclipse" + File.separator + "daemon");
+        if (!dir.isDirectory()) {
+            if (!dir.mkdirs() && !dir.isDirectory()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            restrictToOwner(dir);
+        }
+        return dir;
+    }
+
+    /**
+     * Identifies the daemons that can be shared: same JVM, same options and
+     * same compiler jars, down to their time stamps.
+     */
+    private static String computeKey(String executable, List<String> jvmArgs, String classpath) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(PROTOCOL_VERSION).append('\n').append(executable).append('\n');
+        for (String arg : jvmArgs) {
+            sb.append(arg).append('\n');
+        }
+        for (String entry : classpath.split(File.pathSeparator)) {
+            File file = new File(entry);
+            sb.append(file.getAbsolutePath()).append('@').append(file.lastModified()).append(':').append(file.length()).append('\n');
+        }
+        try {
+            return toHex(MessageDigest.getInstance("SHA-1").digest(sb.toString().getBytes("UTF-8")));
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e.toString());
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // shared with CompilerDaemon
+
+    static File getLogFile(File stateFile) {
+        String name = stateFile.getName();
+        return new File(stateFile.getParentFile(), name.substring(0, name.lastIndexOf('.')) + ".log");
+    }
+
+    static void restrictToOwner(File file) {
+        file.setReadable(false, false);
+        file.setReadable(true, true);
+        file.setWritable(false, false);
+        file.setWritable(true, true);
+        if (file.isDirectory()) {
+            file.setExecutable(false, false);
+            file.setExecutable(true, true);
+        }
+    }
+
+    static byte[] sign(byte[] token, byte[] challenge) throws IOException {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(token, "HmacSHA256"));
+            return mac.doFinal(challenge);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e.toString());
+        }
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInputStream in, int limit) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > limit) {
+            throw new IOException("Unexpected length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /** Unlike {@link DataOutputStream#writeUTF}, not limited to 64K; classpaths can be longer. */
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        writeBytes(out, s.getBytes("UTF-8"));
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in, Integer.MAX_VALUE), "UTF-8");
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    static byte[] fromHex(String s) {
+        byte[] bytes = new byte[s.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(s.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -74,6 +74,14 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
 
     private String javaAgentClass = "";
 
+    /**
+     * With {@code fork=true}, compile in a long-lived daemon rather than in a
+     * new process for every module; see {@link CompilerDaemonClient}.
+     */
+    private static final String DAEMON_PARAM_NAME = "-daemon";
+
+    private boolean daemon;
+
     boolean verbose;
 
     public GroovyEclipseCompiler() {
@@ -126,11 +134,17 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
             }
 
             String groovyEclipseLocation = getGroovyEclipseBatchLocation();
-            success = compileOutOfProcess(config, executable, groovyEclipseLocation, args, messages);
+            if (daemon) {
+                success = compileInDaemon(config, executable, groovyEclipseLocation, args, messages);
+            } else {
+                success = compileOutOfProcess(config, executable, groovyEclipseLocation, args, messages);
+            }
         } else {
             StringWriter out = new StringWriter();
-            Result result = InternalCompiler.doCompile(args, out, getLogger(), verbose);
+            Result result = InternalCompiler.doCompile(args, out, getLogger(), verbose, config.isShowWarnings());
             success = result.success;
+            // problems come back as messages already; only the rest of the output needs parsing
+            messages.addAll(result.problems);
             try {
                 messages.addAll(parseMessages(success ? 0 : 1, out.getBuffer().toString(), config.isShowWarnings()));
             } catch (IOException e) {
@@ -307,9 +321,16 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
             args.put("-encoding", config.getSourceEncoding());
         }
 
+        daemon = false;
         for (Entry<String, String> entry : config.getCustomCompilerArgumentsAsMap().entrySet()) {
 
             String key = entry.getKey();
+            if (DAEMON_PARAM_NAME.equals(key) || DAEMON_PARAM_NAME.equals("-" + key)) {
+                // not a batch compiler option either
+                String value = entry.getValue();
+                daemon = (value == null || value.length() == 0 || Boolean.valueOf(value));
+                continue;
+            }
             if (startsWithHyphen(key)) {
                 if (JAVA_AGENT_CLASS_PARAM_NAME.equals(key)) {
                     setJavaAgentClass(entry.getValue());
@@ -464,6 +485,51 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         return returnCode == 0;
     }
 
+    /**
+     * Compile in the compiler daemon, starting it if need be.  If the daemon
+     * cannot be reached, compile in a forked process instead.
+     */
+    private boolean compileInDaemon(CompilerConfiguration config, String executable, String groovyEclipseLocation,
+            String[] args, List<CompilerMessage> messages) throws CompilerException {
+
+        CompilerDaemonClient.Result result;
+        try {
+            List<String> jvmArgs = new ArrayList<String>();
+            if (!StringUtils.isEmpty(javaAgentClass)) {
+                jvmArgs.add("-javaagent:" + getAdditionnalJavaAgentLocation());
+            }
+            if (!StringUtils.isEmpty(config.getMaxmem())) {
+                jvmArgs.add("-Xmx" + config.getMaxmem());
+            }
+            if (!StringUtils.isEmpty(config.getMeminitial())) {
+                jvmArgs.add("-Xms" + config.getMeminitial());
+            }
+            String classpath = getClassLocation(GroovyEclipseCompiler.class.getName()) + File.pathSeparator + groovyEclipseLocation;
+
+            getLogger().info("Compiling in the compiler daemon using " + groovyEclipseLocation);
+            result = new CompilerDaemonClient(getLogger(), executable, jvmArgs, classpath).compile(args, config.getWorkingDirectory());
+        } catch (IOException e) {
+            getLogger().warn("Unable to use the compiler daemon (" + e.getMessage() + "), compiling in a forked process instead");
+            return compileOutOfProcess(config, executable, groovyEclipseLocation, args, messages);
+        }
+
+        try {
+            messages.addAll(parseMessages(result.exitCode, result.output, config.isShowWarnings()));
+        } catch (IOException e) {
+            throw new CompilerException("Error while reading the compiler daemon output.", e);
+        }
+
+        if ((result.exitCode != 0) && messages.isEmpty()) {
+            if (result.errors.length() == 0) {
+                throw new CompilerException("Unknown error in the compiler daemon; see its log in ~/.groovy-eclipse/daemon");
+            } else {
+                messages.add(new CompilerMessage("Failure executing groovy-eclipse compiler:" + EOL + result.errors, Kind.ERROR));
+            }
+        }
+
+        return result.exitCode == 0;
+    }
+
     /**
      * Parse the output from the compiler into a list of CompilerError objects
      *
@@ -19,10 +19,20 @@ package org.codehaus.groovy.eclipse.compiler;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerMessage.Kind;
 import org.codehaus.plexus.logging.Logger;
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.CompilationProgress;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
 import org.eclipse.jdt.internal.compiler.batch.Main;
+import org.eclipse.jdt.internal.compiler.util.Util;
 
 /**
  * Simple progress monitor to keep track of number of files compiled.
@@ -37,11 +47,13 @@ class InternalCompiler extends CompilationProgress {
         final boolean success;
         final int globalErrorsCount;
         final int globalWarningsCount;
-        public Result(boolean success, int globalErrorCount, int globalWarningCount) {
+        final List<CompilerMessage> problems;
+        public Result(boolean success, int globalErrorCount, int globalWarningCount, List<CompilerMessage> problems) {
             super();
             this.success = success;
             this.globalErrorsCount = globalErrorCount;
             this.globalWarningsCount = globalWarningCount;
+            this.problems = problems;
         }
     }
 
@@ -77,11 +89,103 @@ class InternalCompiler extends CompilationProgress {
         }
     }
 
-    static Result doCompile(String[] args, StringWriter out, Logger logger, boolean verbose) {
+    /**
+     * Compiles with the batch compiler.  Problems are reported as compiler
+     * messages as they are found, so only the rest of the compiler output
+     * (summary, notes from the compiler itself) goes to {@code out}.
+     *
+     * @param showWarnings if false, only errors are reported
+     */
+    static Result doCompile(String[] args, StringWriter out, Logger logger, boolean verbose, boolean showWarnings) {
         InternalCompiler progress = new InternalCompiler(logger, verbose);
-        Main main = new Main(new PrintWriter(out), new PrintWriter(out), false/* systemExit */,
-                null/* options */, progress);
+        // a log file asked for with -log gets problems from the batch compiler's own logger only
+        boolean reportProblems = !Arrays.asList(args).contains("-log");
+        ProblemReportingMain main = new ProblemReportingMain(new PrintWriter(out), progress, reportProblems, showWarnings);
         boolean result = main.compile(args);
-        return new Result(result, main.globalErrorsCount, main.globalWarningsCount);
+        return new Result(result, main.globalErrorsCount, main.globalWarningsCount, main.problems);
+    }
+
+    /**
+     * A batch compiler that hands its problems over as {@link CompilerMessage}s
+     * instead of printing them for {@code GroovyEclipseCompiler} to parse back.
+     */
+    private static class ProblemReportingMain extends Main {
+
+        final List<CompilerMessage> problems = new ArrayList<CompilerMessage>();
+        private final boolean reportProblems;
+        private final boolean showWarnings;
+
+        ProblemReportingMain(PrintWriter out, CompilationProgress progress, boolean reportProblems, boolean showWarnings) {
+            super(out, out, false/* systemExit */, null/* options */, progress);
+            this.reportProblems = reportProblems;
+            this.showWarnings = showWarnings;
+        }
+
+        @Override
+        public ICompilerRequestor getBatchRequestor() {
+            if (!reportProblems) {
+                return super.getBatchRequestor();
+            }
+            return new ICompilerRequestor() {
+                public void acceptResult(CompilationResult compilationResult) {
+                    if (compilationResult.hasProblems() || compilationResult.hasTasks()) {
+                        reportProblems(compilationResult);
+                    }
+                    outputClassFiles(compilationResult);
+                }
+            };
+        }
+
+        private void reportProblems(CompilationResult compilationResult) {
+            int[] lineEnds = compilationResult.getLineSeparatorPositions();
+            for (CategorizedProblem problem : compilationResult.getAllProblems()) {
+                if (problem == null) {
+                    continue;
+                }
+                // keep the counts that the summary and the result are made of
+                globalProblemsCount++;
+                Kind kind;
+                if (problem.isError()) {
+                    globalErrorsCount++;
+                    kind = Kind.ERROR;
+                } else if (problem.getID() == IProblem.Task) {
+                    globalTasksCount++;
+                    kind = Kind.WARNING;
+                } else {
+                    globalWarningsCount++;
+                    kind = Kind.WARNING;
+                }
+                if (showWarnings || kind == Kind.ERROR) {
+                    problems.add(toMessage(problem, kind, lineEnds));
+                }
+            }
+        }
+
+        private static CompilerMessage toMessage(CategorizedProblem problem, Kind kind, int[] lineEnds) {
+            char[] fileName = problem.getOriginatingFileName();
+            if (fileName == null) {
+                return new CompilerMessage(problem.getMessage(), kind);
+            }
+            int startLine = problem.getSourceLineNumber();
+            int startColumn = 0, endLine = startLine, endColumn = 0;
+            if (lineEnds != null && startLine > 0 && problem.getSourceStart() >= 0) {
+                startColumn = column(problem.getSourceStart(), startLine, lineEnds);
+                if (problem.getSourceEnd() >= problem.getSourceStart()) {
+                    endLine = Util.getLineNumber(problem.getSourceEnd(), lineEnds, 0, lineEnds.length - 1);
+                    endColumn = column(problem.getSourceEnd(), endLine, lineEnds);
+                } else {
+                    endColumn = startColumn;
+                }
+            }
+            return new CompilerMessage(new String(fileName), kind, startLine, startColumn, endLine, endColumn, problem.getMessage());
+        }
+
+        /**
+         * Returns the 1-based column of a source position on a given line.
+         */
+        private static int column(int position, int line, int[] lineEnds) {
+            int lineStart = (line > 1 && line - 2 < lineEnds.length) ? lineEnds[line - 2] + 1 : 0;
+            return position - lineStart + 1;
+        }
     }
 }
\ No newline at end of file
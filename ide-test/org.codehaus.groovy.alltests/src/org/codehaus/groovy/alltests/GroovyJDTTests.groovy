@@ -28,6 +28,7 @@ import org.eclipse.jdt.core.groovy.tests.compiler.ScriptFolderTests
 import org.eclipse.jdt.core.groovy.tests.locations.ASTConverterTests
 import org.eclipse.jdt.core.groovy.tests.locations.ASTNodeSourceLocationsTests
 import org.eclipse.jdt.core.groovy.tests.locations.LocationSupportTests
+import org.eclipse.jdt.core.groovy.tests.locations.SourceBufferTests
 import org.eclipse.jdt.core.groovy.tests.locations.SourceLocationsTests
 import org.eclipse.jdt.core.groovy.tests.model.ASTTransformsTests
 import org.eclipse.jdt.core.groovy.tests.model.GroovyClassFileTests
@@ -42,6 +43,9 @@ import org.eclipse.jdt.groovy.core.tests.basic.ErrorRecoveryTests
 import org.eclipse.jdt.groovy.core.tests.basic.GenericsTests
 import org.eclipse.jdt.groovy.core.tests.basic.GroovySimpleTest
 import org.eclipse.jdt.groovy.core.tests.basic.GroovySimpleTests_Compliance_1_8
+import org.eclipse.jdt.groovy.core.tests.basic.IndexingParserPoolTests
+import org.eclipse.jdt.groovy.core.tests.basic.ParallelParsingTests
+import org.eclipse.jdt.groovy.core.tests.basic.SupplementalIndexerTests
 import org.eclipse.jdt.groovy.core.tests.basic.TraitsTests
 import org.eclipse.jdt.groovy.core.tests.basic.TransformationsTests
 
@@ -68,6 +72,9 @@ final class GroovyJDTTests {
         suite.addTest(GenericsTests.suite())
         suite.addTest(GroovySimpleTest.suite())
         suite.addTest(GroovySimpleTests_Compliance_1_8.suite())
+        suite.addTestSuite(IndexingParserPoolTests.class)
+        suite.addTestSuite(ParallelParsingTests.class)
+        suite.addTestSuite(SupplementalIndexerTests.class)
         suite.addTest(ScriptFolderTests.suite())
         suite.addTest(STCScriptsTests.suite())
         if (isAtLeastGroovy(23))
@@ -78,6 +85,7 @@ final class GroovyJDTTests {
         suite.addTest(ASTConverterTests.suite())
         suite.addTest(ASTNodeSourceLocationsTests.suite())
         suite.addTestSuite(LocationSupportTests.class)
+        suite.addTestSuite(SourceBufferTests.class)
         suite.addTest(SourceLocationsTests.suite())
 
         // Model tests
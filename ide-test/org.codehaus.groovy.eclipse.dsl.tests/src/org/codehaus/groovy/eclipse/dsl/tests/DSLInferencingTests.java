@@ -15,6 +15,7 @@
  */
 package org.codehaus.groovy.eclipse.dsl.tests;
 
+import org.codehaus.groovy.eclipse.dsl.DSLDStore;
 import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
 import org.eclipse.core.runtime.IPath;
 
@@ -112,6 +113,20 @@ public final class DSLInferencingTests extends DSLInferencingTestCase {
         assertDeclaringType(contents, start, end, "Other", true);
     }
 
+    public void testIndexedPointcuts() throws Exception {
+        createDsls(
+            "currentType('Bar').accept { property name: 'xxx', type: Integer }",
+            "(currentType('Foo') | currentType(String)).accept { property name: 'xxx', type: Long }");
+        String contents =
+            "class Foo { }\n" +
+            "new Foo().xxx";
+        int start = contents.lastIndexOf("xxx");
+        int end = start + "xxx".length();
+        long pruned = DSLDStore.getPrunedPointcutCount();
+        assertType(contents, start, end, "java.lang.Long", true);
+        assertTrue("Expected pointcuts to be pruned", DSLDStore.getPrunedPointcutCount() > pruned);
+    }
+
     public void testDelegatesTo2() throws Exception {
         createDsls("currentType('Foo').accept { delegatesTo type:'Other' }");
         String contents =
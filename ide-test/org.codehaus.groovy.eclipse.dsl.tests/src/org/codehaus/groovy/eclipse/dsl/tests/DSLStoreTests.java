@@ -15,14 +15,25 @@
  */
 package org.codehaus.groovy.eclipse.dsl.tests;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 
 import org.codehaus.groovy.eclipse.dsl.DSLDStore;
+import org.codehaus.groovy.eclipse.dsl.DSLDStoreManager;
 import org.codehaus.groovy.eclipse.dsl.DSLPreferences;
+import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
+import org.codehaus.groovy.eclipse.dsl.RefreshDSLDJob;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.CurrentTypePointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.FindFieldPointcut;
+import org.codehaus.groovy.eclipse.dsl.script.DSLDScriptCache;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 
 public final class DSLStoreTests extends DSLInferencingTestCase {
 
@@ -236,6 +247,28 @@ public final class DSLStoreTests extends DSLInferencingTestCase {
 
     }
 
+    public void testCompiledScriptCache() throws Exception {
+        createDsls("currentType().accept { }");
+        assertDSLStore(1,
+                createExpectedPointcuts(
+                        new String[] { createSemiUniqueName(CurrentTypePointcut.class, 0) }),
+
+                createExpectedContributionCount(
+                        new String[] {createSemiUniqueName(CurrentTypePointcut.class, 0)},
+                        new Integer[] { 1 }));
+
+        // refresh again; the unchanged script is loaded from the cache
+        long hits = DSLDScriptCache.getInstance().getHitCount();
+        assertDSLStore(1,
+                createExpectedPointcuts(
+                        new String[] { createSemiUniqueName(CurrentTypePointcut.class, 0) }),
+
+                createExpectedContributionCount(
+                        new String[] {createSemiUniqueName(CurrentTypePointcut.class, 0)},
+                        new Integer[] { 1 }));
+        assertTrue("Expected cached script classes to be used", DSLDScriptCache.getInstance().getHitCount() > hits);
+    }
+
     public void testDisabledOfFile() throws Exception {
         createDsls("currentType().accept { }", "fields().accept { }");
         assertDSLStore(2,
@@ -327,4 +360,68 @@ public final class DSLStoreTests extends DSLInferencingTestCase {
                     )
             );
     }
+
+    public void testParallelRefreshOfSeveralProjects() throws Exception {
+        // project i has i + 1 scripts, of fields() for odd i and of currentType() for even i
+        IProject[] projects = new IProject[4];
+        for (int i = 0; i < projects.length; i += 1) {
+            if (i == 0) {
+                projects[i] = project;
+            } else {
+                IPath path = env.addProject("Parallel" + i, "1.5");
+                env.addGroovyNature("Parallel" + i);
+                env.addGroovyJars(path);
+                projects[i] = env.getProject("Parallel" + i);
+            }
+            String[] dsls = new String[i + 1];
+            Arrays.fill(dsls, i % 2 == 0 ? "currentType().accept { }" : "fields().accept { }");
+            createDsls(0, projects[i], dsls);
+        }
+        env.fullBuild();
+
+        // the refresh runs a thread per project, up to the number of processors; the logger of setUp has each one timed
+        DSLDStoreManager manager = GroovyDSLCoreActivator.getDefault().getContextStoreManager();
+        manager.initialize(Arrays.asList(projects), true);
+
+        for (int i = 0; i < projects.length; i += 1) {
+            DSLDStore store = manager.getDSLDStore(projects[i]);
+            IStorage[] keys = store.getAllContextKeys();
+            assertEquals("Wrong number of scripts in the store of " + projects[i].getName(), i + 1, keys.length);
+
+            @SuppressWarnings("unchecked")
+            Map<IStorage, Set<IPointcut>> keyContextMap = (Map<IStorage, Set<IPointcut>>)
+                    ReflectionUtils.getPrivateField(DSLDStore.class, "keyContextMap", store);
+            for (IStorage key : keys) {
+                assertTrue(key.getFullPath() + " is not in " + projects[i].getName(), projects[i].getFullPath().isPrefixOf(key.getFullPath()));
+                Set<IPointcut> pcs = keyContextMap.get(key);
+                assertEquals(1, pcs.size());
+                assertEquals(i % 2 == 0 ? CurrentTypePointcut.class : FindFieldPointcut.class, pcs.iterator().next().getClass());
+            }
+        }
+    }
+
+    public void testArchiveScannedOncePerWorkspace() throws Exception {
+        addJarToProject("simple_dsld.jar");
+        IPath otherPath = env.addProject("Other", "1.5");
+        env.addGroovyNature("Other");
+        env.addGroovyJars(otherPath);
+        env.addExternalJar(otherPath, findExternalFilePath("simple_dsld.jar"));
+        env.fullBuild();
+
+        DSLDStoreManager manager = GroovyDSLCoreActivator.getDefault().getContextStoreManager();
+        IProject other = env.getProject("Other");
+        manager.initialize(project, true);
+
+        // the archives of the first project have been scanned; the second project shares all of them
+        int scans = RefreshDSLDJob.getArchiveScanCount();
+        manager.initialize(other, true);
+        manager.initialize(Arrays.asList(project, other), true);
+        assertEquals(scans, RefreshDSLDJob.getArchiveScanCount());
+
+        for (IProject p : new IProject[] {project, other}) {
+            IStorage[] keys = manager.getDSLDStore(p).getAllContextKeys();
+            assertEquals("Wrong number of scripts in the store of " + p.getName(), 1, keys.length);
+            assertEquals("simple.dsld", keys[0].getName());
+        }
+    }
 }
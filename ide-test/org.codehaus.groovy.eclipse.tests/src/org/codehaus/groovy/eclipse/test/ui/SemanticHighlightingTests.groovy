@@ -29,6 +29,7 @@ import org.codehaus.jdt.groovy.model.GroovyCompilationUnit
 import org.eclipse.jdt.core.tests.util.GroovyUtils
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor
+import org.eclipse.jface.text.Region
 
 final class SemanticHighlightingTests extends TestCase {
 
@@ -1446,6 +1447,47 @@ final class SemanticHighlightingTests extends TestCase {
             new HighlightedTypedPosition(contents.lastIndexOf('PI'), 2, STATIC_VALUE)*/)
     }
 
+    void testIncrementalHighlighting() {
+        String before = '''\
+            class X {
+              static FOO = 1
+              void x() { int i = FOO; }
+              int y() { String s = 'str'; s.length() }
+            }
+            '''.stripIndent()
+        String after = before.replace('int i = FOO;', 'int i = FOO; def j = i')
+
+        def previous = new GatherSemanticReferences(EclipseTestSetup.addGroovySource(before, 'X', 'p')).findSemanticHighlightingReferences()
+
+        int start = before.indexOf('int i = FOO;'), delta = after.length() - before.length()
+        def region = new Region(start, 'int i = FOO;'.length() + delta)
+        def unit = EclipseTestSetup.addGroovySource(after, 'X', 'q')
+        def incremental = new GatherSemanticReferences(unit).findSemanticHighlightingReferences(region, delta, previous)
+        assertNotNull(incremental)
+
+        assertEquals(new GatherSemanticReferences(unit).findSemanticHighlightingReferences().join('\n'), incremental.join('\n'))
+        // FOO's declaration is outside of the edit, so that edit cannot be handled incrementally
+        assertNull(new GatherSemanticReferences(unit).findSemanticHighlightingReferences(
+            new Region(after.indexOf('FOO'), 3), 0, previous))
+    }
+
+    void testIncrementalHighlightingOfDynamicMethod() {
+        String before = '''\
+            class X {
+              def x() { 'str' }
+              int y() { x().length() }
+            }
+            '''.stripIndent()
+        String after = before.replace("'str'", '42')
+
+        def previous = new GatherSemanticReferences(EclipseTestSetup.addGroovySource(before, 'X', 'p')).findSemanticHighlightingReferences()
+
+        int start = before.indexOf("'str'"), delta = after.length() - before.length()
+        def unit = EclipseTestSetup.addGroovySource(after, 'X', 'q')
+        // the inferred type of x() changes, and with it the highlighting of length() in y()
+        assertNull(new GatherSemanticReferences(unit).findSemanticHighlightingReferences(new Region(start, 2), delta, previous))
+    }
+
     //
     private int counter
 
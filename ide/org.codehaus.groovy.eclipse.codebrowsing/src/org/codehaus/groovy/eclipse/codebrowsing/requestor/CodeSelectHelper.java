@@ -66,7 +66,7 @@ public class CodeSelectHelper implements ICodeSelectHelper {
 
                     CodeSelectRequestor requestor = createRequestor(node, region, select, unit);
                     TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
-                    visitor.visitCompilationUnit(requestor);
+                    visitor.visitCompilationUnitFromStore(requestor);
 
                     IJavaElement element = requestor.getRequestedElement();
                     if (element != null) {
@@ -109,7 +109,7 @@ public class CodeSelectHelper implements ICodeSelectHelper {
 
                     CodeSelectRequestor requestor = createRequestor(node, region, select, unit);
                     TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
-                    visitor.visitCompilationUnit(requestor);
+                    visitor.visitCompilationUnitFromStore(requestor);
                     return requestor.getRequestedNode();
                 }
             } finally {
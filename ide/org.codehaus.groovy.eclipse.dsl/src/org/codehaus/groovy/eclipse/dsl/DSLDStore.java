@@ -16,6 +16,7 @@
 package org.codehaus.groovy.eclipse.dsl;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -23,7 +24,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.dsl.contributions.IContributionElement;
@@ -42,6 +45,8 @@ import org.eclipse.jdt.internal.core.NonJavaResource;
  */
 public class DSLDStore {
 
+    private static final AtomicLong lookupCount = new AtomicLong(), prunedCount = new AtomicLong();
+
     /** Maps pointcuts to their contributors. */
     private final Map<IPointcut, List<IContributionGroup>> pointcutContributionMap =
         new LinkedHashMap<IPointcut, List<IContributionGroup>>();
@@ -49,12 +54,19 @@ public class DSLDStore {
     private final Map<IStorage, Set<IPointcut>> keyContextMap =
         new HashMap<IStorage, Set<IPointcut>>();
 
+    /** Pointcuts and their contributors in registration order; guarded by {@link #pointcutContributionMap}. */
+    private List<IPointcut> indexedPointcuts;
+    private List<List<IContributionGroup>> indexedContributions;
+    /** Candidate selection for {@link #indexedPointcuts}; {@code null} if the store changed since it was built. */
+    private PointcutIndex index;
+
     public void addContributionGroup(IPointcut pointcut, IContributionGroup contribution) {
         synchronized (pointcutContributionMap) {
             List<IContributionGroup> contributions = pointcutContributionMap.get(pointcut);
             if (contributions == null) {
                 contributions = new ArrayList<IContributionGroup>();
                 pointcutContributionMap.put(pointcut, contributions);
+                index = null;
             }
             contributions.add(contribution);
         }
@@ -83,6 +95,7 @@ public class DSLDStore {
                 for (IPointcut pointcut : pointcuts) {
                     pointcutContributionMap.remove(pointcut);
                 }
+                index = null;
             }
         }
     }
@@ -93,6 +106,7 @@ public class DSLDStore {
         }
         synchronized (pointcutContributionMap) {
             pointcutContributionMap.clear();
+            index = null;
         }
     }
 
@@ -122,6 +136,7 @@ public class DSLDStore {
             List<IContributionGroup> existing = pointcutContributionMap.get(pointcut);
             if (existing == null) {
                 pointcutContributionMap.put(pointcut, contributions);
+                index = null;
             } else {
                 existing.addAll(contributions);
             }
@@ -136,6 +151,8 @@ public class DSLDStore {
 
     /**
      * Find all contributions for this pattern and this declaring type.
+     * Only pointcuts that {@link PointcutIndex} selects for the pattern are
+     * evaluated; the others cannot match.
      *
      * @param pattern The pattern to match against
      * @param disabledScripts The set of scripts that are disabled and should be ignored
@@ -144,22 +161,53 @@ public class DSLDStore {
     public List<IContributionElement> findContributions(GroovyDSLDContext pattern, Set<String> disabledScripts) {
         List<IContributionElement> elts = new ArrayList<IContributionElement>();
         synchronized (pointcutContributionMap) {
-            for (Map.Entry<IPointcut, List<IContributionGroup>> entry : pointcutContributionMap.entrySet()) {
-                IPointcut pointcut = entry.getKey();
+            if (index == null) {
+                indexedPointcuts = new ArrayList<IPointcut>(pointcutContributionMap.keySet());
+                indexedContributions = new ArrayList<List<IContributionGroup>>(pointcutContributionMap.values());
+                index = new PointcutIndex(indexedPointcuts);
+            }
+            ClassNode indexedType = pattern.getCurrentType();
+            BitSet candidates = index.getCandidates(pattern);
+            int evaluated = 0;
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                evaluated += 1;
+                IPointcut pointcut = indexedPointcuts.get(i);
                 if (!disabledScripts.contains(DSLDStore.toUniqueString(pointcut.getContainerIdentifier()))) {
                     pattern.resetBinding();
                     Collection<?> results = pointcut.matches(pattern, pattern.getCurrentType());
                     if (results != null) {
-                        for (IContributionGroup group : entry.getValue()) {
+                        for (IContributionGroup group : indexedContributions.get(i)) {
                             elts.addAll(group.getContributions(pattern, pattern.getCurrentBinding()));
                         }
+                        if (pattern.getCurrentType() != indexedType) {
+                            // a contribution set the delegate type; select the remaining pointcuts for the new type
+                            indexedType = pattern.getCurrentType();
+                            candidates = index.getCandidates(pattern);
+                        }
                     }
                 }
             }
+            lookupCount.incrementAndGet();
+            prunedCount.addAndGet(indexedPointcuts.size() - evaluated);
         }
         return elts;
     }
 
+    /**
+     * @return number of calls to {@link #findContributions(GroovyDSLDContext, Set)} for all stores
+     */
+    public static long getLookupCount() {
+        return lookupCount.get();
+    }
+
+    /**
+     * @return number of pointcuts that {@link #findContributions(GroovyDSLDContext, Set)}
+     *         did not have to evaluate, summed over all lookups of all stores
+     */
+    public static long getPrunedPointcutCount() {
+        return prunedCount.get();
+    }
+
     public IStorage[] getAllContextKeys() {
         synchronized (keyContextMap) {
             return keyContextMap.keySet().toArray(new IStorage[0]);
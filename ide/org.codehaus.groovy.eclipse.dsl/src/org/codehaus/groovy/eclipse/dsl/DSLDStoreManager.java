@@ -18,11 +18,11 @@ package org.codehaus.groovy.eclipse.dsl;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IProject;
@@ -38,12 +38,13 @@ import org.eclipse.jdt.core.IJavaProject;
  */
 public class DSLDStoreManager {
 
-    private final Map<String, DSLDStore> projectDSLDMap;
+    private final ConcurrentMap<String, DSLDStore> projectDSLDMap;
 
     private final Set<String> inProgress = new HashSet<String>();
 
     public DSLDStoreManager() {
-        projectDSLDMap = new HashMap<String, DSLDStore>();
+        // stores of different projects may be refreshed concurrently
+        projectDSLDMap = new ConcurrentHashMap<String, DSLDStore>();
     }
 
     public DSLDStore getDSLDStore(IJavaProject project) {
@@ -57,7 +58,10 @@ public class DSLDStoreManager {
         DSLDStore contextStore = projectDSLDMap.get(projectName);
         if (contextStore == null) {
             contextStore = new DSLDStore();
-            projectDSLDMap.put(projectName, contextStore);
+            DSLDStore existing = projectDSLDMap.putIfAbsent(projectName, contextStore);
+            if (existing != null) {
+                contextStore = existing;
+            }
         }
         return contextStore;
     }
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.AndPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.BindPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.CurrentTypePointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.EnclosingClassPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.EnclosingMethodPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.OrPointcut;
+import org.eclipse.jdt.groovy.search.VariableScope;
+
+/**
+ * Narrows the pointcuts of a {@link DSLDStore} to those that can match a
+ * context.  Each pointcut is analyzed once for a name constraint that must hold
+ * for it to match: {@code currentType("T")}, {@code enclosingClass("T")} or
+ * {@code enclosingMethod("m")} with a literal argument, reached from the root
+ * through {@code &}, {@code |} and {@code bind} only.  Pointcuts without such a
+ * constraint are always candidates.
+ * <p>
+ * Pointcuts are identified by their position in the store, so candidates are
+ * visited in registration order.  Constraints on file name, extension, folder
+ * and project nature do not change within a file and are already applied by
+ * {@link DSLDStore#createSubStore(GroovyDSLDContext)}.
+ */
+final class PointcutIndex {
+
+    private static final int CURRENT_TYPE = 0, ENCLOSING_TYPE = 1, ENCLOSING_METHOD = 2;
+
+    private static final class Constraint {
+        Constraint(int kind, Set<String> names) {
+            this.kind = kind;
+            this.names = names;
+        }
+
+        final int kind;
+        final Set<String> names;
+    }
+
+    /** Pointcuts that have no name constraint. */
+    private final BitSet unconstrained = new BitSet();
+
+    /** For each kind of constraint, the pointcuts that accept a name. */
+    @SuppressWarnings("unchecked")
+    private final Map<String, BitSet>[] constrained = new Map[] {
+        new HashMap<String, BitSet>(), new HashMap<String, BitSet>(), new HashMap<String, BitSet>()
+    };
+
+    PointcutIndex(List<IPointcut> pointcuts) {
+        for (int i = 0, n = pointcuts.size(); i < n; i += 1) {
+            Constraint constraint = analyze(pointcuts.get(i));
+            if (constraint == null) {
+                unconstrained.set(i);
+            } else {
+                for (String name : constraint.names) {
+                    BitSet bits = constrained[constraint.kind].get(name);
+                    if (bits == null) {
+                        bits = new BitSet();
+                        constrained[constraint.kind].put(name, bits);
+                    }
+                    bits.set(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return positions of the pointcuts that may match {@code pattern}
+     */
+    BitSet getCandidates(GroovyDSLDContext pattern) {
+        BitSet candidates = (BitSet) unconstrained.clone();
+
+        ClassNode currentType = pattern.getCurrentType();
+        if (currentType != null) {
+            addCandidates(candidates, CURRENT_TYPE, currentType.getName());
+        }
+        VariableScope scope = pattern.getCurrentScope();
+        if (scope != null) {
+            ClassNode enclosingType = scope.getEnclosingTypeDeclaration();
+            if (enclosingType != null) {
+                addCandidates(candidates, ENCLOSING_TYPE, enclosingType.getName());
+            }
+            MethodNode enclosingMethod = scope.getEnclosingMethodDeclaration();
+            if (enclosingMethod != null) {
+                addCandidates(candidates, ENCLOSING_METHOD, enclosingMethod.getName());
+            }
+        }
+        return candidates;
+    }
+
+    private void addCandidates(BitSet candidates, int kind, String name) {
+        BitSet bits = constrained[kind].get(name);
+        if (bits != null) {
+            candidates.or(bits);
+        }
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * @return a constraint that {@code pointcut} requires in order to match, or {@code null} if none is known
+     */
+    private static Constraint analyze(IPointcut pointcut) {
+        if (pointcut instanceof CurrentTypePointcut) {
+            return literal(CURRENT_TYPE, pointcut.getFirstArgument());
+        }
+        if (pointcut instanceof EnclosingClassPointcut) {
+            return literal(ENCLOSING_TYPE, pointcut.getFirstArgument());
+        }
+        if (pointcut instanceof EnclosingMethodPointcut) {
+            return literal(ENCLOSING_METHOD, pointcut.getFirstArgument());
+        }
+        if (pointcut instanceof BindPointcut) {
+            Object argument = pointcut.getFirstArgument();
+            return argument instanceof IPointcut ? analyze((IPointcut) argument) : null;
+        }
+        if (pointcut instanceof AndPointcut) {
+            // every argument must match, so any one constraint will do; keep the narrowest
+            Constraint result = null;
+            for (Object argument : pointcut.getArgumentValues()) {
+                Constraint constraint = argument instanceof IPointcut ? analyze((IPointcut) argument) : null;
+                if (constraint != null) {
+                    if (result != null && result.kind == constraint.kind) {
+                        Set<String> names = new HashSet<String>(result.names);
+                        names.retainAll(constraint.names);
+                        constraint = new Constraint(result.kind, names);
+                    }
+                    if (result == null || constraint.names.size() <= result.names.size()) {
+                        result = constraint;
+                    }
+                }
+            }
+            return result;
+        }
+        if (pointcut instanceof OrPointcut) {
+            // any argument may match, so each one must constrain the same thing
+            Constraint result = null;
+            for (Object argument : pointcut.getArgumentValues()) {
+                Constraint constraint = argument instanceof IPointcut ? analyze((IPointcut) argument) : null;
+                if (constraint == null || (result != null && result.kind != constraint.kind)) {
+                    return null;
+                }
+                if (result == null) {
+                    result = new Constraint(constraint.kind, new HashSet<String>(constraint.names));
+                } else {
+                    result.names.addAll(constraint.names);
+                }
+            }
+            return result;
+        }
+        return null;
+    }
+
+    private static Constraint literal(int kind, Object argument) {
+        String name = null;
+        if (argument instanceof String) {
+            name = (String) argument;
+        } else if (argument instanceof Class && kind != ENCLOSING_METHOD) {
+            name = ((Class<?>) argument).getName();
+        }
+        return name != null ? new Constraint(kind, Collections.singleton(name)) : null;
+    }
+}
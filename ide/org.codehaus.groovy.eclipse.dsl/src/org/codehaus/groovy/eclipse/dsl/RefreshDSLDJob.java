@@ -19,7 +19,17 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
@@ -38,9 +48,11 @@ import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
@@ -52,6 +64,7 @@ import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.groovy.search.InferenceResults;
 
 public class RefreshDSLDJob extends Job {
 
@@ -115,6 +128,12 @@ public class RefreshDSLDJob extends Job {
                     throw new OperationCanceledException();
                 }
                 try {
+                    if (root.isArchive()) {
+                        for (IStorage file : getArchiveDSLDs(root)) {
+                            addLibraryDSLD(file);
+                        }
+                        continue;
+                    }
                     // GRECLIPSE-1458 must check source folders, but avoid source folders from same project
                     if (root.getKind() == IPackageFragmentRoot.K_BINARY || isSourceFolderFromOtherProject(root)) {
                         IPackageFragment frag = root.getPackageFragment("dsld");
@@ -165,16 +184,8 @@ public class RefreshDSLDJob extends Job {
                                 // this ensures that a dsld file that is coming from 2 different places is
                                 // not added twice.
                                 for (Object resource : resources) {
-                                    if (resource instanceof IStorage) {
-                                        IStorage file = (IStorage) resource;
-                                        if (!alreadyAdded.contains(file.getName()) && isDSLD(file)) {
-                                            alreadyAdded.add(file.getName());
-                                            dsldFiles.add(file);
-                                        } else {
-                                            if (alreadyAdded.contains(file.getName())) {
-                                                GroovyLogManager.manager.log(TraceCategory.DSL, "DSLD File " + file.getFullPath() + " already added, so skipping.");
-                                            }
-                                        }
+                                    if (resource instanceof IStorage && isDSLD((IStorage) resource)) {
+                                        addLibraryDSLD((IStorage) resource);
                                     }
                                 }
                             }
@@ -192,6 +203,49 @@ public class RefreshDSLDJob extends Job {
             }
         }
 
+        private void addLibraryDSLD(IStorage file) {
+            if (!alreadyAdded.contains(file.getName())) {
+                alreadyAdded.add(file.getName());
+                dsldFiles.add(file);
+            } else {
+                GroovyLogManager.manager.log(TraceCategory.DSL, "DSLD File " + file.getFullPath() + " already added, so skipping.");
+            }
+        }
+
+        /**
+         * Archives are shared by projects, so the DSLDs found in an archive are
+         * kept until it changes on disk.  Scripts from archives are keyed by
+         * their name alone (see {@link DSLDStore#toUniqueString(IStorage)}), so
+         * the same storages can be handed to every project that references the
+         * archive.
+         */
+        private List<IStorage> getArchiveDSLDs(IPackageFragmentRoot root) throws JavaModelException {
+            IPath archivePath = root.getPath();
+            long timestamp = getTimestamp(root);
+            ArchiveDSLDs archive = archiveDSLDs.get(archivePath);
+            if (archive == null || archive.timestamp != timestamp) {
+                List<IStorage> files = new ArrayList<IStorage>();
+                IPackageFragment frag = root.getPackageFragment("dsld");
+                if (frag.exists()) {
+                    for (Object resource : frag.getNonJavaResources()) {
+                        if (resource instanceof IStorage && isDSLD((IStorage) resource)) {
+                            files.add((IStorage) resource);
+                        }
+                    }
+                }
+                archive = new ArchiveDSLDs(timestamp, files);
+                archiveDSLDs.put(archivePath, archive);
+                archiveScanCount.incrementAndGet();
+            }
+            return archive.dsldFiles;
+        }
+
+        private long getTimestamp(IPackageFragmentRoot root) {
+            IResource resource = root.getResource();
+            IPath location = resource != null ? resource.getLocation() : root.getPath();
+            return location != null ? location.toFile().lastModified() : 0L;
+        }
+
         private boolean isSourceFolderFromOtherProject(IPackageFragmentRoot root) {
             if (root.isReadOnly()) {
                 // not source folder
@@ -247,6 +301,35 @@ public class RefreshDSLDJob extends Job {
     private final List<IProject> projects;
     private DSLDStoreManager contextStoreManager = GroovyDSLCoreActivator.getDefault().getContextStoreManager();
 
+    private static class ArchiveDSLDs {
+        final long timestamp;
+        final List<IStorage> dsldFiles;
+
+        ArchiveDSLDs(long timestamp, List<IStorage> dsldFiles) {
+            this.timestamp = timestamp;
+            this.dsldFiles = Collections.unmodifiableList(dsldFiles);
+        }
+    }
+
+    /** DSLDs found in each archive of the workspace, with the archive's timestamp when it was scanned. */
+    private static final Map<IPath, ArchiveDSLDs> archiveDSLDs = new ConcurrentHashMap<IPath, ArchiveDSLDs>();
+
+    private static final AtomicInteger archiveScanCount = new AtomicInteger();
+
+    /**
+     * @return number of times an archive has been scanned for DSLDs since startup;
+     *         each archive is scanned once unless it changes on disk
+     */
+    public static int getArchiveScanCount() {
+        return archiveScanCount.get();
+    }
+
+    /** Nanoseconds spent in each phase, summed over all projects (and threads). */
+    private final AtomicLong scanTime = new AtomicLong(), compileTime = new AtomicLong(), executeTime = new AtomicLong();
+
+    /** Suggestion files update shared, unsynchronized state; load them one at a time. */
+    private static final Object SUGGESTIONS_LOCK = new Object();
+
     /**
      * Deprecated.  Use {@link DSLDStoreManager#initialize(IProject, boolean)}
      * instead.  This new method allows for the initialization of a store synchronously
@@ -298,23 +381,37 @@ public class RefreshDSLDJob extends Job {
 
             SubMonitor submon = SubMonitor.convert(monitor);
             submon.beginTask("Refresh DSLD scripts", projects.size() * 9);
+            long start = System.nanoTime();
 
             List<IStatus> errorStatuses = new ArrayList<IStatus>();
-            for (IProject project : projects) {
-                IStatus res = Status.OK_STATUS;
-                try {
-                    res = refreshProject(project, submon.newChild(9));
-                } finally {
-                    contextStoreManager.removeInProgress(project);
+            int threads = Math.min(projects.size(), Runtime.getRuntime().availableProcessors());
+            if (threads <= 1) {
+                for (IProject project : projects) {
+                    IStatus res = Status.OK_STATUS;
+                    try {
+                        res = refreshProject(project, submon.newChild(9));
+                    } finally {
+                        contextStoreManager.removeInProgress(project);
+                    }
+                    if (!res.isOK()) {
+                        errorStatuses.add(res);
+                    } else if (res == Status.CANCEL_STATUS) {
+                        return res;
+                    }
                 }
-                if (!res.isOK()) {
-                    errorStatuses.add(res);
-                } else if (res == Status.CANCEL_STATUS) {
+            } else {
+                IStatus res = refreshProjectsInParallel(threads, submon, errorStatuses);
+                if (res == Status.CANCEL_STATUS) {
                     return res;
                 }
             }
 
             submon.done();
+            if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.DSL, "Refreshed DSLDs of " + projects.size() + " projects in " +
+                    millis(System.nanoTime() - start) + "ms using " + Math.max(threads, 1) + " threads; scan " + millis(scanTime.get()) +
+                    "ms, compile " + millis(compileTime.get()) + "ms, execute " + millis(executeTime.get()) + "ms");
+            }
 
             if (errorStatuses.isEmpty()) {
                 return Status.OK_STATUS;
@@ -333,6 +430,65 @@ public class RefreshDSLDJob extends Job {
         }
     }
 
+    /**
+     * Refreshes the projects on a pool of {@code threads} threads.  Each project
+     * has its own store, so projects are independent of each other.
+     */
+    private IStatus refreshProjectsInParallel(int threads, SubMonitor submon, List<IStatus> errorStatuses) {
+        final IProgressMonitor cancelMonitor = submon;
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "DSLD refresh " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<IStatus>> results = new ArrayList<Future<IStatus>>(projects.size());
+            for (final IProject project : projects) {
+                results.add(pool.submit(new Callable<IStatus>() {
+                    public IStatus call() {
+                        try {
+                            // progress monitors are not thread-safe; only check for cancellation
+                            return refreshProject(project, new NullProgressMonitor() {
+                                @Override
+                                public boolean isCanceled() {
+                                    return cancelMonitor.isCanceled();
+                                }
+                            });
+                        } finally {
+                            contextStoreManager.removeInProgress(project);
+                        }
+                    }
+                }));
+            }
+            for (Future<IStatus> result : results) {
+                IStatus res;
+                try {
+                    res = result.get();
+                } catch (ExecutionException e) {
+                    GroovyDSLCoreActivator.logException(e.getCause());
+                    res = new Status(IStatus.ERROR, GroovyDSLCoreActivator.PLUGIN_ID, "Error refreshing DSLDs.", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Status.CANCEL_STATUS;
+                }
+                submon.worked(9);
+                if (!res.isOK()) {
+                    errorStatuses.add(res);
+                }
+            }
+            return submon.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1000000;
+    }
+
     private IStatus refreshProject(IProject project, IProgressMonitor monitor) {
         String event = null;
         if (GroovyLogManager.manager.hasLoggers()) {
@@ -365,7 +521,9 @@ public class RefreshDSLDJob extends Job {
         if (GroovyLogManager.manager.hasLoggers()) {
             GroovyLogManager.manager.log(TraceCategory.DSL, "Finding inferencing DSL scripts");
         }
+        long start = System.nanoTime();
         Set<IStorage> findDSLDFiles = new DSLDResourceVisitor(project).findFiles(monitor);
+        scanTime.addAndGet(System.nanoTime() - start);
 
         if (monitor.isCanceled()) {
             return Status.CANCEL_STATUS;
@@ -382,8 +540,12 @@ public class RefreshDSLDJob extends Job {
             if (isDSLD(file)) {
                 DSLDScriptExecutor executor = new DSLDScriptExecutor(JavaCore.create(project));
                 executor.executeScript(file);
+                compileTime.addAndGet(executor.getCompileTime());
+                executeTime.addAndGet(executor.getExecuteTime());
             } else if (isSuggestionFile(file)) {
-                new SuggestionsLoader((IFile)file).loadExistingSuggestions();
+                synchronized (SUGGESTIONS_LOCK) {
+                    new SuggestionsLoader((IFile)file).loadExistingSuggestions();
+                }
             }
 
             if (monitor.isCanceled()) {
@@ -392,6 +554,9 @@ public class RefreshDSLDJob extends Job {
         }
         monitor.worked(6);
 
+        // inference results computed with the old scripts are out of date
+        InferenceResults.clearAll();
+
         monitor.done();
         if (event != null) {
             GroovyLogManager.manager.logEnd(event, TraceCategory.DSL);
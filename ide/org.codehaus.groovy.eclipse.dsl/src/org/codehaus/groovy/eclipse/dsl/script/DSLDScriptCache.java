@@ -0,0 +1,254 @@
+/*
+ * Copyright 2009-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.script;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovySystem;
+
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
+import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
+import org.codehaus.groovy.tools.GroovyClass;
+
+/**
+ * Keeps the bytecode of compiled DSLD scripts in the state location of the
+ * DSL plug-in, so that a script is compiled once and not on every refresh or
+ * workspace start.  Entries are keyed by a hash of the script name and
+ * contents and are kept in a directory for the Groovy runtime and plug-in
+ * version that produced them; directories of other versions are deleted.
+ */
+public class DSLDScriptCache {
+
+    private static final int MAGIC = 0x44534c44; // "DSLD"
+
+    /** Entries that have not been used for this long are deleted at startup. */
+    private static final long MAX_IDLE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    private static DSLDScriptCache instance;
+
+    public static synchronized DSLDScriptCache getInstance() {
+        if (instance == null) {
+            File directory = null;
+            try {
+                File root = GroovyDSLCoreActivator.getDefault().getStateLocation().append("dsld").toFile();
+                String version = GroovySystem.getVersion() + '_' + GroovyDSLCoreActivator.getDefault().getBundle().getVersion();
+                directory = new File(root, version.replaceAll("[^\\w.-]", "_"));
+                prune(root, directory);
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    directory = null;
+                }
+            } catch (Exception e) {
+                // no state location; compile every time
+                GroovyDSLCoreActivator.logException(e);
+                directory = null;
+            }
+            instance = new DSLDScriptCache(directory);
+        }
+        return instance;
+    }
+
+    private final File directory;
+
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+
+    DSLDScriptCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the class of a DSLD script from the cache, compiling and storing
+     * it first if it is not there yet.
+     *
+     * @param parent class loader of the script's dependencies
+     * @return the script class
+     * @throws org.codehaus.groovy.control.CompilationFailedException if the script has errors
+     */
+    @SuppressWarnings("rawtypes")
+    public Class parseClass(GroovyClassLoader parent, String contents, String fileName) {
+        if (directory == null) {
+            return parent.parseClass(contents, fileName);
+        }
+        File file = new File(directory, hash(fileName, contents) + ".classes");
+
+        if (file.isFile()) {
+            try {
+                Class clazz = load(parent, file);
+                file.setLastModified(System.currentTimeMillis());
+                hits.incrementAndGet();
+                return clazz;
+            } catch (Exception e) {
+                // corrupt or unreadable; recompile
+                if (GroovyLogManager.manager.hasLoggers()) {
+                    GroovyLogManager.manager.log(TraceCategory.DSL, "Could not load cached classes for " + fileName + ": " + e);
+                }
+                file.delete();
+            }
+        }
+        misses.incrementAndGet();
+
+        CompilationUnit unit = new CompilationUnit(null, null, parent);
+        unit.addSource(fileName, contents);
+        unit.compile(Phases.CLASS_GENERATION);
+
+        String mainClassName = unit.getFirstClassNode().getName();
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        for (Object groovyClass : (List<?>) unit.getClasses()) {
+            classes.put(((GroovyClass) groovyClass).getName(), ((GroovyClass) groovyClass).getBytes());
+        }
+        try {
+            store(file, mainClassName, classes);
+        } catch (IOException e) {
+            if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.DSL, "Could not cache classes for " + fileName + ": " + e);
+            }
+        }
+        try {
+            return new ScriptLoader(parent, classes).loadClass(mainClassName);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    //--------------------------------------------------------------------------
+
+    @SuppressWarnings("rawtypes")
+    private static Class load(ClassLoader parent, File file) throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unrecognized format");
+            }
+            String mainClassName = in.readUTF();
+            Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+            for (int i = 0, n = in.readInt(); i < n; i += 1) {
+                String name = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                classes.put(name, bytes);
+            }
+            return new ScriptLoader(parent, classes).loadClass(mainClassName);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void store(File file, String mainClassName, Map<String, byte[]> classes) throws IOException {
+        // write to a temporary file so that concurrent readers never see a partial entry
+        File temp = File.createTempFile("dsld", ".tmp", file.getParentFile());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeUTF(mainClassName);
+            out.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+
+    private static void prune(File root, File current) {
+        File[] versions = root.listFiles();
+        if (versions == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - MAX_IDLE_MILLIS;
+        for (File version : versions) {
+            File[] entries = version.listFiles();
+            if (entries != null) {
+                for (File entry : entries) {
+                    if (!version.equals(current) || entry.lastModified() < cutoff) {
+                        entry.delete();
+                    }
+                }
+            }
+            if (!version.equals(current)) {
+                version.delete();
+            }
+        }
+    }
+
+    private static String hash(String fileName, String contents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(fileName.getBytes("UTF-8"));
+            digest.update((byte) 0);
+            digest.update(contents.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(40);
+            for (byte b : digest.digest()) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Defines the classes of one script.
+     */
+    private static final class ScriptLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        ScriptLoader(ClassLoader parent, Map<String, byte[]> classes) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
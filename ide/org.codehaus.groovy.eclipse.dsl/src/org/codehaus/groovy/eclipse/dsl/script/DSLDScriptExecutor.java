@@ -213,6 +213,7 @@ public class DSLDScriptExecutor {
     private final IJavaProject project;
     private PointcutFactory factory;
     private IStorage scriptFile;
+    private long compileTime, executeTime;
 
     public DSLDScriptExecutor(IJavaProject project) {
         // FIXADE Should have one classloader per project
@@ -234,8 +235,9 @@ public class DSLDScriptExecutor {
             try {
                 String scriptContents = getContents(scriptFile);
                 Class<Script> clazz = null;
+                long start = System.nanoTime();
                 try {
-                    clazz = gcl.parseClass(scriptContents, scriptFile.getName());
+                    clazz = DSLDScriptCache.getInstance().parseClass(gcl, scriptContents, scriptFile.getName());
                 } catch (Exception e) {
                     if (GroovyLogManager.manager.hasLoggers()) {
                         StringWriter writer = new StringWriter();
@@ -244,6 +246,8 @@ public class DSLDScriptExecutor {
                                 writer.getBuffer());
                     }
                     return result;
+                } finally {
+                    compileTime += System.nanoTime() - start;
                 }
 
 
@@ -255,9 +259,14 @@ public class DSLDScriptExecutor {
                     }
                     return result;
                 }
-                Script dsldScript = clazz.newInstance();
-                dsldScript.setBinding(new DSLDScriptBinding(dsldScript));
-                result = dsldScript.run();
+                start = System.nanoTime();
+                try {
+                    Script dsldScript = clazz.newInstance();
+                    dsldScript.setBinding(new DSLDScriptBinding(dsldScript));
+                    result = dsldScript.run();
+                } finally {
+                    executeTime += System.nanoTime() - start;
+                }
             } catch (UnsupportedDSLVersion e) {
                 if (GroovyLogManager.manager.hasLoggers()) {
                     GroovyLogManager.manager.log(TraceCategory.DSL, e.getMessage());
@@ -274,6 +283,20 @@ public class DSLDScriptExecutor {
         }
     }
 
+    /**
+     * @return nanoseconds spent compiling (or loading compiled) scripts by this executor
+     */
+    public long getCompileTime() {
+        return compileTime;
+    }
+
+    /**
+     * @return nanoseconds spent running scripts by this executor
+     */
+    public long getExecuteTime() {
+        return executeTime;
+    }
+
     public String getContents(IStorage file) throws IOException, CoreException {
         BufferedReader br;
         try {
@@ -18,6 +18,10 @@ package org.codehaus.groovy.eclipse.editor.highlighting;
 import java.util.Collection;
 import java.util.Collections;
 
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.groovy.eclipse.GroovyPlugin;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.groovy.eclipse.core.preferences.PreferenceConstants;
@@ -25,6 +29,8 @@ import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Position;
 
 /**
  * Created and invoked on Groovy compilation units to collect code semantics
@@ -43,6 +49,7 @@ public class GatherSemanticReferences {
             try { // TODO: Time this tasks components and find opportunities to make it run faster.
                 SemanticHighlightingReferenceRequestor requestor = new SemanticHighlightingReferenceRequestor(unit);
                 TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+                // not replayed from the inference results store: the requestor cancels branches and looks up names in result.scope
                 visitor.visitCompilationUnit(requestor);
                 return requestor.typedPosition;
             } catch (Exception e) {
@@ -52,6 +59,92 @@ public class GatherSemanticReferences {
         return Collections.emptySet();
     }
 
+    /**
+     * Collects semantic highlighting references for the members of {@link #unit}
+     * that intersect {@code dirtyRegion}.  References for all other members are
+     * taken from {@code previous}, after shifting them by {@code delta}.
+     *
+     * @param dirtyRegion source range (in current document coordinates) that has been edited since {@code previous} was gathered
+     * @param delta net change in document length since {@code previous} was gathered
+     * @param previous results of the previous gather, or {@code null} if unavailable
+     * @return references for the entire unit or {@code null} if the edit cannot be handled incrementally
+     */
+    public Collection<HighlightedTypedPosition> findSemanticHighlightingReferences(IRegion dirtyRegion, int delta, Collection<HighlightedTypedPosition> previous) {
+        if (unit != null && previous != null && dirtyRegion != null) {
+            try {
+                // edits outside of a method body may change the meaning of other members, and so may
+                // edits to a method whose return type is inferred, since its callers infer their types from it
+                MethodNode meth = findEditedMethod(unit.getModuleNode(), dirtyRegion);
+                if (meth == null || meth.isDynamicReturnType() || meth.isScriptBody()) {
+                    return null;
+                }
+
+                SemanticHighlightingReferenceRequestor requestor = new SemanticHighlightingReferenceRequestor(unit, dirtyRegion);
+                TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+                visitor.visitCompilationUnit(requestor);
+
+                // bring forward the positions of the members that were not visited
+                int dirtyStart = dirtyRegion.getOffset(), dirtyUntil = dirtyStart + dirtyRegion.getLength() - delta;
+                for (HighlightedTypedPosition pos : previous) {
+                    HighlightedTypedPosition shifted;
+                    if (pos.getOffset() + pos.getLength() <= dirtyStart) {
+                        shifted = pos;
+                    } else if (pos.getOffset() >= dirtyUntil) {
+                        shifted = new HighlightedTypedPosition(pos.getOffset() + delta, pos.getLength(), pos.kind);
+                    } else {
+                        continue; // overlaps the edit
+                    }
+                    if (isWithin(shifted, requestor.skippedMembers)) {
+                        requestor.typedPosition.add(shifted);
+                    }
+                }
+                return requestor.typedPosition;
+            } catch (Exception e) {
+                GroovyCore.logException("Semantic highlighting gather failed", e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return method or constructor whose body contains {@code region} or {@code null} if there is none
+     */
+    private static MethodNode findEditedMethod(ModuleNode module, IRegion region) {
+        if (module != null && !module.encounteredUnrecoverableError()) {
+            int start = region.getOffset(), until = start + region.getLength();
+            for (ClassNode node : module.getClasses()) {
+                if (node.getEnd() < start || node.getStart() > until) {
+                    continue;
+                }
+                for (MethodNode meth : node.getMethods()) {
+                    if (isWithin(meth.getCode(), start, until)) {
+                        return meth;
+                    }
+                }
+                for (MethodNode ctor : node.getDeclaredConstructors()) {
+                    if (isWithin(ctor.getCode(), start, until)) {
+                        return ctor;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isWithin(Statement code, int start, int until) {
+        // exclude the braces so that edits to them re-infer the enclosing type
+        return code != null && code.getEnd() > 0 && code.getStart() < start && code.getEnd() > until;
+    }
+
+    private static boolean isWithin(Position pos, Collection<Position> ranges) {
+        for (Position range : ranges) {
+            if (range.includes(pos.getOffset()) && pos.getOffset() + pos.getLength() <= range.getOffset() + range.getLength()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static boolean isSemanticHighlightingEnabled() {
         IPreferenceStore prefs = GroovyPlugin.getDefault().getPreferenceStore();
         return prefs.getBoolean(PreferenceConstants.GROOVY_SEMANTIC_HIGHLIGHTING);
@@ -22,14 +22,16 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
+import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.GroovyPlugin;
+import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.groovy.eclipse.core.preferences.PreferenceConstants;
 import org.codehaus.groovy.eclipse.editor.GroovyEditor;
@@ -45,7 +47,13 @@ import org.eclipse.jdt.internal.ui.text.JavaPresentationReconciler;
 import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.preference.PreferenceConverter;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextAttribute;
 import org.eclipse.jface.text.TextPresentation;
 import org.eclipse.swt.SWT;
@@ -96,9 +104,14 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
     }
 
     private volatile GroovyEditor editor;
+    private JavaSourceViewer viewer;
     private SemanticHighlightingPresenter presenter;
     private final Semaphore lock = new Semaphore(1, true);
 
+    private final EditTracker edits = new EditTracker();
+    /** Results of the last gather; these are the basis for incremental highlighting. */
+    private Collection<HighlightedTypedPosition> lastReferences;
+
     // make these configurable
     private Object mapKeyHighlighting;
     private Object tagKeyHighlighting;
@@ -199,42 +212,73 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
 
     public void install(GroovyEditor editor, JavaSourceViewer viewer) {
         this.editor = editor;
+        this.viewer = viewer;
         presenter = new SemanticHighlightingPresenter();
         presenter.install(viewer, (JavaPresentationReconciler) editor.getGroovyConfiguration().getPresentationReconciler(viewer));
+
+        viewer.addTextInputListener(edits);
+        edits.inputDocumentChanged(null, viewer.getDocument());
     }
 
     public void uninstall() {
+        edits.inputDocumentAboutToBeChanged(viewer.getDocument(), null);
+        viewer.removeTextInputListener(edits);
+        viewer = null;
+
         presenter.uninstall();
         presenter = null;
         editor = null;
     }
 
     public void aboutToBeReconciled() {
+        edits.mark();
     }
 
     public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor monitor) {
-        if (ast != null && synchronize())
+        if (ast == null || !synchronize()) {
+            // the next snapshot would not cover the edits since the last gather
+            edits.invalidate();
+            return;
+        }
+        String event = null;
         try {
+            // take the edits under the lock that guards the references they apply to
+            edits.snapshot();
+            Collection<HighlightedTypedPosition> previousReferences = lastReferences;
+            lastReferences = null;
             if (editor == null) return; // uninstalled?
             monitor.beginTask("Groovy semantic highlighting", 10);
             GroovyCompilationUnit unit = editor.getGroovyCompilationUnit();
             if (unit != null) {
+                if (GroovyLogManager.manager.hasLoggers()) {
+                    event = "Semantic highlighting: " + unit.getElementName();
+                    GroovyLogManager.manager.logStart(event);
+                }
                 presenter.setCanceled(monitor.isCanceled());
                 if (update(monitor, 1)) return;
 
                 GatherSemanticReferences finder = new GatherSemanticReferences(unit);
-                Collection<HighlightedTypedPosition> semanticReferences = finder.findSemanticHighlightingReferences();
+                Collection<HighlightedTypedPosition> semanticReferences = null;
+                if (!forced && edits.region != null) {
+                    semanticReferences = finder.findSemanticHighlightingReferences(edits.region, edits.delta, previousReferences);
+                }
+                boolean incremental = (semanticReferences != null);
+                if (!incremental) {
+                    semanticReferences = finder.findSemanticHighlightingReferences();
+                }
+                lastReferences = semanticReferences;
                 if (update(monitor, 5)) return;
 
-                List<Position> newPositions = new ArrayList<Position>(semanticReferences.size());
-                List<Position> oldPositions = new LinkedList<Position>(getHighlightedPositions());
+                long diffStart = System.nanoTime();
+                PositionDiff diff = new PositionDiff(getHighlightedPositions(), semanticReferences.size());
+                List<Position> newPositions = diff.addedPositions, oldPositions = diff.removedPositions;
                 if (update(monitor, 1)) return;
 
                 HighlightedTypedPosition last = null; Position x = null;
                 for (HighlightedTypedPosition ref : semanticReferences) {
                     if (ref.compareTo(last) != 0) {
                         Position pos = newHighlightedPosition(ref);
-                        x = tryAddPosition(newPositions, oldPositions, pos);
+                        x = diff.tryAddPosition(pos);
 
                     } else if (GET_HIGHLIGHTING != null && (ref.kind == DEPRECATED || ref.kind == UNKNOWN)) {
                         // this and last cover same source range and this indicates deprecated or unknown
@@ -243,7 +287,7 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
                             if (ref.compareTo(x) == 0) {
                                 pos = newHighlightedPosition(last);
                                 newPositions.add(pos);
-                                oldPositions.add(x);
+                                diff.release(x);
                             } else {
                                 GroovyPlugin.getDefault().logWarning(
                                     String.format("Failed to apply %s semantic at %s",
@@ -259,6 +303,13 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
                     }
                     last = ref;
                 }
+                diff.finish();
+                if (event != null) {
+                    GroovyLogManager.manager.logEnd(event, TraceCategory.HIGHLIGHTING, String.format(
+                        "%s: kept %d, added %d, removed %d positions; diff took %dms", incremental ? "incremental" : "full",
+                        diff.keptCount, newPositions.size(), oldPositions.size(), (System.nanoTime() - diffStart) / 1000000));
+                    event = null;
+                }
                 if (update(monitor, 2)) return;
 
                 TextPresentation textPresentation = null;
@@ -273,6 +324,10 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
         } catch (Exception e) {
             GroovyCore.logException("Semantic highlighting failed", e);
         } finally {
+            if (event != null) {
+                // canceled or failed before the positions were diffed
+                GroovyLogManager.manager.logEnd(event, TraceCategory.HIGHLIGHTING, "canceled");
+            }
             lock.release();
             monitor.done();
         }
@@ -359,19 +414,6 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
         return (Position) ReflectionUtils.invokeConstructor(HIGHLIGHTED_POSITION, pos.offset, pos.length, style, this);
     }
 
-    private Position tryAddPosition(List<Position> newPositions, List<Position> oldPositions, Position maybePosition) {
-        // TODO: Is there a quicker way to search for matches?  These can be sorted easily.
-        for (Iterator<Position> it = oldPositions.iterator(); it.hasNext();) {
-            Position oldPosition = it.next();
-            if (!oldPosition.isDeleted() && oldPosition.equals(maybePosition) && isSameStyle(oldPosition, maybePosition)) {
-                it.remove(); // prevent old position from being removed from presentation
-                return oldPosition;
-            }
-        }
-        newPositions.add(maybePosition);
-        return null;
-    }
-
     private boolean isSameStyle(Position a, Position b) {
         if (GET_HIGHLIGHTING != null) {
             try {
@@ -392,6 +434,152 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
         return (TextAttribute) ReflectionUtils.executeNoArgPrivateMethod(highlightingStyle.getClass(), "getTextAttribute", highlightingStyle);
     }
 
+    /**
+     * Computes the difference between the presenter's current positions and the
+     * newly-gathered positions in a single pass.  Both sequences are visited in
+     * order of increasing offset, so each existing position is considered only
+     * while the candidates share its offset.
+     */
+    private class PositionDiff {
+        final List<Position> addedPositions;
+        final List<Position> removedPositions;
+        int keptCount;
+
+        private final Position[] existing;
+        private int cursor;
+
+        PositionDiff(List<Position> currentPositions, int expectedSize) {
+            existing = currentPositions.toArray(new Position[currentPositions.size()]);
+            Arrays.sort(existing, OFFSET_ORDER); // presenter keeps them in order, so this is near-linear
+            addedPositions = new ArrayList<Position>(expectedSize);
+            removedPositions = new ArrayList<Position>();
+        }
+
+        /**
+         * @return existing position that matches {@code maybePosition} or {@code null} if it was added
+         */
+        Position tryAddPosition(Position maybePosition) {
+            int offset = maybePosition.getOffset();
+            // existing positions that precede the candidate cannot be reused
+            while (cursor < existing.length && (existing[cursor] == null || existing[cursor].getOffset() < offset)) {
+                if (existing[cursor] != null) {
+                    removedPositions.add(existing[cursor]);
+                }
+                cursor += 1;
+            }
+            for (int i = cursor; i < existing.length && (existing[i] == null || existing[i].getOffset() == offset); i += 1) {
+                Position oldPosition = existing[i];
+                if (oldPosition != null && !oldPosition.isDeleted() && oldPosition.equals(maybePosition) && isSameStyle(oldPosition, maybePosition)) {
+                    existing[i] = null; // prevent old position from being removed from presentation
+                    keptCount += 1;
+                    return oldPosition;
+                }
+            }
+            addedPositions.add(maybePosition);
+            return null;
+        }
+
+        /**
+         * Marks a previously-kept position for removal.
+         */
+        void release(Position keptPosition) {
+            removedPositions.add(keptPosition);
+            keptCount -= 1;
+        }
+
+        /**
+         * Marks all existing positions that were not reused for removal.
+         */
+        void finish() {
+            for (int n = existing.length; cursor < n; cursor += 1) {
+                if (existing[cursor] != null) {
+                    removedPositions.add(existing[cursor]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Accumulates the range of the document that has been edited since the last
+     * reconcile.  The range is expressed in current document coordinates and is
+     * accompanied by the net change in document length.
+     */
+    private static class EditTracker implements IDocumentListener, ITextInputListener {
+        private int start = -1, until, change;
+        private boolean invalid = true, editedSinceMark = true;
+
+        /** Edited range as of the last snapshot; {@code null} if unknown. */
+        IRegion region;
+        int delta;
+
+        /**
+         * Notes the start of a reconcile; edits after this are not in the reconciled source.
+         */
+        synchronized void mark() {
+            editedSinceMark = false;
+        }
+
+        /**
+         * Takes the edited range and starts a new one.  Must be called with the
+         * reconciler's lock held, so that the range matches the last references.
+         */
+        synchronized void snapshot() {
+            if (invalid || editedSinceMark) {
+                // edits made while reconciling are in the document but not in the reconciled source
+                region = null;
+            } else if (start < 0) {
+                region = new Region(0, 0);
+            } else {
+                region = new Region(start, until - start);
+            }
+            delta = change;
+
+            start = -1; until = 0; change = 0;
+            invalid = editedSinceMark;
+        }
+
+        synchronized void invalidate() {
+            invalid = true;
+        }
+
+        public void documentAboutToBeChanged(DocumentEvent event) {
+        }
+
+        public synchronized void documentChanged(DocumentEvent event) {
+            int offset = event.getOffset(), length = event.getLength();
+            int added = (event.getText() == null ? 0 : event.getText().length());
+            if (start < 0) {
+                start = offset;
+                until = offset + added;
+            } else {
+                until = Math.max(offset + added, until >= offset + length ? until + added - length : until);
+                start = Math.min(start, offset);
+            }
+            change += added - length;
+            editedSinceMark = true;
+        }
+
+        public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+            if (oldInput != null) {
+                oldInput.removeDocumentListener(this);
+            }
+        }
+
+        public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+            invalidate();
+            if (newInput != null) {
+                newInput.addDocumentListener(this);
+            }
+        }
+    }
+
+    private static final Comparator<Position> OFFSET_ORDER = new Comparator<Position>() {
+        public int compare(Position p1, Position p2) {
+            int x = p1.getOffset(), y = p2.getOffset();
+            return (x < y) ? -1 : ((x == y) ? 0 : 1);
+        }
+    };
+
     /**
      * Update the presentation.
      *
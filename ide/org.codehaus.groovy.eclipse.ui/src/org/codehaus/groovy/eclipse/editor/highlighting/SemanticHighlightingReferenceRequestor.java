@@ -17,7 +17,9 @@ package org.codehaus.groovy.eclipse.editor.highlighting;
 
 import static org.eclipse.jdt.groovy.search.TypeLookupResult.TypeConfidence.UNKNOWN;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.regex.Matcher;
@@ -51,6 +53,7 @@ import org.eclipse.jdt.groovy.search.VariableScope;
 import org.eclipse.jdt.internal.core.ImportDeclaration;
 import org.eclipse.jdt.internal.core.SourceType;
 import org.eclipse.jdt.internal.core.util.Util;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Position;
 
 /**
@@ -66,6 +69,7 @@ public class SemanticHighlightingReferenceRequestor extends SemanticReferenceReq
     }
 
     private char[] contents;
+    private final IRegion region;
     private final GroovyCompilationUnit unit;
     private Position lastGString = NO_POSITION;
     private static final boolean DEBUG = false;
@@ -83,8 +87,19 @@ public class SemanticHighlightingReferenceRequestor extends SemanticReferenceReq
         }
     });
 
+    /** Source ranges of the field and method declarations that were skipped because they are outside of {@link #region}. */
+    protected final List<Position> skippedMembers = new ArrayList<Position>();
+
     public SemanticHighlightingReferenceRequestor(GroovyCompilationUnit unit) {
+        this(unit, null);
+    }
+
+    /**
+     * @param region if non-null, field and method declarations that do not intersect this range are not visited
+     */
+    public SemanticHighlightingReferenceRequestor(GroovyCompilationUnit unit, IRegion region) {
         this.unit = unit;
+        this.region = region;
     }
 
     // be sure to call this before referencing contents array
@@ -103,6 +118,11 @@ public class SemanticHighlightingReferenceRequestor extends SemanticReferenceReq
             return VisitStatus.CONTINUE;
         }
 
+        if (region != null && isMemberOutsideRegion(node, result)) {
+            skippedMembers.add(new Position(node.getStart(), node.getLength()));
+            return VisitStatus.CANCEL_BRANCH;
+        }
+
         HighlightedTypedPosition pos = null;
         if (result.confidence == UNKNOWN && node.getEnd() > 0) {
             // GRECLIPSE-1327: check to see if this is a synthetic call() on a closure reference
@@ -366,6 +386,11 @@ public class SemanticHighlightingReferenceRequestor extends SemanticReferenceReq
         return null;
     }
 
+    private boolean isMemberOutsideRegion(ASTNode node, TypeLookupResult result) {
+        boolean isMember = (node instanceof FieldNode || (node instanceof MethodNode && result.enclosingAnnotation == null));
+        return isMember && node.getStart() > 0 && (node.getEnd() < region.getOffset() || node.getStart() > region.getOffset() + region.getLength());
+    }
+
     private int endOffset(ASTNode node, TypeLookupResult result) {
         int offset = node.getEnd();
         if (result.enclosingAnnotation != null) {
@@ -44,6 +44,9 @@ protected SimpleLookupTable secondaryTypesToRemove;
 protected boolean hasStructuralChanges;
 protected int compileLoop;
 protected boolean makeOutputFolderConsistent;
+// GROOVY add
+protected HashSet changedSourceFiles; // source files whose recorded references may be out of date
+// GROOVY end
 
 public static int MaxCompileLoop = 5; // perform a full build if it takes more than ? incremental compile loops
 
@@ -91,11 +94,17 @@ public boolean build(SimpleLookupTable deltas) {
 				System.out.println("COMPILING all source files since the buildpath has errors "); //$NON-NLS-1$
 			this.javaBuilder.currentProject.deleteMarkers(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
 			addAllSourceFiles(this.sourceFiles);
+			// GROOVY add
+			this.changedSourceFiles = new HashSet(this.sourceFiles);
+			// GROOVY end
 			this.notifier.updateProgressDelta(0.25f);
 		} else {
 			IResourceDelta sourceDelta = (IResourceDelta) deltas.get(this.javaBuilder.currentProject);
 			if (sourceDelta != null)
 				if (!findSourceFiles(sourceDelta)) return false;
+			// GROOVY add
+			this.changedSourceFiles = new HashSet(this.sourceFiles);
+			// GROOVY end
 			this.notifier.updateProgressDelta(0.10f);
 
 			Object[] keyTable = deltas.keyTable;
@@ -296,6 +305,9 @@ protected void cleanUp() {
 
 	this.sourceFiles = null;
 	this.previousSourceFiles = null;
+	// GROOVY add
+	this.changedSourceFiles = null;
+	// GROOVY end
 	this.qualifiedStrings = null;
 	this.simpleStrings = null;
 	this.rootStrings = null;
@@ -304,6 +316,14 @@ protected void cleanUp() {
 	this.compileLoop = 0;
 }
 
+// GROOVY add
+protected ReferenceCollection getRecordedReferences(SourceFile unit) {
+	if (this.compileLoop <= 1 && this.changedSourceFiles != null && this.changedSourceFiles.contains(unit))
+		return null; // recorded before the source file was changed
+	return super.getRecordedReferences(unit);
+}
+// GROOVY end
+
 protected void compile(SourceFile[] units, SourceFile[] additionalUnits, boolean compilingFirstGroup) {
 	if (compilingFirstGroup && additionalUnits != null) {
 		// add any source file from additionalUnits to units if it defines secondary types
@@ -106,6 +106,11 @@ public void addSource(IFile resource, IPath containerPath, SourceElementParser p
 	SearchParticipant participant = SearchEngine.getDefaultSearchParticipant();
 	SearchDocument document = participant.getDocument(resource.getFullPath().toString());
 	document.setParser(parser);
+	// GROOVY add
+	if (parser instanceof IndexingParser) {
+		((IndexingParser) parser).documentScheduled(resource);
+	}
+	// GROOVY end
 	IPath indexLocation = computeIndexLocation(containerPath);
 	scheduleDocumentIndexing(document, containerPath, indexLocation, participant);
 }
@@ -870,6 +875,15 @@ public void scheduleDocumentIndexing(final SearchDocument searchDocument, IPath
 			}
 			return true;
 		}
+		// GROOVY add
+		public void cancel() {
+			super.cancel();
+			SourceElementParser parser = searchDocument.getParser();
+			if (parser instanceof IndexingParser) {
+				((IndexingParser) parser).documentCancelled(searchDocument.getPath());
+			}
+		}
+		// GROOVY end
 		public String toString() {
 			return "indexing " + searchDocument.getPath(); //$NON-NLS-1$
 		}
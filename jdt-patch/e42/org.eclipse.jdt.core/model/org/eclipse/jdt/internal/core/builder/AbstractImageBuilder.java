@@ -25,6 +25,7 @@ import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
 import org.eclipse.jdt.internal.compiler.lookup.TypeConstants;
 import org.eclipse.jdt.internal.compiler.problem.*;
+import org.eclipse.jdt.internal.compiler.util.HashtableOfObject;
 import org.eclipse.jdt.internal.compiler.util.SimpleSet;
 import org.eclipse.jdt.internal.compiler.util.SuffixConstants;
 import org.eclipse.jdt.internal.core.JavaModelManager;
@@ -314,12 +315,18 @@ protected void compile(SourceFile[] units) {
 	int unitsLength = units.length;
 	this.compiledAllAtOnce = unitsLength <= MAX_AT_ONCE;
 
-	// GROOVY start
+	// GROOVY edit -- Groovy sources cannot be faulted in from a later group, so group units by their dependencies
 	// currently can't easily fault in files from the other group.  Easier to
 	// do this than fix that right now.
-	if (this.compiler!=null && this.compiler.options!=null && this.compiler.options.buildGroovyFiles==2) {
-		// System.out.println("although more than "+MAX_AT_ONCE+" still compiling "+unitsLength+" files at once");
-		this.compiledAllAtOnce = true;
+	//if (this.compiler!=null && this.compiler.options!=null && this.compiler.options.buildGroovyFiles==2) {
+	//	// System.out.println("although more than "+MAX_AT_ONCE+" still compiling "+unitsLength+" files at once");
+	//	this.compiledAllAtOnce = true;
+	//}
+	SourceFile[][] groovyGroups = null;
+	if (this.compiler != null && this.compiler.options != null && this.compiler.options.buildGroovyFiles == 2) {
+		if (!this.compiledAllAtOnce)
+			groovyGroups = groupGroovyUnits(units);
+		this.compiledAllAtOnce = (groovyGroups == null);
 	}
 	// GROOVY end
 	if (this.compiledAllAtOnce) {
@@ -328,6 +335,10 @@ protected void compile(SourceFile[] units) {
 			for (int i = 0; i < unitsLength; i++)
 				System.out.println("About to compile " + units[i].typeLocator()); //$NON-NLS-1$
 		compile(units, null, true);
+	// GROOVY add
+	} else if (groovyGroups != null) {
+		compile(groovyGroups);
+	// GROOVY end
 	} else {
 		SourceFile[] remainingUnits = new SourceFile[unitsLength]; // copy of units, removing units when about to compile
 		System.arraycopy(units, 0, remainingUnits, 0, unitsLength);
@@ -368,6 +379,222 @@ protected void compile(SourceFile[] units) {
 	}
 }
 
+// GROOVY add
+/* Groovy sources cannot be faulted in while another group is being compiled, so the units
+ * of a Groovy project are compiled in groups only if each group has already seen the Groovy
+ * units it needs.  The references recorded by the last build decide this:
+ *  - a Groovy unit is compiled together with the units it references, as if all units were
+ *    compiled at once (this keeps traits and transforms together with their users)
+ *  - a Java unit is compiled together with or after the units it references, Java ones included,
+ *    so a Groovy unit it reaches through other Java units is never faulted in from a later group
+ *  - a Java unit whose references are unknown is compiled after all Groovy units
+ *  - a Groovy unit whose references are unknown prevents grouping
+ * Units that depend on each other form a component; the components are ordered so that
+ * a component comes after those it depends on and are packed into groups of at most
+ * MAX_AT_ONCE units.  A larger component is compiled as a group of its own.
+ *
+ * Answer the groups in compilation order, or null if the units must be compiled at once.
+ */
+protected SourceFile[][] groupGroovyUnits(SourceFile[] units) {
+	int unitsLength = units.length;
+	ReferenceCollection[] references = new ReferenceCollection[unitsLength];
+	boolean[] isGroovy = new boolean[unitsLength];
+	int[] groovyUnits = new int[unitsLength];
+	int groovyCount = 0;
+	HashtableOfObject unitsByTypeName = new HashtableOfObject(unitsLength);
+	for (int i = 0; i < unitsLength; i++) {
+		SourceFile unit = units[i];
+		references[i] = getRecordedReferences(unit);
+		isGroovy[i] = LanguageSupportFactory.isInterestingSourceFile(unit.resource.getName());
+		if (isGroovy[i]) {
+			if (references[i] == null) return null;
+			groovyUnits[groovyCount++] = i;
+		}
+		char[][] typeNames = this.newState.getDefinedTypeNamesFor(unit.typeLocator());
+		if (typeNames == null) {
+			addUnitIndex(unitsByTypeName, unit.getMainTypeName(), i);
+		} else {
+			for (int j = 0, l = typeNames.length; j < l; j++) {
+				char[] typeName = typeNames[j];
+				addUnitIndex(unitsByTypeName, CharOperation.subarray(typeName, CharOperation.lastIndexOf('/', typeName) + 1, -1), i);
+			}
+		}
+	}
+
+	// an edge from a to b means that b must be compiled no later than a
+	int[][] edges = new int[unitsLength][];
+	int[] edgeCounts = new int[unitsLength];
+	for (int i = 0; i < unitsLength; i++) {
+		if (references[i] == null) {
+			for (int j = 0; j < groovyCount; j++)
+				addEdge(edges, edgeCounts, i, groovyUnits[j]);
+			continue;
+		}
+		char[][] simpleNames = references[i].simpleNameReferences;
+		for (int j = 0, l = simpleNames.length; j < l; j++) {
+			int[] indexes = (int[]) unitsByTypeName.get(simpleNames[j]);
+			if (indexes == null) continue;
+			for (int k = 1, n = indexes[0]; k <= n; k++) {
+				int other = indexes[k];
+				if (other == i) continue;
+				if (isGroovy[i]) {
+					addEdge(edges, edgeCounts, i, other);
+					addEdge(edges, edgeCounts, other, i);
+				} else {
+					addEdge(edges, edgeCounts, i, other);
+				}
+			}
+		}
+	}
+
+	// find the strongly connected components; each one is found after those it depends on
+	int[] order = new int[unitsLength];
+	int orderSize = 0;
+	int[] componentStarts = new int[unitsLength + 1];
+	int componentCount = 0;
+	int[] visitIndexes = new int[unitsLength];
+	Arrays.fill(visitIndexes, -1);
+	int[] lowLinks = new int[unitsLength];
+	boolean[] onStack = new boolean[unitsLength];
+	int[] stack = new int[unitsLength];
+	int stackSize = 0;
+	int[] path = new int[unitsLength];
+	int[] nextEdges = new int[unitsLength];
+	int visitCount = 0;
+	for (int root = 0; root < unitsLength; root++) {
+		if (visitIndexes[root] >= 0) continue;
+		int depth = 0;
+		path[0] = root;
+		visitIndexes[root] = lowLinks[root] = visitCount++;
+		stack[stackSize++] = root;
+		onStack[root] = true;
+		while (depth >= 0) {
+			int v = path[depth];
+			if (nextEdges[v] < edgeCounts[v]) {
+				int w = edges[v][nextEdges[v]++];
+				if (visitIndexes[w] < 0) {
+					visitIndexes[w] = lowLinks[w] = visitCount++;
+					stack[stackSize++] = w;
+					onStack[w] = true;
+					path[++depth] = w;
+				} else if (onStack[w] && visitIndexes[w] < lowLinks[v]) {
+					lowLinks[v] = visitIndexes[w];
+				}
+			} else {
+				if (lowLinks[v] == visitIndexes[v]) {
+					componentStarts[componentCount++] = orderSize;
+					int w;
+					do {
+						w = stack[--stackSize];
+						onStack[w] = false;
+						order[orderSize++] = w;
+					} while (w != v);
+				}
+				if (--depth >= 0 && lowLinks[v] < lowLinks[path[depth]])
+					lowLinks[path[depth]] = lowLinks[v];
+			}
+		}
+	}
+	componentStarts[componentCount] = orderSize;
+
+	ArrayList groups = new ArrayList();
+	int groupStart = 0;
+	for (int c = 0; c < componentCount; c++) {
+		int groupSize = componentStarts[c] - groupStart;
+		if (groupSize > 0 && groupSize + componentStarts[c + 1] - componentStarts[c] > MAX_AT_ONCE) {
+			groups.add(createGroup(units, order, groupStart, componentStarts[c]));
+			groupStart = componentStarts[c];
+		}
+	}
+	if (groupStart == 0) return null;
+	groups.add(createGroup(units, order, groupStart, orderSize));
+
+	SourceFile[][] result = new SourceFile[groups.size()][];
+	groups.toArray(result);
+	return result;
+}
+
+/* Answer the references recorded for the unit by the last build, or null if there are none or they may be out of date.
+ */
+protected ReferenceCollection getRecordedReferences(SourceFile unit) {
+	Object references = this.newState.references.get(unit.typeLocator());
+	return references instanceof ReferenceCollection ? (ReferenceCollection) references : null;
+}
+
+private static void addUnitIndex(HashtableOfObject unitsByTypeName, char[] typeName, int index) {
+	int[] indexes = (int[]) unitsByTypeName.get(typeName);
+	if (indexes == null) {
+		unitsByTypeName.put(typeName, indexes = new int[3]);
+	} else if (indexes[0] + 1 == indexes.length) {
+		System.arraycopy(indexes, 0, indexes = new int[indexes.length * 2], 0, indexes[0] + 1);
+		unitsByTypeName.put(typeName, indexes);
+	}
+	indexes[++indexes[0]] = index;
+}
+
+private static void addEdge(int[][] edges, int[] edgeCounts, int from, int to) {
+	int[] targets = edges[from];
+	int count = edgeCounts[from];
+	if (targets == null) {
+		edges[from] = targets = new int[4];
+	} else if (count == targets.length) {
+		System.arraycopy(targets, 0, edges[from] = targets = new int[count * 2], 0, count);
+	} else if (count > 0 && targets[count - 1] == to) {
+		return;
+	}
+	targets[count] = to;
+	edgeCounts[from] = count + 1;
+}
+
+private static SourceFile[] createGroup(SourceFile[] units, int[] order, int start, int end) {
+	// compile the units of a group in their original order
+	int[] indexes = new int[end - start];
+	System.arraycopy(order, start, indexes, 0, indexes.length);
+	Arrays.sort(indexes);
+	SourceFile[] group = new SourceFile[indexes.length];
+	for (int i = 0, l = indexes.length; i < l; i++)
+		group[i] = units[indexes[i]];
+	return group;
+}
+
+/* Compile the groups in order, like compile(SourceFile[]) compiles its batches of MAX_AT_ONCE units.
+ */
+protected void compile(SourceFile[][] groups) {
+	int unitsLength = 0;
+	for (int g = 0, l = groups.length; g < l; g++)
+		unitsLength += groups[g].length;
+	SourceFile[] remainingUnits = new SourceFile[unitsLength]; // units in group order, removing units when about to compile
+	for (int g = 0, i = 0, l = groups.length; g < l; i += groups[g++].length)
+		System.arraycopy(groups[g], 0, remainingUnits, i, groups[g].length);
+
+	int remainingIndex = 0;
+	for (int g = 0, l = groups.length; g < l; g++) {
+		boolean compilingFirstGroup = (g == 0);
+		int doNow = groups[g].length;
+		SourceFile[] toCompile = new SourceFile[doNow];
+		int count = 0;
+		for (int i = 0; i < doNow; i++) {
+			// Although it needed compiling when this method was called, it may have
+			// already been compiled when it was referenced by another unit.
+			SourceFile unit = remainingUnits[remainingIndex];
+			if (unit != null && (compilingFirstGroup || this.workQueue.isWaiting(unit))) {
+				if (JavaBuilder.DEBUG)
+					System.out.println("About to compile #" + remainingIndex + " of group #" + g + " : "+ unit.typeLocator()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				toCompile[count++] = unit;
+			}
+			remainingUnits[remainingIndex++] = null;
+		}
+		if (count < doNow)
+			System.arraycopy(toCompile, 0, toCompile = new SourceFile[count], 0, count);
+		if (!compilingFirstGroup)
+			for (int a = remainingIndex; a < unitsLength; a++)
+				if (remainingUnits[a] != null && this.workQueue.isCompiled(remainingUnits[a]))
+					remainingUnits[a] = null; // use the class file for this source file since its been compiled
+		compile(toCompile, remainingUnits, compilingFirstGroup);
+	}
+}
+// GROOVY end
+
 protected void compile(SourceFile[] units, SourceFile[] additionalUnits, boolean compilingFirstGroup) {
 	if (units.length == 0) return;
 	this.notifier.aboutToCompile(units[0]); // just to change the message
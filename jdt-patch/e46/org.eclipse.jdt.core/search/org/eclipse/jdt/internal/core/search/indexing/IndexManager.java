@@ -116,6 +116,11 @@ public void addSource(IFile resource, IPath containerPath, SourceElementParser p
 	SearchParticipant participant = SearchEngine.getDefaultSearchParticipant();
 	SearchDocument document = participant.getDocument(resource.getFullPath().toString());
 	document.setParser(parser);
+	// GROOVY add
+	if (parser instanceof IndexingParser) {
+		((IndexingParser) parser).documentScheduled(resource);
+	}
+	// GROOVY end
 	IndexLocation indexLocation = computeIndexLocation(containerPath);
 	scheduleDocumentIndexing(document, containerPath, indexLocation, participant);
 }
@@ -1005,6 +1010,15 @@ public void scheduleDocumentIndexing(final SearchDocument searchDocument, IPath
 			}
 			return true;
 		}
+		// GROOVY add
+		public void cancel() {
+			super.cancel();
+			SourceElementParser parser = searchDocument.getParser();
+			if (parser instanceof IndexingParser) {
+				((IndexingParser) parser).documentCancelled(searchDocument.getPath());
+			}
+		}
+		// GROOVY end
 		public String toString() {
 			return "indexing " + searchDocument.getPath(); //$NON-NLS-1$
 		}
@@ -1,3 +1,4 @@
+// GROOVY PATCHED
 /*******************************************************************************
  * Copyright (c) 2000, 2009 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
@@ -10,6 +11,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.core.search.indexing;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.IProblemFactory;
 import org.eclipse.jdt.internal.compiler.ISourceElementRequestor;
@@ -33,6 +35,24 @@ public class IndexingParser extends SourceElementParser {
 				optimizeStringLiterals, useSourceJavadocParser);
 	}
 
+	// GROOVY add
+	/**
+	 * Called when a document to be parsed by this parser is scheduled for
+	 * indexing.  Subclasses may start to parse it before its turn comes.
+	 */
+	public void documentScheduled(IFile resource) {
+		// nothing to do
+	}
+
+	/**
+	 * Called when the indexing of a document scheduled through this parser is
+	 * cancelled.  Subclasses drop whatever they have parsed for it ahead of time.
+	 */
+	public void documentCancelled(String path) {
+		// nothing to do
+	}
+	// GROOVY end
+
 	protected ImportReference newImportReference(char[][] tokens, long[] sourcePositions, boolean onDemand, int mod) {
 		ImportReference ref = this.importReference;
 		ref.tokens = tokens;